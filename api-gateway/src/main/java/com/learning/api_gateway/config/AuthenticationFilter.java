@@ -4,11 +4,8 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.learning.api_gateway.dto.ApiResponse;
 import com.learning.api_gateway.service.GatewayService;
-import io.netty.handler.codec.http.HttpResponseStatus;
 import lombok.AccessLevel;
-import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
-import lombok.experimental.NonFinal;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
@@ -20,23 +17,15 @@ import org.springframework.http.MediaType;
 import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.stereotype.Component;
-import org.springframework.util.CollectionUtils;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
-import java.util.Arrays;
-import java.util.List;
 
 @Component
 @Slf4j
-@RequiredArgsConstructor
 @FieldDefaults(level = AccessLevel.PACKAGE, makeFinal = true)
 public class AuthenticationFilter implements GlobalFilter, Ordered {
 
-    GatewayService gatewayService;
-    ObjectMapper objectMapper;
-
-    @NonFinal
-    private final String[] publicEndpoints = {
+    static final String[] PUBLIC_ENDPOINTS = {
             "/user-service/users/login",
             "/user-service/users/auth/**",
             "/user-service/users/refresh",
@@ -44,48 +33,63 @@ public class AuthenticationFilter implements GlobalFilter, Ordered {
             "/enrollment-service/ws/qa/**",
             "/ws/qa/**",
             "/user-service/users/oauth2/callback/google",
+            "/user-service/users/.well-known/jwks.json",
     };
 
-    @Value("${app.api-prefix:/api}")
-    @NonFinal
-    private String apiPrefix;
+    private static final String BEARER_PREFIX = "Bearer ";
+    // Token đã xác thực, các filter sau (rate limit...) dùng để lấy user
+    public static final String VERIFIED_TOKEN_ATTR = AuthenticationFilter.class.getName() + ".verifiedToken";
+
+    GatewayService gatewayService;
+    PublicPathMatcher publicPathMatcher;
+    // Body 401 luôn giống nhau nên serialize một lần lúc khởi động
+    byte[] unauthenticatedBody;
+
+    public AuthenticationFilter(GatewayService gatewayService, ObjectMapper objectMapper,
+                                @Value("${app.api-prefix:/api}") String apiPrefix) {
+        this.gatewayService = gatewayService;
+        this.publicPathMatcher = new PublicPathMatcher(apiPrefix, PUBLIC_ENDPOINTS);
+        try {
+            this.unauthenticatedBody = objectMapper.writeValueAsBytes(ApiResponse.builder()
+                    .code(1401)
+                    .message("Unauthenticated")
+                    .build());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize 401 body", e);
+        }
+    }
 
     @Override
     public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
-        log.info("Enter authentication filter....");
         ServerHttpRequest request = exchange.getRequest();
-        String path = request.getURI().getPath();  // Thêm log để debug
-        log.info("Request path: {}", path);
-        log.info("API Prefix: {}", apiPrefix);
+        HttpHeaders headers = request.getHeaders();
 
-        String upgradeHeader = request.getHeaders().getFirst("Upgrade");
-        if ("websocket".equalsIgnoreCase(upgradeHeader)) {
-            log.info("WebSocket upgrade detected, bypassing auth for path: {}", path);
+        if ("websocket".equalsIgnoreCase(headers.getFirst(HttpHeaders.UPGRADE))) {
             return chain.filter(exchange);  // Skip hoàn toàn để tránh modify headers
         }
 
-        if (isPublicEndpoint(request)) {
-            log.info("Public endpoint matched, bypassing auth");
+        if (publicPathMatcher.matches(request.getURI().getRawPath())) {
             return chain.filter(exchange);
         }
 
-        List<String> authHeader = request.getHeaders().get(HttpHeaders.AUTHORIZATION);
-        if (CollectionUtils.isEmpty(authHeader)) {
-            log.warn("No auth header, returning 401");
+        String authHeader = headers.getFirst(HttpHeaders.AUTHORIZATION);
+        if (authHeader == null || authHeader.isEmpty()) {
             return unauthenticated(exchange.getResponse());
         }
 
-        String token = authHeader.get(0).replace("Bearer ", "");
-        log.info("Token: {}...", token.substring(0, Math.min(10, token.length())));  // Log truncated token
+        String token = authHeader.startsWith(BEARER_PREFIX)
+                ? authHeader.substring(BEARER_PREFIX.length())
+                : authHeader;
 
         return gatewayService.introspect(token).flatMap(introspectResponse -> {
             if (introspectResponse.getResult().isValid()) {
-                log.info("Token valid, proceeding");
+                exchange.getAttributes().put(VERIFIED_TOKEN_ATTR, token);
                 return chain.filter(exchange);
-            } else {
-                log.warn("Invalid token, returning 401");
-                return unauthenticated(exchange.getResponse());
             }
+            if (log.isDebugEnabled()) {
+                log.debug("Invalid token for path {}, returning 401", request.getURI().getRawPath());
+            }
+            return unauthenticated(exchange.getResponse());
         }).onErrorResume(throwable -> {
             log.error("Token introspection error: {}", throwable.getMessage());
             return unauthenticated(exchange.getResponse());
@@ -97,41 +101,10 @@ public class AuthenticationFilter implements GlobalFilter, Ordered {
         return -1;
     }
 
-    // UPDATED: Hỗ trợ wildcard cho public endpoints (dùng ** cho subpaths)
-    private boolean isPublicEndpoint(ServerHttpRequest request) {
-        String path = request.getURI().getPath();
-        if (!path.startsWith(apiPrefix)) {
-            return false;
-        }
-        String strippedPath = path.substring(apiPrefix.length());
-        return Arrays.stream(publicEndpoints)
-                .anyMatch(publicEndpoint -> {
-                    if (publicEndpoint.endsWith("/**")) {
-                        String prefix = publicEndpoint.substring(0, publicEndpoint.length() - 3);  // Remove /**
-                        return strippedPath.startsWith(prefix);
-                    }
-                    return strippedPath.startsWith(publicEndpoint);
-                });
-    }
-
     private Mono<Void> unauthenticated(ServerHttpResponse response) {
-        ApiResponse<?> apiResponse = ApiResponse.builder()
-                .code(1401)
-                .message("Unauthenticated")
-                .build();
-
-        String body;
-        try {
-            body = objectMapper.writeValueAsString(apiResponse);
-        } catch (JsonProcessingException e) {
-            log.error("JSON serialization error", e);
-            throw new RuntimeException(e);
-        }
-
         response.setStatusCode(HttpStatus.UNAUTHORIZED);
-        response.getHeaders().add(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
 
-        return response.writeWith(
-                Mono.just(response.bufferFactory().wrap(body.getBytes())));
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(unauthenticatedBody)));
     }
-}
\ No newline at end of file
+}
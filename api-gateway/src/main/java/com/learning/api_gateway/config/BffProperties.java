@@ -0,0 +1,26 @@
+package com.learning.api_gateway.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.bff")
+public class BffProperties {
+    private String courseServiceUrl = "http://localhost:8082/course-service";
+    private String contentServiceUrl = "http://localhost:8084/content-service";
+    private String enrollmentServiceUrl = "http://localhost:8083/enrollment-service";
+
+    private Duration defaultTimeout = Duration.ofSeconds(1);
+    // key = tên leg: course, contents, enrollment, progress, qa
+    private Map<String, Duration> timeouts = new HashMap<>();
+
+    public Duration timeoutFor(String leg) {
+        return timeouts.getOrDefault(leg, defaultTimeout);
+    }
+}
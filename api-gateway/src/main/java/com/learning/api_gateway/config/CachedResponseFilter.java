@@ -0,0 +1,76 @@
+package com.learning.api_gateway.config;
+
+import com.learning.api_gateway.service.ResponseCache;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Second half of the gateway response cache: answers from the cache keyed by
+ * {@link ResponseCacheFilter}, after authentication and rate limiting. A matching
+ * If-None-Match gets 304 without a body and without touching the backend.
+ */
+@Component
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class CachedResponseFilter implements GlobalFilter, Ordered {
+
+    ResponseCache responseCache;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        String key = exchange.getAttribute(ResponseCacheFilter.CACHE_KEY_ATTR);
+        if (key == null) {
+            return chain.filter(exchange);
+        }
+        String routeId = exchange.getAttribute(ResponseCacheFilter.CACHE_ROUTE_ATTR);
+        ResponseCache.Entry entry = responseCache.get(routeId, key);
+        if (entry == null) {
+            return chain.filter(exchange);
+        }
+
+        // Hit: không để decorator ở ResponseCacheFilter lưu lại lần nữa
+        exchange.getAttributes().remove(ResponseCacheFilter.CACHE_KEY_ATTR);
+        ServerHttpResponse response = exchange.getResponse();
+        response.getHeaders().setETag(entry.getEtag());
+        if (matches(exchange.getRequest().getHeaders().getIfNoneMatch(), entry.getEtag())) {
+            responseCache.recordNotModified(routeId);
+            response.setStatusCode(HttpStatus.NOT_MODIFIED);
+            return response.setComplete();
+        }
+
+        response.setStatusCode(HttpStatus.OK);
+        if (entry.getContentType() != null) {
+            response.getHeaders().set(HttpHeaders.CONTENT_TYPE, entry.getContentType());
+        }
+        response.getHeaders().setContentLength(entry.getBody().length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(entry.getBody())));
+    }
+
+    @Override
+    public int getOrder() {
+        // Sau AuthenticationFilter (-1) và RateLimitFilter (0)
+        return 1;
+    }
+
+    static boolean matches(List<String> ifNoneMatch, String etag) {
+        for (String candidate : ifNoneMatch) {
+            if (candidate.equals("*") || candidate.equals(etag)
+                    || (candidate.startsWith("W/") && candidate.substring(2).equals(etag))) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,91 @@
+package com.learning.api_gateway.config;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.learning.api_gateway.dto.ApiResponse;
+import com.learning.api_gateway.service.RouteCircuitBreaker;
+import com.learning.api_gateway.service.RouteCircuitBreakers;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+/**
+ * Fails fast with 503 while a route's breaker is open (error rate or p99 over the
+ * threshold) and feeds every upstream call's latency and outcome back into it.
+ */
+@Component
+public class CircuitBreakerFilter implements GlobalFilter, Ordered {
+
+    // Đánh dấu 503 do chính gateway trả, để ConcurrencyLimitFilter không tính là backend quá tải
+    public static final String REJECTED_ATTR = CircuitBreakerFilter.class.getName() + ".rejected";
+
+    private final RouteCircuitBreakers breakers;
+    private final CircuitBreakerProperties properties;
+    private final byte[] openBody;
+
+    public CircuitBreakerFilter(RouteCircuitBreakers breakers, CircuitBreakerProperties properties,
+                                ObjectMapper objectMapper) {
+        this.breakers = breakers;
+        this.properties = properties;
+        try {
+            this.openBody = objectMapper.writeValueAsBytes(ApiResponse.builder()
+                    .code(1503)
+                    .message("Service is temporarily unavailable, please retry")
+                    .build());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize 503 body", e);
+        }
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        if (!properties.isEnabled() || WebSocketRoutingFilter.isRealtime(exchange)) {
+            return chain.filter(exchange);
+        }
+
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        String routeId = route != null ? route.getId() : "none";
+        RouteCircuitBreaker breaker = breakers.forRoute(routeId);
+        RouteCircuitBreaker.Admission admission = breaker.admit();
+        if (!admission.admitted()) {
+            breakers.increment(routeId, "rejected");
+            exchange.getAttributes().put(REJECTED_ATTR, Boolean.TRUE);
+            return open(exchange.getResponse());
+        }
+
+        long start = System.nanoTime();
+        return chain.filter(exchange).doFinally(signal -> {
+            if (signal == SignalType.CANCEL || exchange.getAttributes().containsKey(DeadlineFilter.CALLER_DEADLINE_ATTR)) {
+                // Client bỏ đi hoặc hết deadline do chính caller đặt: không nói gì về backend
+                breaker.onCancel(admission);
+                return;
+            }
+            HttpStatusCode status = exchange.getResponse().getStatusCode();
+            boolean error = signal == SignalType.ON_ERROR || (status != null && status.is5xxServerError());
+            breaker.onResult(System.nanoTime() - start, error);
+        });
+    }
+
+    @Override
+    public int getOrder() {
+        // Sau ConcurrencyLimitFilter (2)
+        return 3;
+    }
+
+    private Mono<Void> open(ServerHttpResponse response) {
+        response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(openBody)));
+    }
+}
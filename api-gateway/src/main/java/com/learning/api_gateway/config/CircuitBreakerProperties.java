@@ -0,0 +1,54 @@
+package com.learning.api_gateway.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.circuit-breaker")
+public class CircuitBreakerProperties {
+    private boolean enabled = true;
+    private Breaker defaultBreaker = new Breaker();
+    // key = route id trong spring.cloud.gateway routes
+    private Map<String, Breaker> routes = new HashMap<>();
+
+    @Data
+    public static class Breaker {
+        // Cửa sổ trượt = buckets x (window / buckets)
+        private Duration window = Duration.ofSeconds(10);
+        private int buckets = 10;
+        // Ít request hơn thì không đủ để kết luận, không mở breaker
+        private int minRequests = 20;
+        private double errorRateThreshold = 0.5;
+        private Duration p99Threshold = Duration.ofSeconds(2);
+        private Duration openDuration = Duration.ofSeconds(10);
+        // Số request thử khi HALF_OPEN, đều ổn thì đóng lại
+        private int halfOpenPermits = 5;
+        // Request thử không xong trong khoảng này thì mở lại breaker
+        private Duration halfOpenTimeout = Duration.ofSeconds(30);
+        private Hedge hedge = new Hedge();
+    }
+
+    @Data
+    public static class Hedge {
+        private boolean enabled = false;
+        // GET được hedge (Ant pattern trên path gốc). POST chỉ hedge các GraphQL query đã whitelist ở response-cache
+        private List<String> paths = new ArrayList<>();
+        // Hedge tối đa bao nhiêu % số request của route
+        private double budgetPercent = 10;
+        // Chờ p95 của route trước khi gửi request thứ hai, kẹp trong [minDelay, maxDelay]
+        private Duration minDelay = Duration.ofMillis(20);
+        private Duration maxDelay = Duration.ofMillis(500);
+    }
+
+    public Breaker breakerFor(String routeId) {
+        return routeId == null ? defaultBreaker : routes.getOrDefault(routeId, defaultBreaker);
+    }
+}
@@ -0,0 +1,102 @@
+package com.learning.api_gateway.config;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.learning.api_gateway.dto.ApiResponse;
+import com.learning.api_gateway.service.AdaptiveConcurrencyLimiter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.net.URI;
+import java.util.Set;
+
+/**
+ * Sheds load with 503 as soon as a route is at its adaptive concurrency limit instead of
+ * letting requests queue in front of an overloaded backend. Runs after authentication,
+ * rate limiting and the response cache, so only requests that really go upstream count.
+ */
+@Component
+public class ConcurrencyLimitFilter implements GlobalFilter, Ordered {
+
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final ConcurrencyLimitProperties properties;
+    private final byte[] overloadedBody;
+
+    public ConcurrencyLimitFilter(AdaptiveConcurrencyLimiter limiter, ConcurrencyLimitProperties properties,
+                                  ObjectMapper objectMapper) {
+        this.limiter = limiter;
+        this.properties = properties;
+        try {
+            this.overloadedBody = objectMapper.writeValueAsBytes(ApiResponse.builder()
+                    .code(1503)
+                    .message("Service is overloaded, please retry")
+                    .build());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize 503 body", e);
+        }
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        if (!properties.isEnabled() || WebSocketRoutingFilter.isRealtime(exchange)) {
+            return chain.filter(exchange);
+        }
+
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        String routeId = route != null ? route.getId() : "none";
+        ConcurrencyLimitProperties.Priority priority = limiter.priorityOf(routeId,
+                exchange.getRequest().getMethod().name(), originalPath(exchange));
+
+        if (!limiter.tryAcquire(routeId, priority)) {
+            return overloaded(exchange.getResponse());
+        }
+
+        long start = System.nanoTime();
+        return chain.filter(exchange).doFinally(signal -> {
+            if (signal == SignalType.CANCEL || exchange.getAttributes().containsKey(CircuitBreakerFilter.REJECTED_ATTR)
+                    || exchange.getAttributes().containsKey(DeadlineFilter.CALLER_DEADLINE_ATTR)) {
+                // Client bỏ đi, breaker trả 503 luôn hoặc hết deadline của caller: RTT này không phản ánh backend
+                limiter.release(routeId);
+                return;
+            }
+            HttpStatusCode status = exchange.getResponse().getStatusCode();
+            boolean dropped = signal == SignalType.ON_ERROR
+                    || (status != null && (status.value() == 503 || status.value() == 504));
+            limiter.release(routeId, System.nanoTime() - start, dropped);
+        });
+    }
+
+    @Override
+    public int getOrder() {
+        // Sau CachedResponseFilter (1): cache hit không chiếm slot
+        return 2;
+    }
+
+    static String originalPath(ServerWebExchange exchange) {
+        // StripPrefix (order 1) đã chạy, lấy lại path gốc mà rule trong yml dùng
+        Set<URI> originals = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ORIGINAL_REQUEST_URL_ATTR);
+        return originals != null && !originals.isEmpty()
+                ? originals.iterator().next().getRawPath()
+                : exchange.getRequest().getURI().getRawPath();
+    }
+
+    private Mono<Void> overloaded(ServerHttpResponse response) {
+        response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, "1");
+
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(overloadedBody)));
+    }
+}
@@ -0,0 +1,65 @@
+package com.learning.api_gateway.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.concurrency-limit")
+public class ConcurrencyLimitProperties {
+    private boolean enabled = true;
+    // Trần in-flight của cả gateway, chia cho các mức priority theo priorityShares
+    private int globalLimit = 1000;
+    // Phần của limit mà mỗi priority được dùng: LOW bị shed trước khi HIGH bị ảnh hưởng
+    private Map<Priority, Double> priorityShares = new EnumMap<>(Map.of(
+            Priority.LOW, 0.6,
+            Priority.NORMAL, 0.85,
+            Priority.HIGH, 1.0));
+    private Limit defaultLimit = new Limit();
+    // key = route id trong spring.cloud.gateway routes
+    private Map<String, Limit> routes = new HashMap<>();
+
+    public enum Priority {
+        LOW, NORMAL, HIGH
+    }
+
+    @Data
+    public static class Limit {
+        private int initialLimit = 20;
+        private int minLimit = 4;
+        private int maxLimit = 200;
+        // Tỉ lệ limit mới được trộn vào limit cũ sau mỗi sample
+        private double smoothing = 0.2;
+        // RTT gần đây được phép vượt RTT lúc không tải bao nhiêu lần trước khi giảm limit
+        private double rttTolerance = 1.5;
+        // Sau bao nhiêu sample thì đo lại RTT lúc không tải
+        private int probeInterval = 1000;
+        private Priority priority = Priority.NORMAL;
+        // Ghi đè priority cho một số request trong route, vd. ghi progress
+        private List<PriorityRule> priorities = new ArrayList<>();
+    }
+
+    @Data
+    public static class PriorityRule {
+        // Ant pattern trên path gốc (có api-prefix)
+        private String path;
+        // null = mọi method
+        private String method;
+        private Priority priority = Priority.HIGH;
+    }
+
+    public Limit limitFor(String routeId) {
+        return routeId == null ? defaultLimit : routes.getOrDefault(routeId, defaultLimit);
+    }
+
+    public double shareOf(Priority priority) {
+        return priorityShares.getOrDefault(priority, 1.0);
+    }
+}
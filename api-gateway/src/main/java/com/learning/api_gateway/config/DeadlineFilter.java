@@ -0,0 +1,127 @@
+package com.learning.api_gateway.config;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.learning.api_gateway.dto.ApiResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Stamps every routed request with an absolute deadline (epoch millis) taken from the
+ * route's budget, so the services and their Feign clients can stop working on a request
+ * the caller has already given up on. A deadline sent by the caller (service to service
+ * calls through the gateway) is kept if it is earlier. The gateway itself stops waiting
+ * for the upstream at the deadline and answers 504.
+ *
+ * <p>A 504 caused by the caller's own (earlier) deadline says nothing about the route and
+ * is marked with {@link #CALLER_DEADLINE_ATTR}, so the circuit breaker and the concurrency
+ * limiter do not count it; only timeouts of the route's budget are route failures.
+ *
+ * <p>Deadlines are wall clock times, the hosts are expected to be NTP synchronized.
+ */
+@Component
+public class DeadlineFilter implements GlobalFilter, Ordered {
+
+    public static final String CALLER_DEADLINE_ATTR = DeadlineFilter.class.getName() + ".callerDeadline";
+
+    private final DeadlineProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Counter> exceeded = new ConcurrentHashMap<>();
+    private final byte[] exceededBody;
+
+    public DeadlineFilter(DeadlineProperties properties, MeterRegistry meterRegistry, ObjectMapper objectMapper) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        try {
+            this.exceededBody = objectMapper.writeValueAsBytes(ApiResponse.builder()
+                    .code(1504)
+                    .message("Request deadline exceeded")
+                    .build());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize 504 body", e);
+        }
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        // WebSocket/SockJS sống lâu hơn mọi budget
+        if (!properties.isEnabled() || WebSocketRoutingFilter.isRealtime(exchange)) {
+            return chain.filter(exchange);
+        }
+
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        String routeId = route != null ? route.getId() : "none";
+        long now = System.currentTimeMillis();
+        long deadline = now + properties.budgetFor(routeId).toMillis();
+        Long requested = parse(exchange.getRequest().getHeaders().getFirst(properties.getHeader()));
+        boolean callerDeadline = requested != null && requested < deadline;
+        if (callerDeadline) {
+            deadline = requested;
+        }
+
+        if (deadline <= now) {
+            exchange.getAttributes().put(CALLER_DEADLINE_ATTR, Boolean.TRUE);
+            return exceeded(routeId, exchange.getResponse());
+        }
+
+        String value = Long.toString(deadline);
+        ServerWebExchange mutated = exchange.mutate()
+                .request(request -> request.headers(headers -> headers.set(properties.getHeader(), value)))
+                .build();
+
+        return chain.filter(mutated)
+                .timeout(Duration.ofMillis(deadline - now))
+                .onErrorResume(TimeoutException.class, e -> {
+                    if (callerDeadline) {
+                        mutated.getAttributes().put(CALLER_DEADLINE_ATTR, Boolean.TRUE);
+                    }
+                    return mutated.getResponse().isCommitted()
+                            ? Mono.error(e)
+                            : exceeded(routeId, mutated.getResponse());
+                });
+    }
+
+    @Override
+    public int getOrder() {
+        // Sau CircuitBreakerFilter (3): 504 do hết budget của route được tính là lỗi của route
+        return 4;
+    }
+
+    private static Long parse(String header) {
+        if (header == null || header.isBlank()) {
+            return null;
+        }
+        try {
+            return Long.parseLong(header.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private Mono<Void> exceeded(String routeId, ServerHttpResponse response) {
+        exceeded.computeIfAbsent(routeId, id -> Counter.builder("gateway.deadline.exceeded")
+                        .tag("route", id)
+                        .register(meterRegistry))
+                .increment();
+        response.setStatusCode(HttpStatus.GATEWAY_TIMEOUT);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(exceededBody)));
+    }
+}
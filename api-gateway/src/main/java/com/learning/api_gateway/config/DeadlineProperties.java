@@ -0,0 +1,25 @@
+package com.learning.api_gateway.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.deadline")
+public class DeadlineProperties {
+    private boolean enabled = true;
+    private String header = "X-Request-Deadline";
+    // Thời gian tối đa cho cả chuỗi gọi phía sau gateway
+    private Duration defaultBudget = Duration.ofSeconds(10);
+    // key = route id trong spring.cloud.gateway routes
+    private Map<String, Duration> routes = new HashMap<>();
+
+    public Duration budgetFor(String routeId) {
+        return routeId == null ? defaultBudget : routes.getOrDefault(routeId, defaultBudget);
+    }
+}
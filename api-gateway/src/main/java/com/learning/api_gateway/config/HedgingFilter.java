@@ -0,0 +1,176 @@
+package com.learning.api_gateway.config;
+
+import com.learning.api_gateway.service.HedgeBudget;
+import com.learning.api_gateway.service.RouteCircuitBreakers;
+import io.netty.buffer.Unpooled;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.RouteToRequestUrlFilter;
+import org.springframework.cloud.gateway.filter.headers.HttpHeadersFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Hedged requests for idempotent reads: if the upstream has not answered after the
+ * route's p95 (clamped to [min-delay, max-delay]) a second identical request is sent and
+ * whichever answers first wins, the other one is cancelled. Hedges are limited by a
+ * {@link HedgeBudget} so a slow backend cannot get amplified load.
+ *
+ * <p>Takes over the upstream call from NettyRoutingFilter for those requests, so it runs
+ * after the request URL is resolved. Responses are buffered, which is fine for the small
+ * catalog payloads this is meant for.
+ */
+@Component
+public class HedgingFilter implements GlobalFilter, Ordered {
+
+    private static final AntPathMatcher PATH_MATCHER = new AntPathMatcher();
+
+    private record Upstream(int status, HttpHeaders headers, byte[] body, boolean hedged) {
+    }
+
+    private final HttpClient httpClient;
+    private final ObjectProvider<List<HttpHeadersFilter>> headersFilters;
+    private final CircuitBreakerProperties properties;
+    private final RouteCircuitBreakers breakers;
+
+    public HedgingFilter(HttpClient httpClient, ObjectProvider<List<HttpHeadersFilter>> headersFilters,
+                         CircuitBreakerProperties properties, RouteCircuitBreakers breakers) {
+        this.httpClient = httpClient;
+        this.headersFilters = headersFilters;
+        this.properties = properties;
+        this.breakers = breakers;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        URI requestUrl = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR);
+        if (!properties.isEnabled() || route == null || requestUrl == null
+                || ServerWebExchangeUtils.isAlreadyRouted(exchange)
+                || !("http".equals(requestUrl.getScheme()) || "https".equals(requestUrl.getScheme()))) {
+            return chain.filter(exchange);
+        }
+
+        CircuitBreakerProperties.Hedge hedge = properties.breakerFor(route.getId()).getHedge();
+        String body = hedgeableBody(exchange, hedge);
+        if (body == null) {
+            return chain.filter(exchange);
+        }
+
+        String routeId = route.getId();
+        HedgeBudget budget = breakers.hedgeBudget(routeId);
+        budget.onRequest();
+        ServerWebExchangeUtils.setAlreadyRouted(exchange);
+
+        HttpMethod method = exchange.getRequest().getMethod();
+        HttpHeaders headers = HttpHeadersFilter.filterRequest(headersFilters.getIfAvailable(List::of), exchange);
+        headers.remove(HttpHeaders.HOST);
+
+        Mono<Upstream> primary = call(method, requestUrl, headers, body, false);
+        Mono<Upstream> hedged = Mono.delay(hedgeDelay(routeId, hedge))
+                .flatMap(tick -> {
+                    if (!budget.tryAcquire()) {
+                        breakers.increment(routeId, "hedge.budget-exhausted");
+                        return Mono.empty();
+                    }
+                    breakers.increment(routeId, "hedge.sent");
+                    return call(method, requestUrl, headers, body, true);
+                });
+
+        return Mono.firstWithValue(primary, hedged)
+                .onErrorMap(NoSuchElementException.class, HedgingFilter::firstCause)
+                .flatMap(upstream -> {
+                    if (upstream.hedged()) {
+                        breakers.increment(routeId, "hedge.won");
+                    }
+                    return write(exchange, upstream);
+                });
+    }
+
+    @Override
+    public int getOrder() {
+        // Sau RouteToRequestUrlFilter (10000) và load balancer (10150), trước NettyRoutingFilter
+        return RouteToRequestUrlFilter.ROUTE_TO_URL_FILTER_ORDER + 200;
+    }
+
+    /**
+     * @return the body to replay ("" for GETs), null if the request must not be hedged
+     */
+    private static String hedgeableBody(ServerWebExchange exchange, CircuitBreakerProperties.Hedge hedge) {
+        if (!hedge.isEnabled()) {
+            return null;
+        }
+        HttpMethod method = exchange.getRequest().getMethod();
+        if (method == HttpMethod.GET) {
+            String path = ConcurrencyLimitFilter.originalPath(exchange);
+            return hedge.getPaths().stream().anyMatch(pattern -> PATH_MATCHER.match(pattern, path)) ? "" : null;
+        }
+        // POST chỉ khi ResponseCacheFilter đã xác nhận là GraphQL query trong whitelist (không phải mutation)
+        DataBuffer cachedBody = exchange.getAttribute(ServerWebExchangeUtils.CACHED_REQUEST_BODY_ATTR);
+        if (method == HttpMethod.POST && cachedBody != null
+                && exchange.getAttribute(ResponseCacheFilter.CACHE_KEY_ATTR) != null) {
+            return cachedBody.toString(StandardCharsets.UTF_8);
+        }
+        return null;
+    }
+
+    private Duration hedgeDelay(String routeId, CircuitBreakerProperties.Hedge hedge) {
+        long p95 = breakers.forRoute(routeId).p95Nanos();
+        long delay = p95 < 0 ? hedge.getMaxDelay().toNanos() : p95;
+        return Duration.ofNanos(Math.max(hedge.getMinDelay().toNanos(), Math.min(hedge.getMaxDelay().toNanos(), delay)));
+    }
+
+    private Mono<Upstream> call(HttpMethod method, URI url, HttpHeaders headers, String body, boolean hedged) {
+        return httpClient
+                .headers(nettyHeaders -> headers.forEach(nettyHeaders::set))
+                .request(io.netty.handler.codec.http.HttpMethod.valueOf(method.name()))
+                .uri(url)
+                .send(body.isEmpty() ? Mono.empty() : Mono.just(Unpooled.wrappedBuffer(body.getBytes(StandardCharsets.UTF_8))))
+                .responseSingle((response, content) -> content.asByteArray()
+                        .defaultIfEmpty(new byte[0])
+                        .map(bytes -> {
+                            HttpHeaders responseHeaders = new HttpHeaders();
+                            response.responseHeaders().forEach(entry -> responseHeaders.add(entry.getKey(), entry.getValue()));
+                            return new Upstream(response.status().code(), responseHeaders, bytes, hedged);
+                        }));
+    }
+
+    private Mono<Void> write(ServerWebExchange exchange, Upstream upstream) {
+        ServerHttpResponse response = exchange.getResponse();
+        HttpHeaders headers = HttpHeadersFilter.filter(headersFilters.getIfAvailable(List::of), upstream.headers(),
+                exchange, HttpHeadersFilter.Type.RESPONSE);
+        headers.remove(HttpHeaders.TRANSFER_ENCODING);
+        response.setStatusCode(HttpStatusCode.valueOf(upstream.status()));
+        response.getHeaders().putAll(headers);
+        response.getHeaders().setContentLength(upstream.body().length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(upstream.body())));
+    }
+
+    private static Throwable firstCause(NoSuchElementException e) {
+        // Cả hai request đều lỗi: trả lỗi của request đầu thay vì "no value"
+        if (e.getCause() != null) {
+            List<Throwable> errors = Exceptions.unwrapMultiple(e.getCause());
+            return errors.isEmpty() ? e : errors.get(0);
+        }
+        return e.getSuppressed().length > 0 ? e.getSuppressed()[0] : e;
+    }
+}
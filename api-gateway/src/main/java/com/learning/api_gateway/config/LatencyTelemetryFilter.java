@@ -0,0 +1,74 @@
+package com.learning.api_gateway.config;
+
+import com.learning.api_gateway.service.RouteTelemetry;
+import com.learning.api_gateway.service.UpstreamTiming;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Records every routed request: total latency per route and status, upstream connect vs
+ * response time, and requests in flight. Replaces TRACE logging of the gateway as the way
+ * to find slow routes.
+ */
+@Component
+public class LatencyTelemetryFilter implements GlobalFilter, Ordered {
+
+    private final RouteTelemetry telemetry;
+    private final boolean enabled;
+
+    public LatencyTelemetryFilter(RouteTelemetry telemetry, @Value("${app.telemetry.enabled:true}") boolean enabled) {
+        this.telemetry = telemetry;
+        this.enabled = enabled;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        if (!enabled) {
+            return chain.filter(exchange);
+        }
+
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        String routeId = route != null ? route.getId() : "none";
+        AtomicInteger inFlight = telemetry.inFlight(routeId);
+        UpstreamTiming timing = new UpstreamTiming();
+
+        inFlight.incrementAndGet();
+        long start = System.nanoTime();
+        return chain.filter(exchange)
+                .contextWrite(context -> context.put(UpstreamTiming.CONTEXT_KEY, timing))
+                .doFinally(signal -> {
+                    inFlight.decrementAndGet();
+                    telemetry.recordLatency(routeId, status(exchange, signal), System.nanoTime() - start);
+                    telemetry.recordUpstream(routeId, timing);
+                });
+    }
+
+    @Override
+    public int getOrder() {
+        // Đo cả thời gian của các filter của gateway (auth, rate limit, ...)
+        return Ordered.HIGHEST_PRECEDENCE + 10_000;
+    }
+
+    private static String status(ServerWebExchange exchange, SignalType signal) {
+        if (signal == SignalType.CANCEL) {
+            return "CANCELLED";
+        }
+        if (signal == SignalType.ON_ERROR) {
+            // Error handler đặt status sau khi filter chain kết thúc
+            return "ERROR";
+        }
+        HttpStatusCode status = exchange.getResponse().getStatusCode();
+        return status != null ? Integer.toString(status.value()) : "UNKNOWN";
+    }
+}
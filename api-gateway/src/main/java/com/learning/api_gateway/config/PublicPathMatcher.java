@@ -0,0 +1,66 @@
+package com.learning.api_gateway.config;
+
+import java.util.Arrays;
+
+/**
+ * Prefix trie over the public endpoints, built once at startup. Matching walks the
+ * request path char by char and allocates nothing. Every pattern is a prefix match,
+ * a trailing "/**" is just stripped, same as the old startsWith loop.
+ */
+public final class PublicPathMatcher {
+
+    private static final class Node {
+        char[] labels = new char[0];
+        Node[] children = new Node[0];
+        boolean terminal;
+
+        Node child(char c) {
+            for (int i = 0; i < labels.length; i++) {
+                if (labels[i] == c) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        Node addChild(char c) {
+            Node existing = child(c);
+            if (existing != null) {
+                return existing;
+            }
+            labels = Arrays.copyOf(labels, labels.length + 1);
+            children = Arrays.copyOf(children, children.length + 1);
+            labels[labels.length - 1] = c;
+            return children[children.length - 1] = new Node();
+        }
+    }
+
+    private final Node root = new Node();
+
+    public PublicPathMatcher(String apiPrefix, String... publicEndpoints) {
+        for (String endpoint : publicEndpoints) {
+            String prefix = apiPrefix + (endpoint.endsWith("/**")
+                    ? endpoint.substring(0, endpoint.length() - 3)
+                    : endpoint);
+            Node node = root;
+            for (int i = 0; i < prefix.length(); i++) {
+                node = node.addChild(prefix.charAt(i));
+            }
+            node.terminal = true;
+        }
+    }
+
+    public boolean matches(String path) {
+        Node node = root;
+        for (int i = 0; i < path.length(); i++) {
+            if (node.terminal) {
+                return true;
+            }
+            node = node.child(path.charAt(i));
+            if (node == null) {
+                return false;
+            }
+        }
+        return node.terminal;
+    }
+}
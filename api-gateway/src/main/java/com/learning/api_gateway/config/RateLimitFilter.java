@@ -0,0 +1,111 @@
+package com.learning.api_gateway.config;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.learning.api_gateway.dto.ApiResponse;
+import com.learning.api_gateway.service.TokenBucketRateLimiter;
+import com.nimbusds.jwt.JWTParser;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.text.ParseException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-user, per-route token bucket limiting, runs right after {@link AuthenticationFilter}
+ * so the token is already verified. Requests without a token are keyed by client address.
+ */
+@Component
+public class RateLimitFilter implements GlobalFilter, Ordered {
+
+    private final TokenBucketRateLimiter rateLimiter;
+    private final RateLimitProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Counter> rejectedByRoute = new ConcurrentHashMap<>();
+    private final byte[] tooManyRequestsBody;
+
+    public RateLimitFilter(TokenBucketRateLimiter rateLimiter, RateLimitProperties properties,
+                           MeterRegistry meterRegistry, ObjectMapper objectMapper) {
+        this.rateLimiter = rateLimiter;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        try {
+            this.tooManyRequestsBody = objectMapper.writeValueAsBytes(ApiResponse.builder()
+                    .code(1429)
+                    .message("Too many requests")
+                    .build());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize 429 body", e);
+        }
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        if (!properties.isEnabled()) {
+            return chain.filter(exchange);
+        }
+
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        String routeId = route != null ? route.getId() : "none";
+        String key = clientKey(exchange) + '|' + routeId;
+
+        long waitNanos = rateLimiter.tryAcquire(key, properties.limitFor(routeId));
+        if (waitNanos == 0) {
+            return chain.filter(exchange);
+        }
+
+        rejectedByRoute.computeIfAbsent(routeId, id -> Counter.builder("gateway.ratelimit.rejected")
+                        .description("Requests rejected with 429 by the gateway rate limiter")
+                        .tag("route", id)
+                        .register(meterRegistry))
+                .increment();
+        return tooManyRequests(exchange.getResponse(), waitNanos);
+    }
+
+    @Override
+    public int getOrder() {
+        // Ngay sau AuthenticationFilter (-1)
+        return 0;
+    }
+
+    private static String clientKey(ServerWebExchange exchange) {
+        // Chỉ tin subject của token đã được AuthenticationFilter xác thực
+        String token = exchange.getAttribute(AuthenticationFilter.VERIFIED_TOKEN_ATTR);
+        if (token != null) {
+            try {
+                String subject = JWTParser.parse(token).getJWTClaimsSet().getSubject();
+                if (subject != null) {
+                    return "user:" + subject;
+                }
+            } catch (ParseException e) {
+                // fall through to the client address
+            }
+        }
+        InetSocketAddress remoteAddress = exchange.getRequest().getRemoteAddress();
+        return "ip:" + (remoteAddress != null ? remoteAddress.getHostString() : "unknown");
+    }
+
+    private Mono<Void> tooManyRequests(ServerHttpResponse response, long waitNanos) {
+        long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+        response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(tooManyRequestsBody)));
+    }
+}
@@ -0,0 +1,32 @@
+package com.learning.api_gateway.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.rate-limit")
+public class RateLimitProperties {
+    private boolean enabled = true;
+    // Buckets không được dùng trong khoảng này sẽ bị bỏ, phải lớn hơn thời gian nạp đầy bucket
+    private Duration idleTimeout = Duration.ofMinutes(10);
+    private long maxKeys = 100_000;
+    private Limit defaultLimit = new Limit();
+    // key = route id trong spring.cloud.gateway routes
+    private Map<String, Limit> routes = new HashMap<>();
+
+    @Data
+    public static class Limit {
+        private int capacity = 50;
+        private double refillPerSecond = 20;
+    }
+
+    public Limit limitFor(String routeId) {
+        return routeId == null ? defaultLimit : routes.getOrDefault(routeId, defaultLimit);
+    }
+}
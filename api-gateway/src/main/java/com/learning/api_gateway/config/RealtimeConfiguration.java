@@ -0,0 +1,18 @@
+package com.learning.api_gateway.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.HandlerMapping;
+import org.springframework.web.reactive.handler.SimpleUrlHandlerMapping;
+
+import java.util.Map;
+
+@Configuration
+public class RealtimeConfiguration {
+
+    // Trước RoutePredicateHandlerMapping của gateway (order 1): socket này do gateway xử lý, không route đi đâu
+    @Bean
+    HandlerMapping realtimeHandlerMapping(RealtimeProperties properties, RealtimeWebSocketHandler handler) {
+        return new SimpleUrlHandlerMapping(properties.isEnabled() ? Map.of(properties.getPath(), handler) : Map.of(), -1);
+    }
+}
@@ -0,0 +1,39 @@
+package com.learning.api_gateway.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.realtime")
+public class RealtimeProperties {
+    private boolean enabled = true;
+    private String path = "/api/realtime";
+    // Client chậm không đọc kịp: quá số frame này thì đóng socket của client đó
+    private int clientBufferSize = 256;
+    private Duration reconnectDelay = Duration.ofSeconds(2);
+    // key = tên backend, dùng cho metric
+    private Map<String, Backend> backends = new LinkedHashMap<>();
+
+    @Data
+    public static class Backend {
+        // Endpoint WebSocket thuần của SockJS: <endpoint>/websocket
+        private URI url;
+        // SUBSCRIBE tới các destination này đi qua link của backend
+        private List<String> destinations = new ArrayList<>();
+        // SEND tới các destination này đi qua link của backend
+        private List<String> sendPrefixes = new ArrayList<>();
+        // Topic riêng của từng user (<prefix><userId>): client chỉ SUBSCRIBE được topic của userId trong token
+        private List<String> userDestinations = new ArrayList<>();
+        // Gửi trong CONNECT của link để backend biết đó là gateway (chỉ gateway được SUBSCRIBE topic riêng)
+        private String linkKey;
+    }
+}
@@ -0,0 +1,242 @@
+package com.learning.api_gateway.config;
+
+import com.learning.api_gateway.service.GatewayService;
+import com.learning.api_gateway.service.RealtimeLinks;
+import com.learning.api_gateway.service.StompFrame;
+import com.learning.api_gateway.service.UpstreamStompLink;
+import com.nimbusds.jwt.SignedJWT;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.socket.CloseStatus;
+import org.springframework.web.reactive.socket.WebSocketHandler;
+import org.springframework.web.reactive.socket.WebSocketMessage;
+import org.springframework.web.reactive.socket.WebSocketSession;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.concurrent.Queues;
+
+import java.text.ParseException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * One STOMP-over-WebSocket connection per browser, terminated at the gateway. Q&A and
+ * notification subscriptions both go through it and are relayed over the shared
+ * {@link UpstreamStompLink}s instead of each user holding a SockJS session per backend.
+ * The access token is checked once, from the Authorization header of CONNECT, and its userId
+ * claim decides which per-user notification topics the socket may subscribe to.
+ */
+@Slf4j
+@Component
+public class RealtimeWebSocketHandler implements WebSocketHandler {
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final class Client {
+        private final WebSocketSession session;
+        private final Sinks.Many<String> outbound;
+        // key = id subscription của client
+        private final Map<String, Registration> subscriptions = new ConcurrentHashMap<>();
+        private volatile boolean connected;
+        // Claim userId của token lúc CONNECT, null nếu token không có (token cũ)
+        private volatile String userId;
+
+        private Client(WebSocketSession session) {
+            this.session = session;
+            this.outbound = Sinks.many().unicast()
+                    .onBackpressureBuffer(Queues.<String>get(properties.getClientBufferSize()).get());
+        }
+
+        private void send(StompFrame frame) {
+            Sinks.EmitResult result;
+            synchronized (outbound) {
+                result = outbound.tryEmitNext(frame.encode());
+            }
+            if (result == Sinks.EmitResult.FAIL_OVERFLOW) {
+                log.warn("Realtime client {} too slow, closing", session.getId());
+                session.close(CloseStatus.POLICY_VIOLATION).subscribe();
+            }
+        }
+
+        private void close() {
+            synchronized (outbound) {
+                outbound.tryEmitComplete();
+            }
+        }
+
+        private void error(String message) {
+            send(StompFrame.of("ERROR").header("message", message));
+            close();
+        }
+
+        private void unsubscribeAll() {
+            subscriptions.values().forEach(registration -> registration.link().unsubscribe(
+                    registration.destination(), registration.listener()));
+            subscriptions.clear();
+        }
+    }
+
+    private record Registration(UpstreamStompLink link, String destination, Consumer<StompFrame> listener) {
+    }
+
+    private final GatewayService gatewayService;
+    private final RealtimeLinks links;
+    private final RealtimeProperties properties;
+    private final AtomicInteger clients = new AtomicInteger();
+
+    public RealtimeWebSocketHandler(GatewayService gatewayService, RealtimeLinks links, RealtimeProperties properties,
+                                    MeterRegistry meterRegistry) {
+        this.gatewayService = gatewayService;
+        this.links = links;
+        this.properties = properties;
+        Gauge.builder("gateway.realtime.clients", clients, AtomicInteger::get)
+                .description("Open multiplexed realtime sockets")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Mono<Void> handle(WebSocketSession session) {
+        Client client = new Client(session);
+        clients.incrementAndGet();
+
+        Mono<Void> input = session.receive()
+                .map(WebSocketMessage::getPayloadAsText)
+                .concatMap(text -> onFrame(client, StompFrame.parse(text)))
+                .then();
+        Mono<Void> output = session.send(client.outbound.asFlux().map(session::textMessage));
+
+        return Mono.firstWithSignal(input, output)
+                .doFinally(signal -> {
+                    client.unsubscribeAll();
+                    clients.decrementAndGet();
+                });
+    }
+
+    private Mono<Void> onFrame(Client client, StompFrame frame) {
+        if (frame == null) {
+            return Mono.empty();
+        }
+        String command = frame.getCommand();
+        if ("CONNECT".equals(command) || "STOMP".equals(command)) {
+            return connect(client, frame);
+        }
+        if (!client.connected) {
+            client.error("Not connected");
+            return Mono.empty();
+        }
+
+        switch (command) {
+            case "SUBSCRIBE" -> subscribe(client, frame);
+            case "UNSUBSCRIBE" -> {
+                Registration registration = client.subscriptions.remove(String.valueOf(frame.getHeader("id")));
+                if (registration != null) {
+                    registration.link().unsubscribe(registration.destination(), registration.listener());
+                }
+            }
+            case "SEND" -> send(client, frame);
+            case "DISCONNECT" -> {
+                receipt(client, frame);
+                client.close();
+                return Mono.empty();
+            }
+            default -> {
+                // ACK/NACK/BEGIN/COMMIT: simple broker không dùng
+            }
+        }
+        receipt(client, frame);
+        return Mono.empty();
+    }
+
+    private Mono<Void> connect(Client client, StompFrame frame) {
+        String authorization = frame.getHeader(HttpHeaders.AUTHORIZATION);
+        if (authorization == null) {
+            authorization = frame.getHeader("authorization");
+        }
+        if (authorization == null || !authorization.startsWith(BEARER_PREFIX)) {
+            client.error("Unauthenticated");
+            return Mono.empty();
+        }
+
+        String token = authorization.substring(BEARER_PREFIX.length());
+        return gatewayService.introspect(token)
+                .map(response -> response.getResult() != null && response.getResult().isValid())
+                .onErrorReturn(false)
+                .doOnNext(valid -> {
+                    if (!valid) {
+                        client.error("Unauthenticated");
+                        return;
+                    }
+                    client.userId = userIdClaim(token);
+                    client.connected = true;
+                    client.send(StompFrame.of("CONNECTED")
+                            .header("version", "1.2")
+                            .header("heart-beat", "0,0")
+                            .header("server", "api-gateway"));
+                })
+                .then();
+    }
+
+    private void subscribe(Client client, StompFrame frame) {
+        String id = frame.getHeader("id");
+        String destination = frame.getHeader("destination");
+        UpstreamStompLink link = links.forSubscription(destination);
+        if (id == null || link == null) {
+            client.error("Unknown destination " + destination);
+            return;
+        }
+        if (!links.allowsSubscription(destination, client.userId)) {
+            log.warn("Realtime client {} (user {}) denied SUBSCRIBE to {}", client.session.getId(), client.userId,
+                    destination);
+            client.error("Forbidden destination " + destination);
+            return;
+        }
+
+        Consumer<StompFrame> listener = message -> {
+            Map<String, String> headers = new LinkedHashMap<>(message.getHeaders());
+            headers.put("subscription", id);
+            client.send(new StompFrame("MESSAGE", headers, message.getBody()));
+        };
+        Registration previous = client.subscriptions.put(id, new Registration(link, destination, listener));
+        if (previous != null) {
+            previous.link().unsubscribe(previous.destination(), previous.listener());
+        }
+        link.subscribe(destination, listener);
+    }
+
+    private void send(Client client, StompFrame frame) {
+        String destination = frame.getHeader("destination");
+        UpstreamStompLink link = links.forSend(destination);
+        if (link == null) {
+            client.error("Unknown destination " + destination);
+            return;
+        }
+        Map<String, String> headers = new LinkedHashMap<>(frame.getHeaders());
+        headers.remove("receipt");
+        if (!link.send(new StompFrame("SEND", headers, frame.getBody()))) {
+            log.debug("Realtime link {} is down, dropped SEND to {}", link.getName(), destination);
+        }
+    }
+
+    // Chỉ đọc claim sau khi token đã được xác thực (chữ ký, hạn, thu hồi) ở introspect
+    private static String userIdClaim(String token) {
+        try {
+            Object userId = SignedJWT.parse(token).getJWTClaimsSet().getClaim("userId");
+            return userId != null ? String.valueOf(userId) : null;
+        } catch (ParseException e) {
+            return null;
+        }
+    }
+
+    private static void receipt(Client client, StompFrame frame) {
+        String receipt = frame.getHeader("receipt");
+        if (receipt != null) {
+            client.send(StompFrame.of("RECEIPT").header("receipt-id", receipt));
+        }
+    }
+}
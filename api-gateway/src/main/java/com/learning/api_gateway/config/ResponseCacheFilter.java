@@ -0,0 +1,276 @@
+package com.learning.api_gateway.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.learning.api_gateway.service.ResponseCache;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * First half of the gateway response cache. Runs before {@link NettyWriteResponseFilter}
+ * so its response decorator sees the upstream body: it decides whether the request is a
+ * cacheable catalog read, computes the normalized key, and stores 200 responses with an
+ * ETag. Serving hits happens later in {@link CachedResponseFilter}, after authentication.
+ * GraphQL bodies are buffered only when Content-Length is within max-request-size, since this
+ * runs before authentication; a miss whose fresh ETag matches If-None-Match still gets 304.
+ */
+@Slf4j
+@Component
+public class ResponseCacheFilter implements GlobalFilter, Ordered {
+
+    public static final String CACHE_KEY_ATTR = ResponseCacheFilter.class.getName() + ".key";
+    public static final String CACHE_ROUTE_ATTR = ResponseCacheFilter.class.getName() + ".route";
+
+    private static final AntPathMatcher PATH_MATCHER = new AntPathMatcher();
+
+    private final ResponseCache responseCache;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter canonicalWriter;
+
+    public ResponseCacheFilter(ResponseCache responseCache, ObjectMapper objectMapper) {
+        this.responseCache = responseCache;
+        this.objectMapper = objectMapper;
+        this.canonicalWriter = objectMapper.writer().with(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS);
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        String routeId = route != null ? route.getId() : null;
+        ResponseCacheProperties.RouteCache config = responseCache.configFor(routeId);
+        if (config == null) {
+            return chain.filter(exchange);
+        }
+
+        ServerHttpRequest request = exchange.getRequest();
+        boolean graphql = !config.getGraphqlQueries().isEmpty();
+        if (!graphql && request.getMethod() == HttpMethod.GET) {
+            String key = restKey(request, config);
+            return key != null ? cacheable(exchange, chain, routeId, key, false) : chain.filter(exchange);
+        }
+        if (graphql && request.getMethod() == HttpMethod.POST) {
+            // Chưa qua auth: body không rõ độ dài (chunked) hoặc quá lớn thì chuyển thẳng, không cache
+            long length = request.getHeaders().getContentLength();
+            if (length <= 0 || length > config.getMaxRequestSize().toBytes()) {
+                return chain.filter(exchange);
+            }
+            return ServerWebExchangeUtils.cacheRequestBody(exchange, cachedRequest -> {
+                ServerWebExchange mutated = exchange.mutate().request(cachedRequest).build();
+                DataBuffer body = exchange.getAttribute(ServerWebExchangeUtils.CACHED_REQUEST_BODY_ATTR);
+                String key = body != null ? graphqlKey(body.toString(StandardCharsets.UTF_8), config) : null;
+                return key != null ? cacheable(mutated, chain, routeId, key, true) : chain.filter(mutated);
+            });
+        }
+        return chain.filter(exchange);
+    }
+
+    @Override
+    public int getOrder() {
+        // Decorator phải nằm trước NettyWriteResponseFilter (-1) thì mới thấy được body
+        return NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1;
+    }
+
+    private Mono<Void> cacheable(ServerWebExchange exchange, GatewayFilterChain chain,
+                                 String routeId, String key, boolean graphql) {
+        exchange.getAttributes().put(CACHE_KEY_ATTR, key);
+        exchange.getAttributes().put(CACHE_ROUTE_ATTR, routeId);
+        ServerHttpResponse capturing = new CapturingResponse(exchange, routeId, key, graphql);
+        return chain.filter(exchange.mutate().response(capturing).build());
+    }
+
+    private static String restKey(ServerHttpRequest request, ResponseCacheProperties.RouteCache config) {
+        String path = request.getURI().getRawPath();
+        if (!config.getPaths().isEmpty()
+                && config.getPaths().stream().noneMatch(pattern -> PATH_MATCHER.match(pattern, path))) {
+            return null;
+        }
+        // ?b=2&a=1 và ?a=1&b=2 là cùng một entry
+        MultiValueMap<String, String> params = request.getQueryParams();
+        if (params.isEmpty()) {
+            return "GET " + path;
+        }
+        StringBuilder key = new StringBuilder("GET ").append(path).append('?');
+        new TreeMap<>(params).forEach((name, values) -> values.forEach(value ->
+                key.append(name).append('=').append(value).append('&')));
+        return key.toString();
+    }
+
+    private String graphqlKey(String body, ResponseCacheProperties.RouteCache config) {
+        try {
+            JsonNode json = objectMapper.readTree(body);
+            String query = json.path("query").asText(null);
+            if (query == null) {
+                return null;
+            }
+            String normalized = query.replaceAll("\\s+", " ").trim();
+            List<String> rootFields = rootFields(normalized);
+            if (rootFields == null || rootFields.isEmpty() || !config.getGraphqlQueries().containsAll(rootFields)) {
+                return null;
+            }
+            Object variables = json.hasNonNull("variables")
+                    ? objectMapper.treeToValue(json.get("variables"), Map.class)
+                    : Map.of();
+            // Query + variables có thể dài, hash lại cho gọn key
+            return "GQL " + ResponseCache.hash(normalized + '|' + json.path("operationName").asText("")
+                    + '|' + canonicalWriter.writeValueAsString(variables));
+        } catch (Exception e) {
+            log.debug("Not caching GraphQL request: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Top level field names of the selection set, null if the document has anything
+     * that is not a plain query (mutation, subscription, fragments, directives).
+     */
+    static List<String> rootFields(String query) {
+        List<String> fields = new ArrayList<>();
+        int depth = 0;
+        int parens = 0;
+        int i = 0;
+        while (i < query.length()) {
+            char c = query.charAt(i);
+            if (c == '"') {
+                i = skipString(query, i);
+                continue;
+            }
+            if (c == '(') {
+                parens++;
+            } else if (c == ')') {
+                parens--;
+            } else if (parens == 0 && c == '{') {
+                depth++;
+            } else if (parens == 0 && c == '}') {
+                depth--;
+            } else if (parens == 0 && (c == '.' || c == '@')) {
+                return null;
+            } else if (parens == 0 && Character.isJavaIdentifierStart(c)) {
+                int start = i;
+                while (i < query.length() && Character.isJavaIdentifierPart(query.charAt(i))) {
+                    i++;
+                }
+                String name = query.substring(start, i);
+                if (depth == 0 && !name.equals("query")) {
+                    // Tên operation sau "query" thì bỏ qua, còn lại (mutation, fragment, ...) không cache
+                    boolean operationName = start > 0 && query.substring(0, start).trim().equals("query");
+                    if (!operationName) {
+                        return null;
+                    }
+                } else if (depth == 1) {
+                    int next = i;
+                    while (next < query.length() && query.charAt(next) == ' ') {
+                        next++;
+                    }
+                    // alias: field
+                    if (next >= query.length() || query.charAt(next) != ':') {
+                        fields.add(name);
+                    }
+                }
+                continue;
+            }
+            i++;
+        }
+        return fields;
+    }
+
+    private static int skipString(String query, int start) {
+        int i = start + 1;
+        while (i < query.length() && query.charAt(i) != '"') {
+            i += query.charAt(i) == '\\' ? 2 : 1;
+        }
+        return i + 1;
+    }
+
+    private final class CapturingResponse extends ServerHttpResponseDecorator {
+
+        private final ServerWebExchange exchange;
+        private final String routeId;
+        private final String key;
+        private final boolean graphql;
+
+        CapturingResponse(ServerWebExchange exchange, String routeId, String key, boolean graphql) {
+            super(exchange.getResponse());
+            this.exchange = exchange;
+            this.routeId = routeId;
+            this.key = key;
+            this.graphql = graphql;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            // CachedResponseFilter xoá key khi trả từ cache, lúc đó không cần lưu lại
+            if (!key.equals(exchange.getAttribute(CACHE_KEY_ATTR)) || !isStorable()) {
+                return super.writeWith(body);
+            }
+            return DataBufferUtils.join(body).flatMap(joined -> {
+                byte[] bytes = new byte[joined.readableByteCount()];
+                joined.read(bytes);
+                DataBufferUtils.release(joined);
+
+                if (graphql && hasErrors(bytes)) {
+                    return super.writeWith(Mono.just(bufferFactory().wrap(bytes)));
+                }
+                MediaType contentType = getHeaders().getContentType();
+                ResponseCache.Entry entry = responseCache.put(routeId, key, bytes,
+                        contentType != null ? contentType.toString() : null);
+                getHeaders().setETag(entry.getEtag());
+                // Miss nhưng client đã có đúng bản này (entry hết hạn rồi được tải lại y hệt)
+                if (CachedResponseFilter.matches(exchange.getRequest().getHeaders().getIfNoneMatch(), entry.getEtag())) {
+                    responseCache.recordNotModified(routeId);
+                    setStatusCode(HttpStatus.NOT_MODIFIED);
+                    getHeaders().remove(HttpHeaders.CONTENT_LENGTH);
+                    getHeaders().remove(HttpHeaders.TRANSFER_ENCODING);
+                    return super.setComplete();
+                }
+                return super.writeWith(Mono.just(bufferFactory().wrap(bytes)));
+            });
+        }
+
+        private boolean isStorable() {
+            HttpHeaders headers = getHeaders();
+            if (getStatusCode() == null || getStatusCode().value() != HttpStatus.OK.value()
+                    || headers.containsKey(HttpHeaders.SET_COOKIE)) {
+                return false;
+            }
+            String cacheControl = headers.getCacheControl();
+            return cacheControl == null
+                    || !(cacheControl.contains("no-store") || cacheControl.contains("private"));
+        }
+
+        private boolean hasErrors(byte[] bytes) {
+            try {
+                return objectMapper.readTree(bytes).has("errors");
+            } catch (Exception e) {
+                return true;
+            }
+        }
+    }
+}
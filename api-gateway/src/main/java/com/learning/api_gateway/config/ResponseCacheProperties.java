@@ -0,0 +1,33 @@
+package com.learning.api_gateway.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.response-cache")
+public class ResponseCacheProperties {
+    private boolean enabled = true;
+    // key = route id, route không có ở đây thì không cache
+    private Map<String, RouteCache> routes = new HashMap<>();
+
+    @Data
+    public static class RouteCache {
+        private Duration ttl = Duration.ofSeconds(30);
+        private DataSize maxSize = DataSize.ofMegabytes(16);
+        // GET: các path (Ant pattern, path gốc trước StripPrefix) được cache, rỗng = mọi GET của route
+        private List<String> paths = new ArrayList<>();
+        // POST /graphql: chỉ cache các query có root field nằm trong danh sách này
+        private List<String> graphqlQueries = new ArrayList<>();
+        // POST /graphql chỉ được đọc vào bộ nhớ (trước auth) khi có Content-Length không quá mức này
+        private DataSize maxRequestSize = DataSize.ofKilobytes(16);
+    }
+}
@@ -0,0 +1,45 @@
+package com.learning.api_gateway.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.shadow")
+public class ShadowProperties {
+    private boolean enabled = false;
+    // key = route id trong spring.cloud.gateway routes
+    private Map<String, Shadow> routes = new HashMap<>();
+    private Stub stub = new Stub();
+
+    @Data
+    public static class Shadow {
+        // Build mới của service, nhận bản sao request với cùng path/query như primary
+        private URI uri;
+        private double percent = 0;
+        // Chỉ method không có side effect; POST chỉ khi là GraphQL query đã được cache body
+        private List<String> methods = new ArrayList<>(List.of("GET", "HEAD"));
+        private Duration timeout = Duration.ofSeconds(5);
+        // Shadow chậm không được kéo theo bộ nhớ/kết nối của gateway
+        private int maxInFlight = 50;
+    }
+
+    /**
+     * Upstream giả để thử shadow trên máy local, trả status/độ trễ cố định cho mọi path.
+     */
+    @Data
+    public static class Stub {
+        private boolean enabled = false;
+        private int port = 9090;
+        private int status = 200;
+        private Duration delay = Duration.ZERO;
+    }
+}
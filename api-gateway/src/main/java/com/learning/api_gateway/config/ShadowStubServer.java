@@ -0,0 +1,52 @@
+package com.learning.api_gateway.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+/**
+ * Local shadow upstream for trying out mirroring without a second build of a service:
+ * answers every request with the configured status after the configured delay. Point a
+ * route's {@code app.shadow.routes.<id>.uri} at {@code http://localhost:<stub.port>}.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "app.shadow.stub", name = "enabled", havingValue = "true")
+public class ShadowStubServer implements SmartLifecycle {
+
+    private final ShadowProperties properties;
+    private volatile DisposableServer server;
+
+    public ShadowStubServer(ShadowProperties properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    public void start() {
+        ShadowProperties.Stub stub = properties.getStub();
+        server = HttpServer.create()
+                .port(stub.getPort())
+                .handle((request, response) -> request.receive().then()
+                        .then(Mono.delay(stub.getDelay()))
+                        .then(response.status(stub.getStatus()).sendString(Mono.just("{}")).then()))
+                .bindNow();
+        log.info("Shadow stub upstream listening on port {}", server.port());
+    }
+
+    @Override
+    public void stop() {
+        if (server != null) {
+            server.disposeNow();
+            server = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return server != null;
+    }
+}
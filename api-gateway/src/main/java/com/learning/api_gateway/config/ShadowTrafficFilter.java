@@ -0,0 +1,145 @@
+package com.learning.api_gateway.config;
+
+import com.learning.api_gateway.service.ShadowTraffic;
+import io.netty.buffer.Unpooled;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.RouteToRequestUrlFilter;
+import org.springframework.cloud.gateway.filter.headers.HttpHeadersFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.netty.http.client.HttpClient;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Traffic mirroring: a configurable percentage of a route's requests is also sent to a
+ * shadow upstream (e.g. a new build of the service). The shadow call is fire-and-forget,
+ * its response is discarded and never delays or changes the primary response; only its
+ * status and latency are compared with the primary in {@link ShadowTraffic}.
+ *
+ * <p>Only side-effect free requests are mirrored: the route's configured methods without
+ * body, and POSTs that ResponseCacheFilter recognised as GraphQL queries.
+ */
+@Slf4j
+@Component
+public class ShadowTrafficFilter implements GlobalFilter, Ordered {
+
+    public static final String SHADOW_HEADER = "X-Shadow-Request";
+
+    private final HttpClient httpClient;
+    private final ObjectProvider<List<HttpHeadersFilter>> headersFilters;
+    private final ShadowProperties properties;
+    private final ShadowTraffic shadowTraffic;
+
+    public ShadowTrafficFilter(HttpClient httpClient, ObjectProvider<List<HttpHeadersFilter>> headersFilters,
+                               ShadowProperties properties, ShadowTraffic shadowTraffic) {
+        this.httpClient = httpClient;
+        this.headersFilters = headersFilters;
+        this.properties = properties;
+        this.shadowTraffic = shadowTraffic;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        URI requestUrl = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR);
+        if (!properties.isEnabled() || route == null || requestUrl == null
+                || WebSocketRoutingFilter.isRealtime(exchange)) {
+            return chain.filter(exchange);
+        }
+        ShadowProperties.Shadow shadow = properties.getRoutes().get(route.getId());
+        if (shadow == null || shadow.getUri() == null
+                || ThreadLocalRandom.current().nextDouble(100) >= shadow.getPercent()) {
+            return chain.filter(exchange);
+        }
+        String body = mirrorableBody(exchange, shadow);
+        if (body == null) {
+            return chain.filter(exchange);
+        }
+        ShadowTraffic.Sample sample = shadowTraffic.start(route.getId(), shadow.getMaxInFlight());
+        if (sample == null) {
+            return chain.filter(exchange);
+        }
+
+        HttpMethod method = exchange.getRequest().getMethod();
+        HttpHeaders headers = HttpHeadersFilter.filterRequest(headersFilters.getIfAvailable(List::of), exchange);
+        headers.remove(HttpHeaders.HOST);
+        headers.set(SHADOW_HEADER, "true");
+        // Giữ path/query đã qua StripPrefix, chỉ đổi scheme + host + port sang shadow
+        URI shadowUrl = UriComponentsBuilder.fromUri(requestUrl)
+                .scheme(shadow.getUri().getScheme())
+                .host(shadow.getUri().getHost())
+                .port(shadow.getUri().getPort())
+                .build(true)
+                .toUri();
+
+        long start = System.nanoTime();
+        mirror(method, shadowUrl, headers, body, shadow)
+                .subscribe(status -> sample.shadow(status, System.nanoTime() - start));
+
+        return chain.filter(exchange)
+                .doFinally(signal -> {
+                    HttpStatusCode status = exchange.getResponse().getStatusCode();
+                    sample.primary(signal == SignalType.CANCEL ? null : status == null ? "200" : String.valueOf(status.value()),
+                            System.nanoTime() - start);
+                });
+    }
+
+    @Override
+    public int getOrder() {
+        // Sau khi request URL đã resolve (và WebSocketRoutingFilter), trước HedgingFilter/NettyRoutingFilter
+        return RouteToRequestUrlFilter.ROUTE_TO_URL_FILTER_ORDER + 180;
+    }
+
+    /**
+     * @return the body to send ("" without body), null if the request must not be mirrored
+     */
+    private static String mirrorableBody(ServerWebExchange exchange, ShadowProperties.Shadow shadow) {
+        HttpMethod method = exchange.getRequest().getMethod();
+        if (shadow.getMethods().contains(method.name()) && method != HttpMethod.POST) {
+            return "";
+        }
+        DataBuffer cachedBody = exchange.getAttribute(ServerWebExchangeUtils.CACHED_REQUEST_BODY_ATTR);
+        if (method == HttpMethod.POST && shadow.getMethods().contains("POST") && cachedBody != null
+                && exchange.getAttribute(ResponseCacheFilter.CACHE_KEY_ATTR) != null) {
+            return cachedBody.toString(StandardCharsets.UTF_8);
+        }
+        return null;
+    }
+
+    /**
+     * @return the shadow's status, "ERROR" or "TIMEOUT"; never errors
+     */
+    private Mono<String> mirror(HttpMethod method, URI url, HttpHeaders headers, String body,
+                                ShadowProperties.Shadow shadow) {
+        return httpClient
+                .headers(nettyHeaders -> headers.forEach(nettyHeaders::set))
+                .request(io.netty.handler.codec.http.HttpMethod.valueOf(method.name()))
+                .uri(url)
+                .send(body.isEmpty() ? Mono.empty() : Mono.just(Unpooled.wrappedBuffer(body.getBytes(StandardCharsets.UTF_8))))
+                // Đọc hết body rồi bỏ để connection quay lại pool
+                .responseSingle((response, content) -> content.then(Mono.just(String.valueOf(response.status().code()))))
+                .timeout(shadow.getTimeout())
+                .onErrorResume(e -> {
+                    log.debug("Shadow request {} {} failed: {}", method, url, e.toString());
+                    return Mono.just(e instanceof TimeoutException ? "TIMEOUT" : "ERROR");
+                });
+    }
+}
@@ -1,5 +1,8 @@
 package com.learning.api_gateway.config;
 import com.learning.api_gateway.repository.GatewayClient;
+import com.learning.api_gateway.service.UpstreamTiming;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.config.HttpClientCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.cors.CorsConfiguration;
@@ -8,16 +11,23 @@ import org.springframework.web.cors.reactive.UrlBasedCorsConfigurationSource;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.support.WebClientAdapter;
 import org.springframework.web.service.invoker.HttpServiceProxyFactory;
+import reactor.core.publisher.Mono;
+import reactor.netty.Connection;
 
 import java.util.List;
 
 @Configuration
 public class WebClientConfiguration {
+    // /users/introspect/batch chỉ nhận request mang internal key này (xem SecurityConfig của user-service),
+    // không có key thì IntrospectionBatcher tắt batch
     @Bean
-    WebClient webClient(){
-        return WebClient.builder()
-                .baseUrl("http://localhost:8081/user-service")
-                .build();
+    WebClient webClient(@Value("${app.introspection-batch.internal-key:}") String internalKey){
+        WebClient.Builder builder = WebClient.builder()
+                .baseUrl("http://localhost:8081/user-service");
+        if (!internalKey.isBlank()) {
+            builder.defaultHeader("X-Internal-Key", internalKey);
+        }
+        return builder.build();
     }
 
     @Bean
@@ -41,4 +51,29 @@ public class WebClientConfiguration {
         return httpServiceProxyFactory.createClient(GatewayClient.class);
     }
 
-}
\ No newline at end of file
+    // Đánh dấu thời điểm connect/response của HttpClient dùng để route, xem LatencyTelemetryFilter
+    @Bean
+    HttpClientCustomizer upstreamTimingCustomizer() {
+        return httpClient -> httpClient
+                .mapConnect(connect -> Mono.<Connection>deferContextual(context -> {
+                    UpstreamTiming timing = context.getOrDefault(UpstreamTiming.CONTEXT_KEY, null);
+                    if (timing != null) {
+                        timing.connectStarted();
+                    }
+                    return connect.cast(Connection.class);
+                }))
+                .doOnRequest((request, connection) -> {
+                    UpstreamTiming timing = request.currentContextView().getOrDefault(UpstreamTiming.CONTEXT_KEY, null);
+                    if (timing != null) {
+                        timing.connected();
+                    }
+                })
+                .doOnResponse((response, connection) -> {
+                    UpstreamTiming timing = response.currentContextView().getOrDefault(UpstreamTiming.CONTEXT_KEY, null);
+                    if (timing != null) {
+                        timing.responded();
+                    }
+                });
+    }
+
+}
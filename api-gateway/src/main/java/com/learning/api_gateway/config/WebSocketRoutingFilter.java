@@ -0,0 +1,87 @@
+package com.learning.api_gateway.config;
+
+import com.learning.api_gateway.service.WebSocketSessionBalancer;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.RouteToRequestUrlFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.util.Set;
+
+/**
+ * Picks the backend instance of the realtime (STOMP over SockJS) routes: sticky for the
+ * whole SockJS session, least live sessions for a new one. SockJS URLs look like
+ * {@code <endpoint>/<server-id>/<session-id>/<transport>}.
+ */
+@Component
+public class WebSocketRoutingFilter implements GlobalFilter, Ordered {
+
+    // Route có metadata realtime: true giữ kết nối lâu, không đo như request thường
+    public static final String REALTIME_METADATA = "realtime";
+
+    private static final Set<String> SOCKJS_TRANSPORTS = Set.of("websocket", "xhr", "xhr_send", "xhr_streaming",
+            "eventsource", "htmlfile", "jsonp", "jsonp_send");
+
+    private final WebSocketRoutingProperties properties;
+    private final WebSocketSessionBalancer balancer;
+
+    public WebSocketRoutingFilter(WebSocketRoutingProperties properties, WebSocketSessionBalancer balancer) {
+        this.properties = properties;
+        this.balancer = balancer;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        URI requestUrl = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR);
+        if (!properties.isEnabled() || route == null || requestUrl == null || !balancer.handles(route.getId())) {
+            return chain.filter(exchange);
+        }
+
+        String[] segments = requestUrl.getRawPath().split("/");
+        String transport = segments.length > 0 ? segments[segments.length - 1] : "";
+        String sessionId = SOCKJS_TRANSPORTS.contains(transport) && segments.length >= 4
+                ? segments[segments.length - 2]
+                : null;
+        boolean webSocket = "websocket".equals(transport)
+                || "websocket".equalsIgnoreCase(exchange.getRequest().getHeaders().getUpgrade());
+
+        WebSocketSessionBalancer.Session session = balancer.acquire(route.getId(), sessionId, webSocket);
+        URI instance = session.getInstance();
+        URI target = UriComponentsBuilder.fromUri(requestUrl)
+                .scheme(instance.getScheme())
+                .host(instance.getHost())
+                .port(instance.getPort())
+                .build(true)
+                .toUri();
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR, target);
+
+        return chain.filter(exchange).doFinally(signal -> balancer.release(session));
+    }
+
+    @Override
+    public int getOrder() {
+        // Sau RouteToRequestUrlFilter (10000), trước WebsocketRoutingFilter/NettyRoutingFilter
+        return RouteToRequestUrlFilter.ROUTE_TO_URL_FILTER_ORDER + 100;
+    }
+
+    /**
+     * WebSocket upgrades and routes marked realtime (SockJS streaming/polling) hold the
+     * connection for the whole session: they must not count as in-flight requests, feed
+     * latency based breakers or get a deadline.
+     */
+    static boolean isRealtime(ServerWebExchange exchange) {
+        if ("websocket".equalsIgnoreCase(exchange.getRequest().getHeaders().getUpgrade())) {
+            return true;
+        }
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        return route != null && Boolean.parseBoolean(String.valueOf(route.getMetadata().get(REALTIME_METADATA)));
+    }
+}
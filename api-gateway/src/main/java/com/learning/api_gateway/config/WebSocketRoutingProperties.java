@@ -0,0 +1,23 @@
+package com.learning.api_gateway.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.websocket-routing")
+public class WebSocketRoutingProperties {
+    private boolean enabled = true;
+    // Session SockJS qua xhr không có request nào trong khoảng này coi như đã đóng
+    // (SockJS server tự đóng sau disconnect-delay 5s)
+    private Duration sessionIdleTimeout = Duration.ofSeconds(30);
+    // key = route id trong spring.cloud.gateway routes, value = các instance của backend
+    private Map<String, List<URI>> routes = new HashMap<>();
+}
@@ -0,0 +1,60 @@
+package com.learning.api_gateway.controller;
+
+import com.learning.api_gateway.dto.ApiResponse;
+import com.learning.api_gateway.dto.CoursePageResponse;
+import com.learning.api_gateway.service.CoursePageService;
+import com.learning.api_gateway.service.GatewayService;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+/**
+ * Aggregation endpoints served by the gateway itself. These are not routes, so the
+ * global filters do not run: the token is checked here before fanning out, and the
+ * Authorization header is forwarded so every backend still authorizes its own part.
+ */
+@RestController
+@RequestMapping("${app.api-prefix:/api}/bff")
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class BffController {
+
+    GatewayService gatewayService;
+    CoursePageService coursePageService;
+
+    @GetMapping("/course-page/{courseId}")
+    public Mono<ResponseEntity<ApiResponse<CoursePageResponse>>> getCoursePage(
+            @PathVariable Long courseId,
+            @RequestParam Long userId,
+            @RequestParam(required = false) String contentId,
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+
+        if (authorization == null || !authorization.startsWith("Bearer ")) {
+            return Mono.just(unauthenticated());
+        }
+        return gatewayService.introspect(authorization.substring(7))
+                .filter(response -> response.getResult() != null && response.getResult().isValid())
+                .flatMap(valid -> coursePageService.load(authorization, courseId, userId, contentId))
+                .map(page -> ResponseEntity.ok(ApiResponse.<CoursePageResponse>builder()
+                        .result(page)
+                        .build()))
+                .defaultIfEmpty(unauthenticated());
+    }
+
+    private static ResponseEntity<ApiResponse<CoursePageResponse>> unauthenticated() {
+        return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(ApiResponse.<CoursePageResponse>builder()
+                .code(1401)
+                .message("Unauthenticated")
+                .build());
+    }
+}
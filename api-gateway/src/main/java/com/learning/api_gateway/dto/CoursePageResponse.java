@@ -0,0 +1,31 @@
+package com.learning.api_gateway.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.FieldDefaults;
+
+import java.util.Map;
+
+/**
+ * Everything the course player needs in one payload. Each part is the backend's own
+ * body, null when that leg failed or timed out; the reason is in {@code errors}.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CoursePageResponse {
+    JsonNode course;
+    JsonNode contents;
+    JsonNode enrollment;
+    JsonNode progress;
+    JsonNode qa;
+    Map<String, String> errors;
+}
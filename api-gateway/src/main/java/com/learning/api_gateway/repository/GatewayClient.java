@@ -1,6 +1,8 @@
 package com.learning.api_gateway.repository;
 
 import com.learning.api_gateway.dto.ApiResponse;
+import com.learning.api_gateway.dto.IntrospectBatchRequest;
+import com.learning.api_gateway.dto.IntrospectBatchResponse;
 import com.learning.api_gateway.dto.IntrospectRequest;
 import com.learning.api_gateway.dto.IntrospectResponse;
 import org.springframework.http.MediaType;
@@ -11,4 +13,7 @@ import reactor.core.publisher.Mono;
 public interface GatewayClient {
     @PostExchange(url = "/users/introspect", contentType = MediaType.APPLICATION_JSON_VALUE)
     Mono<ApiResponse<IntrospectResponse>> introspect(@RequestBody IntrospectRequest request);
+
+    @PostExchange(url = "/users/introspect/batch", contentType = MediaType.APPLICATION_JSON_VALUE)
+    Mono<ApiResponse<IntrospectBatchResponse>> introspectBatch(@RequestBody IntrospectBatchRequest request);
 }
@@ -0,0 +1,105 @@
+package com.learning.api_gateway.service;
+
+import com.learning.api_gateway.config.ConcurrencyLimitProperties;
+import com.learning.api_gateway.config.ConcurrencyLimitProperties.Priority;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Service;
+import org.springframework.util.AntPathMatcher;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One {@link GradientLimit} per route plus a gateway-wide in-flight ceiling. A request
+ * only gets the share of each limit its priority allows, so as a route (or the whole
+ * gateway) fills up LOW requests are rejected first, NORMAL next, HIGH last.
+ */
+@Service
+public class AdaptiveConcurrencyLimiter {
+
+    private static final AntPathMatcher PATH_MATCHER = new AntPathMatcher();
+
+    private final ConcurrencyLimitProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final AtomicInteger globalInFlight = new AtomicInteger();
+    private final Map<String, GradientLimit> limits = new ConcurrentHashMap<>();
+    private final Map<String, Counter> dropped = new ConcurrentHashMap<>();
+
+    public AdaptiveConcurrencyLimiter(ConcurrencyLimitProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("gateway.concurrency.inflight", globalInFlight, AtomicInteger::get)
+                .description("Requests in flight through the gateway")
+                .tag("route", "all")
+                .register(meterRegistry);
+    }
+
+    public Priority priorityOf(String routeId, String method, String path) {
+        ConcurrencyLimitProperties.Limit config = properties.limitFor(routeId);
+        for (ConcurrencyLimitProperties.PriorityRule rule : config.getPriorities()) {
+            if ((rule.getMethod() == null || rule.getMethod().equalsIgnoreCase(method))
+                    && PATH_MATCHER.match(rule.getPath(), path)) {
+                return rule.getPriority();
+            }
+        }
+        return config.getPriority();
+    }
+
+    public boolean tryAcquire(String routeId, Priority priority) {
+        double share = properties.shareOf(priority);
+        int globalAllowed = Math.max(1, (int) (properties.getGlobalLimit() * share));
+        while (true) {
+            int current = globalInFlight.get();
+            if (current >= globalAllowed) {
+                return drop(routeId, priority);
+            }
+            if (globalInFlight.compareAndSet(current, current + 1)) {
+                break;
+            }
+        }
+
+        if (!limitOf(routeId).tryAcquire(share)) {
+            globalInFlight.decrementAndGet();
+            return drop(routeId, priority);
+        }
+        return true;
+    }
+
+    public void release(String routeId, long rttNanos, boolean dropped) {
+        globalInFlight.decrementAndGet();
+        limitOf(routeId).release(rttNanos, dropped);
+    }
+
+    public void release(String routeId) {
+        globalInFlight.decrementAndGet();
+        limitOf(routeId).release();
+    }
+
+    private GradientLimit limitOf(String routeId) {
+        return limits.computeIfAbsent(routeId, id -> {
+            GradientLimit limit = new GradientLimit(properties.limitFor(id));
+            Gauge.builder("gateway.concurrency.limit", limit, GradientLimit::getLimit)
+                    .description("Current adaptive concurrency limit of the route")
+                    .tag("route", id)
+                    .register(meterRegistry);
+            Gauge.builder("gateway.concurrency.inflight", limit, GradientLimit::getInFlight)
+                    .description("Requests in flight through the gateway")
+                    .tag("route", id)
+                    .register(meterRegistry);
+            return limit;
+        });
+    }
+
+    private boolean drop(String routeId, Priority priority) {
+        dropped.computeIfAbsent(routeId + '|' + priority, key -> Counter.builder("gateway.concurrency.dropped")
+                        .description("Requests shed with 503 by the adaptive concurrency limiter")
+                        .tag("route", routeId)
+                        .tag("priority", priority.name())
+                        .register(meterRegistry))
+                .increment();
+        return false;
+    }
+}
@@ -0,0 +1,142 @@
+package com.learning.api_gateway.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.learning.api_gateway.config.BffProperties;
+import com.learning.api_gateway.config.DeadlineProperties;
+import com.learning.api_gateway.dto.CoursePageResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Backend for the course player page. Course, contents, enrollment status and Q&A are
+ * fetched concurrently; progress details need the enrollment id so they chain after the
+ * enrollment check. Each leg has its own timeout and a failed leg only leaves its part
+ * empty, the page still renders with the rest.
+ */
+@Slf4j
+@Service
+public class CoursePageService {
+
+    private static final String COURSE_QUERY = """
+            query($id: ID!) {
+              getCourseById(id: $id) {
+                id title description price thumbnailUrl category createdAt
+                instructor { id username fullName }
+              }
+            }""";
+
+    private final WebClient webClient;
+    private final BffProperties properties;
+    private final DeadlineProperties deadlineProperties;
+    private final MeterRegistry meterRegistry;
+
+    public CoursePageService(WebClient.Builder webClientBuilder, BffProperties properties,
+                             DeadlineProperties deadlineProperties, MeterRegistry meterRegistry) {
+        this.webClient = webClientBuilder.build();
+        this.properties = properties;
+        this.deadlineProperties = deadlineProperties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public Mono<CoursePageResponse> load(String authorization, Long courseId, Long userId, String contentId) {
+        Map<String, String> errors = new ConcurrentHashMap<>();
+
+        Mono<Optional<JsonNode>> course = leg("course", fetchCourse(authorization, courseId), errors);
+        Mono<Optional<JsonNode>> contents = leg("contents",
+                get("contents", authorization, properties.getContentServiceUrl() + "/contents/course/{courseId}", courseId), errors);
+        Mono<Optional<JsonNode>> enrollment = leg("enrollment",
+                get("enrollment", authorization, properties.getEnrollmentServiceUrl() + "/enrolls/check?userId={userId}&courseId={courseId}",
+                        userId, courseId), errors)
+                .cache();
+        Mono<Optional<JsonNode>> progress = enrollment.flatMap(status -> status
+                .map(node -> node.path("enrollmentId").asText(""))
+                .filter(enrollmentId -> !enrollmentId.isEmpty())
+                .map(enrollmentId -> leg("progress",
+                        get("progress", authorization, properties.getEnrollmentServiceUrl() + "/enrolls/{enrollmentId}/progress-details",
+                                enrollmentId), errors))
+                .orElse(Mono.just(Optional.empty())));
+        Mono<Optional<JsonNode>> qa = contentId == null
+                ? Mono.just(Optional.empty())
+                : leg("qa", get("qa", authorization,
+                        properties.getEnrollmentServiceUrl() + "/enrolls/courses/{courseId}/contents/{contentId}/qa?userId={userId}",
+                        courseId, contentId, userId), errors);
+
+        return Mono.zip(course, contents, enrollment, progress, qa)
+                .map(parts -> CoursePageResponse.builder()
+                        .course(parts.getT1().orElse(null))
+                        .contents(parts.getT2().orElse(null))
+                        .enrollment(parts.getT3().orElse(null))
+                        .progress(parts.getT4().orElse(null))
+                        .qa(parts.getT5().orElse(null))
+                        .errors(errors.isEmpty() ? null : errors)
+                        .build());
+    }
+
+    private Mono<JsonNode> fetchCourse(String authorization, Long courseId) {
+        return webClient.post()
+                .uri(properties.getCourseServiceUrl() + "/graphql")
+                .header(HttpHeaders.AUTHORIZATION, authorization)
+                .header(deadlineProperties.getHeader(), deadline("course"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(Map.of("query", COURSE_QUERY, "variables", Map.of("id", courseId)))
+                .retrieve()
+                .bodyToMono(JsonNode.class)
+                .flatMap(body -> body.hasNonNull("errors")
+                        ? Mono.error(new IllegalStateException(body.path("errors").path(0).path("message").asText("GraphQL error")))
+                        : Mono.justOrEmpty(body.path("data").get("getCourseById")));
+    }
+
+    private Mono<JsonNode> get(String leg, String authorization, String uri, Object... uriVariables) {
+        return webClient.get()
+                .uri(uri, uriVariables)
+                .header(HttpHeaders.AUTHORIZATION, authorization)
+                .header(deadlineProperties.getHeader(), deadline(leg))
+                .retrieve()
+                .bodyToMono(JsonNode.class);
+    }
+
+    // Service phía sau bỏ việc khi leg đã timeout ở đây
+    private String deadline(String leg) {
+        return Long.toString(System.currentTimeMillis() + properties.timeoutFor(leg).toMillis());
+    }
+
+    /**
+     * Never errors and never completes empty, so one slow or broken backend cannot
+     * cancel the zip of the other legs.
+     */
+    private Mono<Optional<JsonNode>> leg(String name, Mono<JsonNode> call, Map<String, String> errors) {
+        return Mono.defer(() -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            return call.timeout(properties.timeoutFor(name))
+                    .map(Optional::of)
+                    .defaultIfEmpty(Optional.empty())
+                    .doOnNext(result -> sample.stop(legTimer(name, "success")))
+                    .onErrorResume(throwable -> {
+                        String outcome = throwable instanceof TimeoutException ? "timeout" : "error";
+                        sample.stop(legTimer(name, outcome));
+                        log.warn("Course page leg {} failed ({}): {}", name, outcome, throwable.getMessage());
+                        errors.put(name, outcome);
+                        return Mono.just(Optional.empty());
+                    });
+        });
+    }
+
+    private Timer legTimer(String leg, String outcome) {
+        return Timer.builder("gateway.bff.leg")
+                .description("Latency of one backend call of the course page aggregation")
+                .tag("leg", leg)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
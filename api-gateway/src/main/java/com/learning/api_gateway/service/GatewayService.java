@@ -14,12 +14,37 @@ import reactor.core.publisher.Mono;
 @RequiredArgsConstructor
 @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
 public class GatewayService {
+    private static final Mono<ApiResponse<IntrospectResponse>> VALID = Mono.just(introspectResult(true));
+    private static final Mono<ApiResponse<IntrospectResponse>> INVALID = Mono.just(introspectResult(false));
+
     private GatewayClient gatewayClient;
+    private LocalTokenVerifier localTokenVerifier;
+    private IntrospectionCache introspectionCache;
+    private IntrospectionSingleFlight introspectionSingleFlight;
+    private IntrospectionBatcher introspectionBatcher;
 
     public Mono<ApiResponse<IntrospectResponse>> introspect(String token){
+        return switch (localTokenVerifier.verify(token)) {
+            case VALID -> VALID;
+            case INVALID -> INVALID;
+            case UNDECIDED -> introspectionCache.get(token,
+                    uncached -> introspectionSingleFlight.execute(uncached, this::introspectRemote));
+        };
+    }
+
+    public Mono<ApiResponse<IntrospectResponse>> introspectRemote(String token){
+        if (introspectionBatcher.isEnabled()) {
+            return introspectionBatcher.submit(token);
+        }
         return gatewayClient.introspect(IntrospectRequest.builder()
                 .token(token)
                 .build());
     }
 
+    private static ApiResponse<IntrospectResponse> introspectResult(boolean valid) {
+        return ApiResponse.<IntrospectResponse>builder()
+                .result(IntrospectResponse.builder().valid(valid).build())
+                .build();
+    }
+
 }
@@ -0,0 +1,95 @@
+package com.learning.api_gateway.service;
+
+import com.learning.api_gateway.config.ConcurrencyLimitProperties;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrency limit of one route, adjusted from observed round trip times the way a
+ * TCP Vegas / gradient limiter does: while the recent RTT stays close to the no-load
+ * RTT (the minimum seen) the limit grows by about sqrt(limit), once requests start
+ * queueing in the backend (RTT rises) the limit shrinks proportionally. Drops (5xx from
+ * overload, timeouts) cut it by 10%. The no-load RTT is re-measured every
+ * {@code probe-interval} samples so it can follow a backend that got slower for good.
+ */
+public class GradientLimit {
+
+    private static final double SHORT_ALPHA = 2.0 / (10 + 1);
+    private static final double BACKOFF_RATIO = 0.9;
+
+    private final ConcurrencyLimitProperties.Limit config;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private volatile double limit;
+    // Chỉ đọc/ghi trong synchronized onSample
+    private double shortRtt;
+    private double noLoadRtt;
+    private int samplesSinceProbe;
+
+    public GradientLimit(ConcurrencyLimitProperties.Limit config) {
+        this.config = config;
+        this.limit = config.getInitialLimit();
+    }
+
+    /**
+     * @param share fraction of the limit this request's priority may use
+     */
+    public boolean tryAcquire(double share) {
+        int allowed = Math.max(1, (int) (limit * share));
+        while (true) {
+            int current = inFlight.get();
+            if (current >= allowed) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    public void release(long rttNanos, boolean dropped) {
+        int inFlightAtEnd = inFlight.getAndDecrement();
+        onSample(rttNanos, inFlightAtEnd, dropped);
+    }
+
+    /**
+     * Releases without feeding the limit, e.g. when the client went away.
+     */
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    private synchronized void onSample(long rttNanos, int inFlightAtEnd, boolean dropped) {
+        double current = limit;
+        if (dropped) {
+            limit = Math.max(config.getMinLimit(), current * BACKOFF_RATIO);
+            return;
+        }
+
+        shortRtt = shortRtt == 0 ? rttNanos : shortRtt + SHORT_ALPHA * (rttNanos - shortRtt);
+        if (++samplesSinceProbe >= config.getProbeInterval()) {
+            samplesSinceProbe = 0;
+            noLoadRtt = rttNanos;
+        } else if (noLoadRtt == 0 || rttNanos < noLoadRtt) {
+            noLoadRtt = rttNanos;
+        }
+
+        // Không dùng hết limit thì RTT không nói gì về việc limit có quá nhỏ hay không
+        if (inFlightAtEnd < current / 2) {
+            return;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, config.getRttTolerance() * noLoadRtt / shortRtt));
+        double newLimit = current * gradient + Math.sqrt(current);
+        newLimit = current * (1 - config.getSmoothing()) + newLimit * config.getSmoothing();
+        limit = Math.max(config.getMinLimit(), Math.min(config.getMaxLimit(), newLimit));
+    }
+
+    public double getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
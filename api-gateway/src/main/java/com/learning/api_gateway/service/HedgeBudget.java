@@ -0,0 +1,38 @@
+package com.learning.api_gateway.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caps hedged requests at {@code percent} of the route's traffic: every request deposits
+ * {@code percent} credits, a hedge costs 100. The balance is capped so a quiet period
+ * cannot save up for a burst of hedges.
+ */
+public class HedgeBudget {
+
+    private static final long HEDGE_COST = 100;
+
+    private final long deposit;
+    private final long maxBalance;
+    private final AtomicLong balance = new AtomicLong();
+
+    public HedgeBudget(double percent) {
+        this.deposit = Math.max(0, Math.round(percent));
+        this.maxBalance = HEDGE_COST * 10;
+    }
+
+    public void onRequest() {
+        balance.accumulateAndGet(deposit, (current, add) -> Math.min(maxBalance, current + add));
+    }
+
+    public boolean tryAcquire() {
+        while (true) {
+            long current = balance.get();
+            if (current < HEDGE_COST) {
+                return false;
+            }
+            if (balance.compareAndSet(current, current - HEDGE_COST)) {
+                return true;
+            }
+        }
+    }
+}
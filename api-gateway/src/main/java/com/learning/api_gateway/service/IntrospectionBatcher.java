@@ -0,0 +1,134 @@
+package com.learning.api_gateway.service;
+
+import com.learning.api_gateway.dto.ApiResponse;
+import com.learning.api_gateway.dto.IntrospectBatchRequest;
+import com.learning.api_gateway.dto.IntrospectResponse;
+import com.learning.api_gateway.repository.GatewayClient;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Accumulates distinct tokens for up to {@code linger} (or until {@code max-size} tokens
+ * are pending) and verifies them with one call to user-service /users/introspect/batch.
+ */
+@Slf4j
+@Service
+public class IntrospectionBatcher {
+
+    private static final class Batch {
+        final Map<String, Sinks.One<ApiResponse<IntrospectResponse>>> tokens = new LinkedHashMap<>();
+    }
+
+    private final GatewayClient gatewayClient;
+    private final boolean enabled;
+    private final int maxSize;
+    private final Duration linger;
+    private final Timer latency;
+    private final DistributionSummary batchSize;
+
+    private final Object lock = new Object();
+    private Batch current = new Batch();
+
+    public IntrospectionBatcher(GatewayClient gatewayClient,
+                                @Value("${app.introspection-batch.enabled:true}") boolean enabled,
+                                @Value("${app.introspection-batch.internal-key:}") String internalKey,
+                                @Value("${app.introspection-batch.max-size:64}") int maxSize,
+                                @Value("${app.introspection-batch.linger:5ms}") Duration linger,
+                                @Value("${app.introspection-batch.histogram:false}") boolean histogram,
+                                MeterRegistry meterRegistry) {
+        this.gatewayClient = gatewayClient;
+        // user-service từ chối /users/introspect/batch khi thiếu key: dùng introspect từng token thay vì batch lỗi
+        if (enabled && (internalKey == null || internalKey.isBlank())) {
+            log.warn("app.introspection-batch.internal-key (INTERNAL_API_KEY) is not set, batch introspection is disabled");
+        }
+        this.enabled = enabled && internalKey != null && !internalKey.isBlank();
+        this.maxSize = maxSize;
+        this.linger = linger;
+        this.latency = Timer.builder("gateway.introspection.batch.latency")
+                .description("Round trip of one batch introspection call")
+                .publishPercentileHistogram(histogram)
+                .register(meterRegistry);
+        this.batchSize = DistributionSummary.builder("gateway.introspection.batch.size")
+                .description("Distinct tokens per batch introspection call")
+                .publishPercentileHistogram(histogram)
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Mono<ApiResponse<IntrospectResponse>> submit(String token) {
+        return Mono.defer(() -> {
+            Sinks.One<ApiResponse<IntrospectResponse>> sink;
+            Batch batch;
+            boolean first;
+            boolean full;
+            synchronized (lock) {
+                batch = current;
+                first = batch.tokens.isEmpty();
+                sink = batch.tokens.computeIfAbsent(token, key -> Sinks.one());
+                full = batch.tokens.size() >= maxSize;
+                if (full) {
+                    current = new Batch();
+                }
+            }
+
+            if (full) {
+                send(batch);
+            } else if (first) {
+                Schedulers.parallel().schedule(() -> flush(batch), linger.toNanos(), TimeUnit.NANOSECONDS);
+            }
+            return sink.asMono();
+        });
+    }
+
+    private void flush(Batch batch) {
+        synchronized (lock) {
+            // Already sent because it filled up
+            if (current != batch) {
+                return;
+            }
+            current = new Batch();
+        }
+        send(batch);
+    }
+
+    private void send(Batch batch) {
+        List<String> tokens = new ArrayList<>(batch.tokens.keySet());
+        batchSize.record(tokens.size());
+        long start = System.nanoTime();
+
+        gatewayClient.introspectBatch(IntrospectBatchRequest.builder().tokens(tokens).build())
+                .doFinally(signal -> latency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS))
+                .subscribe(response -> {
+                    List<IntrospectResponse> results = response.getResult() != null ? response.getResult().getResults() : null;
+                    for (int i = 0; i < tokens.size(); i++) {
+                        IntrospectResponse result = results != null && i < results.size()
+                                ? results.get(i)
+                                : IntrospectResponse.builder().valid(false).build();
+                        batch.tokens.get(tokens.get(i)).tryEmitValue(ApiResponse.<IntrospectResponse>builder()
+                                .code(response.getCode())
+                                .result(result)
+                                .build());
+                    }
+                }, throwable -> {
+                    log.error("Batch introspection of {} tokens failed: {}", tokens.size(), throwable.getMessage());
+                    batch.tokens.values().forEach(sink -> sink.tryEmitError(throwable));
+                }, () -> batch.tokens.values().forEach(Sinks.One::tryEmitEmpty));
+    }
+}
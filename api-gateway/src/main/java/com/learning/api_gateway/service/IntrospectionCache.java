@@ -0,0 +1,116 @@
+package com.learning.api_gateway.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.learning.api_gateway.dto.ApiResponse;
+import com.learning.api_gateway.dto.IntrospectResponse;
+import com.nimbusds.jwt.JWTParser;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Date;
+import java.util.function.Function;
+
+/**
+ * Caches remote introspection results keyed by a SHA-256 of the bearer token.
+ * A positive result lives until the token's own exp (capped by max-ttl), a negative
+ * one only for negative-ttl. Hit/miss/eviction counters are published as the
+ * "gateway.introspection" cache on the actuator metrics endpoint.
+ */
+@Service
+public class IntrospectionCache {
+
+    private record CachedIntrospection(ApiResponse<IntrospectResponse> response, long ttlNanos) {
+    }
+
+    private final Cache<String, CachedIntrospection> cache;
+    private final boolean enabled;
+    private final Duration maxTtl;
+    private final Duration negativeTtl;
+
+    public IntrospectionCache(@Value("${app.introspection-cache.enabled:true}") boolean enabled,
+                              @Value("${app.introspection-cache.max-size:10000}") long maxSize,
+                              @Value("${app.introspection-cache.max-ttl:5m}") Duration maxTtl,
+                              @Value("${app.introspection-cache.negative-ttl:5s}") Duration negativeTtl,
+                              MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.maxTtl = maxTtl;
+        this.negativeTtl = negativeTtl;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<String, CachedIntrospection>() {
+                    @Override
+                    public long expireAfterCreate(String key, CachedIntrospection value, long currentTime) {
+                        return value.ttlNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, CachedIntrospection value, long currentTime, long currentDuration) {
+                        return value.ttlNanos();
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, CachedIntrospection value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "gateway.introspection");
+    }
+
+    public Mono<ApiResponse<IntrospectResponse>> get(String token,
+                                                     Function<String, Mono<ApiResponse<IntrospectResponse>>> loader) {
+        if (!enabled) {
+            return loader.apply(token);
+        }
+
+        String key = hash(token);
+        CachedIntrospection cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return Mono.just(cached.response());
+        }
+
+        return loader.apply(token).doOnNext(response -> {
+            if (response.getResult() == null) {
+                return;
+            }
+            long ttlNanos = response.getResult().isValid() ? positiveTtl(token) : negativeTtl.toNanos();
+            if (ttlNanos > 0) {
+                cache.put(key, new CachedIntrospection(response, ttlNanos));
+            }
+        });
+    }
+
+    private long positiveTtl(String token) {
+        try {
+            Date expiryTime = JWTParser.parse(token).getJWTClaimsSet().getExpirationTime();
+            if (expiryTime == null) {
+                return 0;
+            }
+            long untilExpiry = Duration.ofMillis(expiryTime.getTime() - System.currentTimeMillis()).toNanos();
+            return Math.min(untilExpiry, maxTtl.toNanos());
+        } catch (ParseException e) {
+            return 0;
+        }
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
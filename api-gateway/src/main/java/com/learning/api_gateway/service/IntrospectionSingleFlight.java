@@ -0,0 +1,61 @@
+package com.learning.api_gateway.service;
+
+import com.learning.api_gateway.dto.ApiResponse;
+import com.learning.api_gateway.dto.IntrospectResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * Shares one in-flight introspection call among all concurrent callers with the same
+ * token, so a page load that fires 20 parallel requests costs a single call to user-service.
+ * "gateway.introspection.coalescing.ratio" is the share of callers that joined an
+ * existing call instead of starting their own.
+ */
+@Service
+public class IntrospectionSingleFlight {
+
+    private final ConcurrentMap<String, Mono<ApiResponse<IntrospectResponse>>> inFlight = new ConcurrentHashMap<>();
+    private final Counter requests;
+    private final Counter coalesced;
+
+    public IntrospectionSingleFlight(MeterRegistry meterRegistry) {
+        this.requests = Counter.builder("gateway.introspection.requests")
+                .description("Introspection calls that missed the cache")
+                .register(meterRegistry);
+        this.coalesced = Counter.builder("gateway.introspection.coalesced")
+                .description("Introspection calls served by an already in-flight call")
+                .register(meterRegistry);
+        Gauge.builder("gateway.introspection.coalescing.ratio", this, IntrospectionSingleFlight::coalescingRatio)
+                .register(meterRegistry);
+    }
+
+    public Mono<ApiResponse<IntrospectResponse>> execute(String token,
+                                                         Function<String, Mono<ApiResponse<IntrospectResponse>>> call) {
+        return Mono.defer(() -> {
+            requests.increment();
+            boolean[] started = {false};
+            Mono<ApiResponse<IntrospectResponse>> shared = inFlight.computeIfAbsent(token, key -> {
+                started[0] = true;
+                return call.apply(key)
+                        .doFinally(signal -> inFlight.remove(key))
+                        .cache();
+            });
+            if (!started[0]) {
+                coalesced.increment();
+            }
+            return shared;
+        });
+    }
+
+    private double coalescingRatio() {
+        double total = requests.count();
+        return total == 0 ? 0 : coalesced.count() / total;
+    }
+}
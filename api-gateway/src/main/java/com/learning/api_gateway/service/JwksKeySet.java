@@ -0,0 +1,141 @@
+package com.learning.api_gateway.service;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.crypto.ECDSAVerifier;
+import com.nimbusds.jose.crypto.RSASSAVerifier;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.net.URI;
+import java.net.URL;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * user-service's published signing keys, loaded from its JWKS endpoint on a background
+ * thread and refreshed every jwks-refresh-interval, so {@link LocalTokenVerifier} never
+ * blocks on the network. A verifier is built once per key. An unknown kid triggers an
+ * early refresh (at most once per MIN_REFRESH_GAP); until then the token is left to
+ * remote introspection.
+ *
+ * <p>Deliberately copied rather than shared (each service builds on its own): enrollment, course,
+ * content and notification hold identical copies; this one adds per-kid verifiers and an optional
+ * jwks-uri for LocalTokenVerifier. Keep the refresh logic of all five in sync.
+ */
+@Slf4j
+@Service
+public class JwksKeySet {
+
+    private static final Duration RETRY_DELAY = Duration.ofSeconds(10);
+    private static final Duration MIN_REFRESH_GAP = Duration.ofSeconds(30);
+
+    private record PublishedKey(JWSAlgorithm algorithm, JWSVerifier verifier) {
+    }
+
+    private final URL jwksUrl;
+    private final Duration refreshInterval;
+    private final ScheduledExecutorService scheduler;
+
+    private volatile Map<String, PublishedKey> keys = Map.of();
+    private volatile long lastAttempt;
+
+    public JwksKeySet(@Value("${jwt.jwks-uri:}") String jwksUri,
+                      @Value("${jwt.jwks-refresh-interval:5m}") Duration refreshInterval) {
+        this.refreshInterval = refreshInterval;
+        if (jwksUri == null || jwksUri.isBlank()) {
+            this.jwksUrl = null;
+            this.scheduler = null;
+            return;
+        }
+        try {
+            this.jwksUrl = URI.create(jwksUri).toURL();
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Invalid jwt.jwks-uri: " + jwksUri, e);
+        }
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "jwks-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.execute(this::refresh);
+    }
+
+    public boolean isEnabled() {
+        return jwksUrl != null;
+    }
+
+    /**
+     * @return the verifier for the token's kid, null if the key is not (yet) known or the
+     * algorithm does not match it
+     */
+    public JWSVerifier verifier(JWSHeader header) {
+        PublishedKey published = keys.get(header.getKeyID());
+        if (published == null) {
+            refreshSoon();
+            return null;
+        }
+        return published.algorithm().equals(header.getAlgorithm()) ? published.verifier() : null;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    private void refreshSoon() {
+        if (scheduler != null && System.currentTimeMillis() - lastAttempt >= MIN_REFRESH_GAP.toMillis()) {
+            lastAttempt = System.currentTimeMillis();
+            scheduler.execute(this::load);
+        }
+    }
+
+    private void refresh() {
+        boolean loaded = load();
+        scheduler.schedule(this::refresh, (loaded ? refreshInterval : RETRY_DELAY).toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private boolean load() {
+        lastAttempt = System.currentTimeMillis();
+        try {
+            JWKSet jwkSet = JWKSet.load(jwksUrl, 2000, 2000, 64 * 1024);
+            Map<String, PublishedKey> current = keys;
+            Map<String, PublishedKey> loaded = new HashMap<>();
+            for (JWK jwk : jwkSet.getKeys()) {
+                String kid = jwk.getKeyID();
+                if (kid == null) {
+                    continue;
+                }
+                if (current.containsKey(kid)) {
+                    loaded.put(kid, current.get(kid));
+                } else if (jwk instanceof RSAKey rsaKey) {
+                    loaded.put(kid, new PublishedKey(JWSAlgorithm.RS256, new RSASSAVerifier(rsaKey)));
+                } else if (jwk instanceof ECKey ecKey) {
+                    loaded.put(kid, new PublishedKey(JWSAlgorithm.ES256, new ECDSAVerifier(ecKey)));
+                }
+            }
+            if (!loaded.keySet().equals(current.keySet())) {
+                log.info("JWKS keys loaded: {}", loaded.keySet());
+            }
+            keys = Map.copyOf(loaded);
+            return true;
+        } catch (Exception e) {
+            // Giữ bộ khoá cũ, token đang dùng vẫn verify được
+            log.warn("Cannot load JWKS from {}: {}", jwksUrl, e.getMessage());
+            return false;
+        }
+    }
+}
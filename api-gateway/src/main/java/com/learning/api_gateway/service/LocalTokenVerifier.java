@@ -0,0 +1,140 @@
+package com.learning.api_gateway.service;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.crypto.MACVerifier;
+import com.nimbusds.jwt.SignedJWT;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.time.Instant;
+import java.util.Date;
+
+/**
+ * Verifies access tokens inside the gateway so that the common case does not need
+ * a round trip to user-service: tokens signed with user-service's published keys
+ * ({@link JwksKeySet}) and legacy HS512 tokens signed with the shared secret, the latter only
+ * if issued before jwt.legacy-rotated-at and until jwt.refreshable-duration after it. Anything
+ * this class cannot decide on its own (key id not loaded yet, unsupported algorithm,
+ * revocation check required) is reported as {@link Verdict#UNDECIDED} and left to
+ * remote introspection.
+ */
+@Slf4j
+@Service
+public class LocalTokenVerifier {
+
+    public enum Verdict {
+        VALID, INVALID, UNDECIDED
+    }
+
+    // Null khi không cấu hình jwt.signerKey/jwt.legacy-rotated-at hoặc token HS512 cũ đã hết hạn hết
+    private volatile JWSVerifier macVerifier;
+    private final Instant legacyRotatedAt;
+    private final Instant legacyAcceptedUntil;
+    private final JwksKeySet jwksKeySet;
+    private final boolean revocationCheck;
+
+    public LocalTokenVerifier(@Value("${jwt.signerKey:}") String signerKey,
+                              @Value("${jwt.legacy-rotated-at:}") String legacyRotatedAt,
+                              @Value("${jwt.refreshable-duration:36000}") long refreshableSeconds,
+                              @Value("${jwt.local-verification.enabled:true}") boolean enabled,
+                              @Value("${jwt.local-verification.revocation-check:false}") boolean revocationCheck,
+                              JwksKeySet jwksKeySet) {
+        this.legacyRotatedAt = legacyRotatedAt == null || legacyRotatedAt.isBlank() ? null : Instant.parse(legacyRotatedAt.trim());
+        this.legacyAcceptedUntil = this.legacyRotatedAt == null ? null : this.legacyRotatedAt.plusSeconds(refreshableSeconds);
+        this.macVerifier = enabled ? buildMacVerifier(signerKey, this.legacyRotatedAt) : null;
+        this.jwksKeySet = enabled && jwksKeySet.isEnabled() ? jwksKeySet : null;
+        this.revocationCheck = revocationCheck;
+    }
+
+    public boolean isEnabled() {
+        return macVerifier != null || jwksKeySet != null;
+    }
+
+    public Verdict verify(String token) {
+        if (!isEnabled()) {
+            return Verdict.UNDECIDED;
+        }
+
+        SignedJWT signedJWT;
+        try {
+            signedJWT = SignedJWT.parse(token);
+        } catch (ParseException e) {
+            return Verdict.INVALID;
+        }
+
+        // Tokens with a key id are signed with user-service's rotating keys (JWKS),
+        // HS512 tokens without one with the shared secret
+        JWSHeader header = signedJWT.getHeader();
+        JWSVerifier verifier;
+        if (header.getKeyID() != null) {
+            verifier = jwksKeySet != null ? jwksKeySet.verifier(header) : null;
+        } else {
+            if (!JWSAlgorithm.HS512.equals(header.getAlgorithm()) || macVerifier == null) {
+                return Verdict.UNDECIDED;
+            }
+            verifier = legacyVerifierFor(signedJWT);
+            if (verifier == null) {
+                return Verdict.INVALID;
+            }
+        }
+        if (verifier == null) {
+            return Verdict.UNDECIDED;
+        }
+
+        try {
+            if (!signedJWT.verify(verifier)) {
+                return Verdict.INVALID;
+            }
+            Date expiryTime = signedJWT.getJWTClaimsSet().getExpirationTime();
+            if (expiryTime == null || !expiryTime.after(new Date())) {
+                return Verdict.INVALID;
+            }
+        } catch (JOSEException | ParseException e) {
+            return Verdict.INVALID;
+        }
+
+        return revocationCheck ? Verdict.UNDECIDED : Verdict.VALID;
+    }
+
+    private JWSVerifier legacyVerifierFor(SignedJWT signedJWT) {
+        JWSVerifier verifier = macVerifier;
+        if (verifier == null) {
+            return null;
+        }
+        if (!Instant.now().isBefore(legacyAcceptedUntil)) {
+            // Không còn token HS512 nào refresh được nữa, bỏ hẳn secret
+            log.info("Legacy HS512 tokens expired at {}, dropping jwt.signerKey", legacyAcceptedUntil);
+            macVerifier = null;
+            return null;
+        }
+        try {
+            Date issuedAt = signedJWT.getJWTClaimsSet().getIssueTime();
+            return issuedAt != null && !issuedAt.toInstant().isAfter(legacyRotatedAt) ? verifier : null;
+        } catch (ParseException e) {
+            return null;
+        }
+    }
+
+    private static JWSVerifier buildMacVerifier(String signerKey, Instant legacyRotatedAt) {
+        if (signerKey == null || signerKey.isBlank()) {
+            log.warn("jwt.signerKey is not set, HS512 tokens go through remote introspection");
+            return null;
+        }
+        if (legacyRotatedAt == null) {
+            log.warn("jwt.signerKey is set without jwt.legacy-rotated-at, HS512 tokens go through remote introspection");
+            return null;
+        }
+        try {
+            return new MACVerifier(signerKey.getBytes(StandardCharsets.UTF_8));
+        } catch (JOSEException e) {
+            log.warn("jwt.signerKey cannot be used for HS512, HS512 tokens go through remote introspection: {}", e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.learning.api_gateway.service;
+
+import com.learning.api_gateway.config.RealtimeProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.socket.client.ReactorNettyWebSocketClient;
+import org.springframework.web.reactive.socket.client.WebSocketClient;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The shared upstream links of the multiplexed realtime socket, one per backend in
+ * {@code app.realtime.backends}. A link connects on first use.
+ */
+@Slf4j
+@Service
+public class RealtimeLinks {
+
+    private record Backend(RealtimeProperties.Backend config, UpstreamStompLink link) {
+    }
+
+    private final List<Backend> backends = new ArrayList<>();
+
+    public RealtimeLinks(RealtimeProperties properties, MeterRegistry meterRegistry) {
+        WebSocketClient client = new ReactorNettyWebSocketClient();
+        properties.getBackends().forEach((name, config) -> {
+            if (!config.getUserDestinations().isEmpty() && (config.getLinkKey() == null || config.getLinkKey().isBlank())) {
+                log.warn("app.realtime.backends.{}.link-key (REALTIME_LINK_KEY) is not set, the backend rejects subscriptions to {}",
+                        name, config.getUserDestinations());
+            }
+            UpstreamStompLink link = new UpstreamStompLink(name, config.getUrl(), client, properties.getReconnectDelay(),
+                    config.getLinkKey());
+            Gauge.builder("gateway.realtime.upstream.subscriptions", link, UpstreamStompLink::subscriptionCount)
+                    .description("Destinations subscribed on the shared upstream link")
+                    .tag("backend", name)
+                    .register(meterRegistry);
+            Gauge.builder("gateway.realtime.upstream.connected", link, l -> l.isConnected() ? 1 : 0)
+                    .tag("backend", name)
+                    .register(meterRegistry);
+            backends.add(new Backend(config, link));
+        });
+    }
+
+    /**
+     * @return the link whose broker serves the destination, null if none does
+     */
+    public UpstreamStompLink forSubscription(String destination) {
+        for (Backend backend : backends) {
+            if (matches(backend.config().getDestinations(), destination)) {
+                return started(backend.link());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Whether a client whose token carries {@code userId} may subscribe to the destination:
+     * user destinations ({@code <prefix><userId>}) only for its own id, anything else always.
+     */
+    public boolean allowsSubscription(String destination, String userId) {
+        for (Backend backend : backends) {
+            for (String prefix : backend.config().getUserDestinations()) {
+                if (destination != null && destination.startsWith(prefix)) {
+                    return userId != null && destination.substring(prefix.length()).equals(userId);
+                }
+            }
+        }
+        return true;
+    }
+
+    public UpstreamStompLink forSend(String destination) {
+        for (Backend backend : backends) {
+            if (matches(backend.config().getSendPrefixes(), destination)) {
+                return started(backend.link());
+            }
+        }
+        return null;
+    }
+
+    @PreDestroy
+    void stop() {
+        backends.forEach(backend -> backend.link().stop());
+    }
+
+    private static UpstreamStompLink started(UpstreamStompLink link) {
+        link.start();
+        return link;
+    }
+
+    private static boolean matches(List<String> prefixes, String destination) {
+        return destination != null && prefixes.stream().anyMatch(destination::startsWith);
+    }
+}
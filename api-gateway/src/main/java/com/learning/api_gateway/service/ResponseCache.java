@@ -0,0 +1,125 @@
+package com.learning.api_gateway.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.learning.api_gateway.config.ResponseCacheProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.AccessLevel;
+import lombok.Builder;
+import lombok.Value;
+import lombok.experimental.FieldDefaults;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cached 200 responses of the public catalog reads, one Caffeine cache per route so TTL
+ * and size are bounded per route. Hit ratio is exported as {@code gateway.response.cache.*}
+ * tagged by route.
+ */
+@Service
+public class ResponseCache {
+
+    @Value
+    @Builder
+    public static class Entry {
+        byte[] body;
+        String contentType;
+        String etag;
+    }
+
+    @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+    private static final class RouteCache {
+        ResponseCacheProperties.RouteCache config;
+        Cache<String, Entry> entries;
+        Counter notModified;
+
+        RouteCache(ResponseCacheProperties.RouteCache config, Cache<String, Entry> entries, Counter notModified) {
+            this.config = config;
+            this.entries = entries;
+            this.notModified = notModified;
+        }
+    }
+
+    private final boolean enabled;
+    private final Map<String, RouteCache> routes = new HashMap<>();
+
+    public ResponseCache(ResponseCacheProperties properties, MeterRegistry meterRegistry) {
+        this.enabled = properties.isEnabled();
+        properties.getRoutes().forEach((routeId, config) -> {
+            Cache<String, Entry> entries = Caffeine.newBuilder()
+                    .maximumWeight(config.getMaxSize().toBytes())
+                    .<String, Entry>weigher((key, entry) -> key.length() + entry.getBody().length)
+                    .expireAfterWrite(config.getTtl().toNanos(), TimeUnit.NANOSECONDS)
+                    .recordStats()
+                    .build();
+            CaffeineCacheMetrics.monitor(meterRegistry, entries, "gateway.response", Tags.of("route", routeId));
+            Counter notModified = Counter.builder("gateway.response.cache.not-modified")
+                    .description("Requests answered with 304 from the gateway response cache")
+                    .tag("route", routeId)
+                    .register(meterRegistry);
+            routes.put(routeId, new RouteCache(config, entries, notModified));
+        });
+    }
+
+    /**
+     * @return cache config of the route, null if the route is not cached
+     */
+    public ResponseCacheProperties.RouteCache configFor(String routeId) {
+        RouteCache route = enabled && routeId != null ? routes.get(routeId) : null;
+        return route != null ? route.config : null;
+    }
+
+    public Entry get(String routeId, String key) {
+        RouteCache route = routes.get(routeId);
+        return route != null ? route.entries.getIfPresent(key) : null;
+    }
+
+    public Entry put(String routeId, String key, byte[] body, String contentType) {
+        Entry entry = Entry.builder()
+                .body(body)
+                .contentType(contentType)
+                .etag(etagOf(body))
+                .build();
+        RouteCache route = routes.get(routeId);
+        if (route != null) {
+            route.entries.put(key, entry);
+        }
+        return entry;
+    }
+
+    public void recordNotModified(String routeId) {
+        RouteCache route = routes.get(routeId);
+        if (route != null) {
+            route.notModified.increment();
+        }
+    }
+
+    public static String hash(String value) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(sha256(value.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static String etagOf(byte[] body) {
+        // Strong validator, 128 bit của SHA-256 là đủ
+        byte[] digest = sha256(body);
+        return '"' + Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, 16)) + '"';
+    }
+
+    private static byte[] sha256(byte[] value) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(value);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package com.learning.api_gateway.service;
+
+import com.learning.api_gateway.config.CircuitBreakerProperties;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Circuit breaker of one route over a rolling window of buckets. Latencies go into an
+ * HdrHistogram {@link Recorder} (lock free for the recording threads); when a bucket
+ * ends the window's error rate, p95 and p99 are recomputed once and the breaker opens
+ * if either the error rate or the p99 is over its threshold.
+ *
+ * <p>After open-duration the breaker lets half-open-permits trial requests through. Every trial
+ * must report back with {@link #onResult} or {@link #onCancel}; trials that never finish within
+ * half-open-timeout reopen the breaker instead of leaving the route rejected forever.
+ */
+public class RouteCircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    /**
+     * Outcome of {@link #admit}: whether the request may go through and, for a half-open trial,
+     * the half-open round whose permit it holds (0 for requests admitted while closed).
+     */
+    public record Admission(boolean admitted, int trialRound) {
+        static final Admission REJECTED = new Admission(false, 0);
+        static final Admission ADMITTED = new Admission(true, 0);
+    }
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(5);
+
+    private final CircuitBreakerProperties.Breaker config;
+    private final LongSupplier nanoClock;
+    private final long bucketNanos;
+    private final long p99ThresholdMicros;
+
+    private final Recorder recorder = new Recorder(HIGHEST_TRACKABLE_MICROS, 2);
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+
+    // Ring buffer của các bucket đã đóng, chỉ đụng tới trong synchronized rotate
+    private final Histogram[] histograms;
+    private final long[] requestCounts;
+    private final long[] errorCounts;
+    private final Histogram window = new Histogram(HIGHEST_TRACKABLE_MICROS, 2);
+    private Histogram recycled;
+    private int index;
+
+    private volatile long nextRotation;
+    private volatile long p95Micros = -1;
+    private volatile long p99Micros = -1;
+    private volatile double errorRate;
+
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+    private volatile long openUntil;
+    private volatile long halfOpenUntil;
+    private final AtomicInteger halfOpenPermits = new AtomicInteger();
+    private final AtomicInteger halfOpenSuccesses = new AtomicInteger();
+    private final AtomicInteger halfOpenRound = new AtomicInteger();
+
+    public RouteCircuitBreaker(CircuitBreakerProperties.Breaker config) {
+        this(config, System::nanoTime);
+    }
+
+    RouteCircuitBreaker(CircuitBreakerProperties.Breaker config, LongSupplier nanoClock) {
+        this.config = config;
+        this.nanoClock = nanoClock;
+        this.bucketNanos = config.getWindow().toNanos() / config.getBuckets();
+        this.p99ThresholdMicros = TimeUnit.NANOSECONDS.toMicros(config.getP99Threshold().toNanos());
+        this.histograms = new Histogram[config.getBuckets()];
+        this.requestCounts = new long[config.getBuckets()];
+        this.errorCounts = new long[config.getBuckets()];
+        this.nextRotation = nanoClock.getAsLong() + bucketNanos;
+    }
+
+    public boolean tryAcquire() {
+        return admit().admitted();
+    }
+
+    public Admission admit() {
+        long now = nanoClock.getAsLong();
+        rotateIfNeeded(now);
+        return switch (state.get()) {
+            case CLOSED -> Admission.ADMITTED;
+            case OPEN -> now - openUntil >= 0 && halfOpen(now) ? trial() : Admission.REJECTED;
+            case HALF_OPEN -> {
+                // Các request thử không báo kết quả (treo, bị huỷ mà không trả permit): mở lại rồi thử đợt khác
+                if (now - halfOpenUntil >= 0) {
+                    if (state.compareAndSet(State.HALF_OPEN, State.OPEN)) {
+                        openUntil = now + config.getOpenDuration().toNanos();
+                    }
+                    yield Admission.REJECTED;
+                }
+                yield trial();
+            }
+        };
+    }
+
+    /**
+     * The request let through by {@link #admit} was cancelled (client went away) before a
+     * result: no signal about the backend, but a half-open trial permit must be handed back,
+     * only if the request took one in the current half-open round.
+     */
+    public void onCancel(Admission admission) {
+        if (admission.trialRound() != 0 && state.get() == State.HALF_OPEN
+                && admission.trialRound() == halfOpenRound.get()) {
+            halfOpenPermits.incrementAndGet();
+        }
+    }
+
+    public void onResult(long latencyNanos, boolean error) {
+        long micros = Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), HIGHEST_TRACKABLE_MICROS);
+        recorder.recordValue(micros);
+        requests.increment();
+        if (error) {
+            errors.increment();
+        }
+
+        if (state.get() == State.HALF_OPEN) {
+            if (error || micros >= p99ThresholdMicros) {
+                open();
+            } else if (halfOpenSuccesses.incrementAndGet() >= config.getHalfOpenPermits()
+                    && state.compareAndSet(State.HALF_OPEN, State.CLOSED)) {
+                // Số liệu cũ là của lúc backend còn lỗi, bỏ đi để không mở lại ngay
+                reset();
+            }
+        }
+    }
+
+    /**
+     * p95 latency of the window in nanoseconds, -1 until the first bucket has data.
+     */
+    public long p95Nanos() {
+        return p95Micros < 0 ? -1 : TimeUnit.MICROSECONDS.toNanos(p95Micros);
+    }
+
+    public State getState() {
+        return state.get();
+    }
+
+    public double getErrorRate() {
+        return errorRate;
+    }
+
+    public double getP99Millis() {
+        return p99Micros < 0 ? 0 : p99Micros / 1000.0;
+    }
+
+    private boolean halfOpen(long now) {
+        if (state.compareAndSet(State.OPEN, State.HALF_OPEN)) {
+            halfOpenRound.incrementAndGet();
+            halfOpenSuccesses.set(0);
+            halfOpenPermits.set(config.getHalfOpenPermits());
+            halfOpenUntil = now + config.getHalfOpenTimeout().toNanos();
+        }
+        return state.get() == State.HALF_OPEN;
+    }
+
+    // Không giảm xuống dưới 0, để permit trả lại bởi onCancel dùng được ngay
+    private Admission trial() {
+        int round = halfOpenRound.get();
+        while (true) {
+            int permits = halfOpenPermits.get();
+            if (permits <= 0) {
+                return Admission.REJECTED;
+            }
+            if (halfOpenPermits.compareAndSet(permits, permits - 1)) {
+                return new Admission(true, round);
+            }
+        }
+    }
+
+    private void open() {
+        openUntil = nanoClock.getAsLong() + config.getOpenDuration().toNanos();
+        state.set(State.OPEN);
+    }
+
+    private void rotateIfNeeded(long now) {
+        if (now - nextRotation < 0) {
+            return;
+        }
+        synchronized (this) {
+            if (now - nextRotation < 0) {
+                return;
+            }
+            // Route rảnh lâu: mọi bucket đã trôi qua đều rỗng, xoay đủ số đó để số liệu cũ rời window
+            rotate((now - nextRotation) / bucketNanos + 1);
+            nextRotation = now + bucketNanos;
+        }
+    }
+
+    private void rotate(long elapsedBuckets) {
+        Histogram closed = recorder.getIntervalHistogram(recycled);
+        long closedRequests = requests.sumThenReset();
+        long closedErrors = errors.sumThenReset();
+        // Bucket vừa đóng cũ hơn cả window thì bỏ luôn, các bucket rỗng của khoảng rảnh nằm sau nó
+        boolean keepClosed = elapsedBuckets <= histograms.length;
+        recycled = keepClosed ? null : closed;
+        for (long i = 0; i < Math.min(elapsedBuckets, histograms.length); i++) {
+            index = (index + 1) % histograms.length;
+            if (histograms[index] != null) {
+                recycled = histograms[index];
+            }
+            boolean first = i == 0 && keepClosed;
+            histograms[index] = first ? closed : null;
+            requestCounts[index] = first ? closedRequests : 0;
+            errorCounts[index] = first ? closedErrors : 0;
+        }
+
+        window.reset();
+        long totalRequests = 0;
+        long totalErrors = 0;
+        for (int i = 0; i < histograms.length; i++) {
+            if (histograms[i] != null) {
+                window.add(histograms[i]);
+            }
+            totalRequests += requestCounts[i];
+            totalErrors += errorCounts[i];
+        }
+
+        errorRate = totalRequests == 0 ? 0 : (double) totalErrors / totalRequests;
+        p95Micros = window.getTotalCount() == 0 ? -1 : window.getValueAtPercentile(95);
+        p99Micros = window.getTotalCount() == 0 ? -1 : window.getValueAtPercentile(99);
+
+        if (state.get() == State.CLOSED && totalRequests >= config.getMinRequests()
+                && (errorRate >= config.getErrorRateThreshold() || p99Micros >= p99ThresholdMicros)) {
+            open();
+        }
+    }
+
+    private synchronized void reset() {
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = null;
+            requestCounts[i] = 0;
+            errorCounts[i] = 0;
+        }
+        recycled = null;
+        errorRate = 0;
+        p99Micros = -1;
+    }
+}
@@ -0,0 +1,65 @@
+package com.learning.api_gateway.service;
+
+import com.learning.api_gateway.config.CircuitBreakerProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Breakers and hedge budgets per route, created on first use with their metrics.
+ */
+@Service
+public class RouteCircuitBreakers {
+
+    private final CircuitBreakerProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, RouteCircuitBreaker> breakers = new ConcurrentHashMap<>();
+    private final Map<String, HedgeBudget> hedgeBudgets = new ConcurrentHashMap<>();
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    public RouteCircuitBreakers(CircuitBreakerProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public RouteCircuitBreaker forRoute(String routeId) {
+        return breakers.computeIfAbsent(routeId, id -> {
+            RouteCircuitBreaker breaker = new RouteCircuitBreaker(properties.breakerFor(id));
+            Gauge.builder("gateway.circuitbreaker.state", breaker, b -> b.getState().ordinal())
+                    .description("0 = closed, 1 = open, 2 = half open")
+                    .tag("route", id)
+                    .register(meterRegistry);
+            Gauge.builder("gateway.circuitbreaker.error.rate", breaker, RouteCircuitBreaker::getErrorRate)
+                    .description("Error rate of the route over the breaker window")
+                    .tag("route", id)
+                    .register(meterRegistry);
+            Gauge.builder("gateway.circuitbreaker.p99", breaker, RouteCircuitBreaker::getP99Millis)
+                    .description("p99 latency of the route over the breaker window")
+                    .baseUnit("milliseconds")
+                    .tag("route", id)
+                    .register(meterRegistry);
+            return breaker;
+        });
+    }
+
+    public HedgeBudget hedgeBudget(String routeId) {
+        return hedgeBudgets.computeIfAbsent(routeId,
+                id -> new HedgeBudget(properties.breakerFor(id).getHedge().getBudgetPercent()));
+    }
+
+    /**
+     * @param name rejected, hedge.sent, hedge.won or hedge.budget-exhausted
+     */
+    public void increment(String routeId, String name) {
+        counters.computeIfAbsent(routeId + '|' + name, key -> Counter.builder(name.startsWith("hedge")
+                                ? "gateway." + name
+                                : "gateway.circuitbreaker." + name)
+                        .tag("route", routeId)
+                        .register(meterRegistry))
+                .increment();
+    }
+}
@@ -0,0 +1,85 @@
+package com.learning.api_gateway.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Per-route latency meters. Micrometer timers with client-side percentiles keep a
+ * rotating HdrHistogram per (route, status), so p50/p95/p99 show up under
+ * /actuator/metrics without a log line per request. Meters are cached per key because
+ * looking one up through the registry allocates on every call.
+ */
+@Service
+public class RouteTelemetry {
+
+    private final MeterRegistry meterRegistry;
+    private final double[] percentiles;
+    private final boolean histogram;
+    private final Map<String, Timer> latency = new ConcurrentHashMap<>();
+    private final Map<String, Timer> connect = new ConcurrentHashMap<>();
+    private final Map<String, Timer> response = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+
+    public RouteTelemetry(MeterRegistry meterRegistry,
+                          @Value("${app.telemetry.percentiles:0.5,0.95,0.99}") double[] percentiles,
+                          @Value("${app.telemetry.histogram:false}") boolean histogram) {
+        this.meterRegistry = meterRegistry;
+        this.percentiles = percentiles;
+        this.histogram = histogram;
+    }
+
+    public AtomicInteger inFlight(String routeId) {
+        return inFlight.computeIfAbsent(routeId, id -> {
+            AtomicInteger counter = new AtomicInteger();
+            Gauge.builder("gateway.route.inflight", counter, AtomicInteger::get)
+                    .description("Requests of the route currently in the gateway")
+                    .tag("route", id)
+                    .register(meterRegistry);
+            return counter;
+        });
+    }
+
+    public void recordLatency(String routeId, String status, long nanos) {
+        latency.computeIfAbsent(routeId + '|' + status, key -> timer("gateway.route.latency",
+                        "Time from the request entering the gateway until the response is written")
+                        .tag("route", routeId)
+                        .tag("status", status)
+                        .register(meterRegistry))
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordUpstream(String routeId, UpstreamTiming timing) {
+        long connectNanos = timing.connectNanos();
+        if (connectNanos >= 0) {
+            connect.computeIfAbsent(routeId, id -> timer("gateway.upstream.connect",
+                            "Time to acquire or open the upstream connection")
+                            .tag("route", id)
+                            .register(meterRegistry))
+                    .record(connectNanos, TimeUnit.NANOSECONDS);
+        }
+        long responseNanos = timing.responseNanos();
+        if (responseNanos >= 0) {
+            response.computeIfAbsent(routeId, id -> timer("gateway.upstream.response",
+                            "Time from sending the request upstream until its response headers arrive")
+                            .tag("route", id)
+                            .register(meterRegistry))
+                    .record(responseNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Timer.Builder timer(String name, String description) {
+        return Timer.builder(name)
+                .description(description)
+                .publishPercentiles(percentiles)
+                .percentilePrecision(2)
+                .publishPercentileHistogram(histogram);
+    }
+}
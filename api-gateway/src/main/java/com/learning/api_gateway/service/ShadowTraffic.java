@@ -0,0 +1,133 @@
+package com.learning.api_gateway.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Results of mirrored requests. Each sample pairs the primary and the shadow call of one
+ * request; once both ended the latencies, the shadow/primary latency ratio and whether
+ * the status codes agree are recorded per route.
+ */
+@Service
+public class ShadowTraffic {
+
+    /**
+     * One mirrored request. {@code status} is the HTTP status, or "ERROR"/"TIMEOUT" for
+     * a shadow call that did not get a response.
+     */
+    public final class Sample {
+        private final String routeId;
+        private final Semaphore permit;
+        private final AtomicInteger pending = new AtomicInteger(2);
+        private volatile String primaryStatus;
+        private volatile long primaryNanos;
+        private volatile String shadowStatus;
+        private volatile long shadowNanos;
+
+        private Sample(String routeId, Semaphore permit) {
+            this.routeId = routeId;
+            this.permit = permit;
+        }
+
+        /**
+         * @param status null if the client cancelled the primary request
+         */
+        public void primary(String status, long nanos) {
+            primaryStatus = status;
+            primaryNanos = nanos;
+            complete();
+        }
+
+        public void shadow(String status, long nanos) {
+            shadowStatus = status;
+            shadowNanos = nanos;
+            permit.release();
+            complete();
+        }
+
+        private void complete() {
+            if (pending.decrementAndGet() == 0) {
+                record(this);
+            }
+        }
+    }
+
+    private final MeterRegistry meterRegistry;
+    private final double[] percentiles;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private final Map<String, DistributionSummary> ratios = new ConcurrentHashMap<>();
+    private final Map<String, Semaphore> permits = new ConcurrentHashMap<>();
+
+    public ShadowTraffic(MeterRegistry meterRegistry,
+                         @Value("${app.telemetry.percentiles:0.5,0.95,0.99}") double[] percentiles) {
+        this.meterRegistry = meterRegistry;
+        this.percentiles = percentiles;
+    }
+
+    /**
+     * @return a sample to fill, null if the route already has maxInFlight shadow calls
+     * running (the request is then not mirrored)
+     */
+    public Sample start(String routeId, int maxInFlight) {
+        Semaphore semaphore = permits.computeIfAbsent(routeId, id -> new Semaphore(maxInFlight));
+        if (!semaphore.tryAcquire()) {
+            count("gateway.shadow.skipped", routeId, "in-flight");
+            return null;
+        }
+        return new Sample(routeId, semaphore);
+    }
+
+    private void record(Sample sample) {
+        if (sample.primaryStatus == null) {
+            // Client huỷ primary, không có gì để so
+            return;
+        }
+        timer(sample.routeId, "primary", sample.primaryStatus).record(sample.primaryNanos, TimeUnit.NANOSECONDS);
+        timer(sample.routeId, "shadow", sample.shadowStatus).record(sample.shadowNanos, TimeUnit.NANOSECONDS);
+
+        String outcome;
+        if ("ERROR".equals(sample.shadowStatus) || "TIMEOUT".equals(sample.shadowStatus)) {
+            outcome = "shadow-" + sample.shadowStatus.toLowerCase();
+        } else {
+            outcome = sample.primaryStatus.equals(sample.shadowStatus) ? "match" : "status-mismatch";
+            if (sample.primaryNanos > 0) {
+                ratios.computeIfAbsent(sample.routeId, id -> DistributionSummary.builder("gateway.shadow.latency.ratio")
+                                .description("Shadow latency divided by primary latency of the same request")
+                                .publishPercentiles(percentiles)
+                                .tag("route", id)
+                                .register(meterRegistry))
+                        .record((double) sample.shadowNanos / sample.primaryNanos);
+            }
+        }
+        count("gateway.shadow.compared", sample.routeId, outcome);
+    }
+
+    private Timer timer(String routeId, String target, String status) {
+        return timers.computeIfAbsent(routeId + '|' + target + '|' + status, key -> Timer.builder("gateway.shadow.latency")
+                .description("Latency of mirrored requests on the primary and the shadow upstream")
+                .publishPercentiles(percentiles)
+                .tag("route", routeId)
+                .tag("target", target)
+                .tag("status", status)
+                .register(meterRegistry));
+    }
+
+    private void count(String name, String routeId, String outcome) {
+        counters.computeIfAbsent(name + '|' + routeId + '|' + outcome, key -> Counter.builder(name)
+                        .tag("route", routeId)
+                        .tag("outcome", outcome)
+                        .register(meterRegistry))
+                .increment();
+    }
+}
@@ -0,0 +1,150 @@
+package com.learning.api_gateway.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Minimal STOMP 1.2 text frame, enough for relaying JSON messages between the browser and
+ * the Spring simple brokers: {@code COMMAND\nname:value\n...\n\nbody\0}.
+ */
+public final class StompFrame {
+
+    private final String command;
+    private final Map<String, String> headers;
+    private final String body;
+
+    public StompFrame(String command, Map<String, String> headers, String body) {
+        this.command = command;
+        this.headers = headers;
+        this.body = body;
+    }
+
+    public static StompFrame of(String command) {
+        return new StompFrame(command, new LinkedHashMap<>(), "");
+    }
+
+    public StompFrame header(String name, String value) {
+        if (value != null) {
+            headers.put(name, value);
+        }
+        return this;
+    }
+
+    public String getCommand() {
+        return command;
+    }
+
+    public String getHeader(String name) {
+        return headers.get(name);
+    }
+
+    public Map<String, String> getHeaders() {
+        return headers;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    /**
+     * @return null for a heart-beat (only end of lines)
+     */
+    public static StompFrame parse(String text) {
+        int start = 0;
+        while (start < text.length() && (text.charAt(start) == '\n' || text.charAt(start) == '\r')) {
+            start++;
+        }
+        if (start == text.length() || text.charAt(start) == '\0') {
+            return null;
+        }
+
+        int lineEnd = text.indexOf('\n', start);
+        if (lineEnd < 0) {
+            return new StompFrame(stripCr(text.substring(start)).replace("\0", ""), new LinkedHashMap<>(), "");
+        }
+        String command = stripCr(text.substring(start, lineEnd));
+        // CONNECT/CONNECTED không escape header (STOMP 1.2)
+        boolean escaped = !"CONNECT".equals(command) && !"CONNECTED".equals(command);
+
+        Map<String, String> headers = new LinkedHashMap<>();
+        int position = lineEnd + 1;
+        while (position < text.length()) {
+            int end = text.indexOf('\n', position);
+            if (end < 0) {
+                end = text.length();
+            }
+            String line = stripCr(text.substring(position, end));
+            position = end + 1;
+            if (line.isEmpty()) {
+                break;
+            }
+            int colon = line.indexOf(':');
+            if (colon > 0) {
+                String name = escaped ? unescape(line.substring(0, colon)) : line.substring(0, colon);
+                String value = escaped ? unescape(line.substring(colon + 1)) : line.substring(colon + 1);
+                // Header lặp lại: giá trị đầu tiên thắng
+                headers.putIfAbsent(name, value);
+            }
+        }
+
+        // Body là JSON (text), không chứa NUL nên không cần content-length
+        String body = "";
+        if (position < text.length()) {
+            int nul = text.indexOf('\0', position);
+            body = nul < 0 ? text.substring(position) : text.substring(position, nul);
+        }
+        return new StompFrame(command, headers, body);
+    }
+
+    public String encode() {
+        boolean escaped = !"CONNECT".equals(command) && !"CONNECTED".equals(command);
+        StringBuilder frame = new StringBuilder(command.length() + body.length() + 64).append(command).append('\n');
+        headers.forEach((name, value) -> {
+            if (!"content-length".equals(name)) {
+                frame.append(escaped ? escape(name) : name).append(':').append(escaped ? escape(value) : value).append('\n');
+            }
+        });
+        return frame.append('\n').append(body).append('\0').toString();
+    }
+
+    private static String stripCr(String line) {
+        return line.endsWith("\r") ? line.substring(0, line.length() - 1) : line;
+    }
+
+    private static String escape(String value) {
+        StringBuilder out = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case ':' -> out.append("\\c");
+                default -> out.append(c);
+            }
+        }
+        return out.toString();
+    }
+
+    private static String unescape(String value) {
+        if (value.indexOf('\\') < 0) {
+            return value;
+        }
+        StringBuilder out = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' && i + 1 < value.length()) {
+                char next = value.charAt(++i);
+                switch (next) {
+                    case 'n' -> out.append('\n');
+                    case 'r' -> out.append('\r');
+                    case 'c' -> out.append(':');
+                    default -> out.append(next);
+                }
+            } else {
+                out.append(c);
+            }
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,49 @@
+package com.learning.api_gateway.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.learning.api_gateway.config.RateLimitProperties;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory token buckets, one per key. Each bucket is a single AtomicLong holding the
+ * "theoretical arrival time" of the next request (GCRA), so acquiring is one CAS and
+ * no lock; the map itself is Caffeine's striped hash table with idle expiry.
+ */
+@Service
+public class TokenBucketRateLimiter {
+
+    private final Cache<String, AtomicLong> buckets;
+
+    public TokenBucketRateLimiter(RateLimitProperties properties) {
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxKeys())
+                .expireAfterAccess(properties.getIdleTimeout().toNanos(), TimeUnit.NANOSECONDS)
+                .build();
+    }
+
+    /**
+     * @return 0 if the request may pass, otherwise nanoseconds until a token is available
+     */
+    public long tryAcquire(String key, RateLimitProperties.Limit limit) {
+        long interval = (long) (TimeUnit.SECONDS.toNanos(1) / limit.getRefillPerSecond());
+        long burst = interval * limit.getCapacity();
+        AtomicLong bucket = buckets.get(key, k -> new AtomicLong(Long.MIN_VALUE));
+
+        while (true) {
+            long now = System.nanoTime();
+            long tat = bucket.get();
+            long next = Math.max(tat == Long.MIN_VALUE ? now : tat, now) + interval;
+            long wait = next - now - burst;
+            if (wait > 0) {
+                return wait;
+            }
+            if (bucket.compareAndSet(tat, next)) {
+                return 0;
+            }
+        }
+    }
+}
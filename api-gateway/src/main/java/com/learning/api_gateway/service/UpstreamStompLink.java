@@ -0,0 +1,180 @@
+package com.learning.api_gateway.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.reactive.socket.client.WebSocketClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * One STOMP connection from the gateway to a backend's broker, shared by every client
+ * socket. Each destination is subscribed upstream once, however many clients listen to
+ * it, and unsubscribed when the last one leaves. Reconnects after a delay and subscribes
+ * again to everything still in use.
+ */
+@Slf4j
+public class UpstreamStompLink {
+
+    private static final class Subscription {
+        private final String id;
+        private final Set<Consumer<StompFrame>> listeners = ConcurrentHashMap.newKeySet();
+
+        private Subscription(String id) {
+            this.id = id;
+        }
+    }
+
+    private final String name;
+    private final URI url;
+    private final WebSocketClient client;
+    private final Duration reconnectDelay;
+    private final String linkKey;
+    private final Map<String, Subscription> subscriptions = new ConcurrentHashMap<>();
+    private final Map<String, Subscription> byId = new ConcurrentHashMap<>();
+    private final AtomicLong ids = new AtomicLong();
+
+    private final AtomicBoolean active = new AtomicBoolean();
+    private volatile Sinks.Many<String> outbound;
+    private volatile Disposable connection;
+    private volatile boolean stopped;
+
+    public UpstreamStompLink(String name, URI url, WebSocketClient client, Duration reconnectDelay, String linkKey) {
+        this.name = name;
+        this.url = url;
+        this.client = client;
+        this.reconnectDelay = reconnectDelay;
+        this.linkKey = linkKey;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int subscriptionCount() {
+        return subscriptions.size();
+    }
+
+    public boolean isConnected() {
+        return outbound != null;
+    }
+
+    public void start() {
+        if (!stopped && active.compareAndSet(false, true)) {
+            connect();
+        }
+    }
+
+    public void stop() {
+        stopped = true;
+        Disposable current = connection;
+        if (current != null) {
+            current.dispose();
+        }
+    }
+
+    public void subscribe(String destination, Consumer<StompFrame> listener) {
+        subscriptions.compute(destination, (key, existing) -> {
+            Subscription subscription = existing;
+            if (subscription == null) {
+                subscription = new Subscription(name + "-" + ids.incrementAndGet());
+                byId.put(subscription.id, subscription);
+                emit(StompFrame.of("SUBSCRIBE").header("id", subscription.id).header("destination", key));
+            }
+            subscription.listeners.add(listener);
+            return subscription;
+        });
+    }
+
+    public void unsubscribe(String destination, Consumer<StompFrame> listener) {
+        subscriptions.computeIfPresent(destination, (key, subscription) -> {
+            subscription.listeners.remove(listener);
+            if (!subscription.listeners.isEmpty()) {
+                return subscription;
+            }
+            byId.remove(subscription.id);
+            emit(StompFrame.of("UNSUBSCRIBE").header("id", subscription.id));
+            return null;
+        });
+    }
+
+    /**
+     * @return false if the link is down, the frame is dropped
+     */
+    public boolean send(StompFrame frame) {
+        return emit(frame);
+    }
+
+    private boolean emit(StompFrame frame) {
+        Sinks.Many<String> sink = outbound;
+        if (sink == null) {
+            // Khi kết nối lại sẽ SUBSCRIBE lại từ subscriptions
+            return false;
+        }
+        synchronized (sink) {
+            return sink.tryEmitNext(frame.encode()).isSuccess();
+        }
+    }
+
+    private void connect() {
+        Sinks.Many<String> sink = Sinks.many().unicast().onBackpressureBuffer();
+        connection = client.execute(url, session -> {
+                    synchronized (sink) {
+                        sink.tryEmitNext(StompFrame.of("CONNECT")
+                                .header("accept-version", "1.2,1.1")
+                                .header("host", url.getHost())
+                                .header("heart-beat", "0,0")
+                                .header("link-key", linkKey)
+                                .encode());
+                        // Gán trước khi SUBSCRIBE lại: subscribe song song không bị mất, trùng id thì broker ghi đè
+                        outbound = sink;
+                        subscriptions.forEach((destination, subscription) -> sink.tryEmitNext(StompFrame.of("SUBSCRIBE")
+                                .header("id", subscription.id)
+                                .header("destination", destination)
+                                .encode()));
+                    }
+                    log.info("Realtime link {} connected to {}", name, url);
+
+                    Mono<Void> output = session.send(sink.asFlux().map(session::textMessage));
+                    Mono<Void> input = session.receive()
+                            .doOnNext(message -> onFrame(StompFrame.parse(message.getPayloadAsText())))
+                            .then();
+                    // Một chiều kết thúc (backend đóng socket) là xong kết nối
+                    return Mono.firstWithSignal(input, output);
+                })
+                .doFinally(signal -> {
+                    outbound = null;
+                    active.set(false);
+                    if (!stopped) {
+                        log.warn("Realtime link {} to {} closed ({}), reconnecting in {}", name, url, signal, reconnectDelay);
+                        Mono.delay(reconnectDelay).subscribe(tick -> start());
+                    }
+                })
+                .subscribe(null, error -> log.warn("Realtime link {} failed: {}", name, error.getMessage()));
+    }
+
+    private void onFrame(StompFrame frame) {
+        if (frame == null) {
+            return;
+        }
+        switch (frame.getCommand()) {
+            case "MESSAGE" -> {
+                Subscription subscription = byId.get(frame.getHeader("subscription"));
+                if (subscription != null) {
+                    subscription.listeners.forEach(listener -> listener.accept(frame));
+                }
+            }
+            case "ERROR" -> log.warn("Realtime link {} got ERROR: {}", name, frame.getHeader("message"));
+            default -> {
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.learning.api_gateway.service;
+
+/**
+ * Timestamps of one upstream call, carried in the Reactor context of the exchange so the
+ * gateway HttpClient hooks can fill them in. With hedging only the first call counts.
+ */
+public final class UpstreamTiming {
+
+    public static final Class<UpstreamTiming> CONTEXT_KEY = UpstreamTiming.class;
+
+    private volatile long connectStarted;
+    private volatile long connected;
+    private volatile long responded;
+
+    public void connectStarted() {
+        if (connectStarted == 0) {
+            connectStarted = System.nanoTime();
+        }
+    }
+
+    public void connected() {
+        if (connected == 0) {
+            connected = System.nanoTime();
+        }
+    }
+
+    public void responded() {
+        if (responded == 0) {
+            responded = System.nanoTime();
+        }
+    }
+
+    /**
+     * Pool acquire or TCP (+TLS) connect, -1 if the call never started.
+     */
+    public long connectNanos() {
+        return connectStarted != 0 && connected != 0 ? connected - connectStarted : -1;
+    }
+
+    /**
+     * From connection ready until the upstream's response headers arrived, -1 if no response.
+     */
+    public long responseNanos() {
+        return connected != 0 && responded != 0 ? responded - connected : -1;
+    }
+}
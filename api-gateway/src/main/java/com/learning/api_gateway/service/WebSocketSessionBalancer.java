@@ -0,0 +1,173 @@
+package com.learning.api_gateway.service;
+
+import com.learning.api_gateway.config.WebSocketRoutingProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.scheduler.Schedulers;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Live realtime sessions per backend instance, as seen by this gateway. A new session goes
+ * to the instance with the fewest live sessions; every later request of the same SockJS
+ * session (xhr_send, polling, reconnect of the stream) goes to the same instance.
+ *
+ * <p>A session ends when its WebSocket closes, or for the xhr transports when it has no
+ * request open and none for {@code session-idle-timeout}. Counts are per gateway replica.
+ */
+@Service
+public class WebSocketSessionBalancer {
+
+    public static final class Instance {
+        private final URI uri;
+        private final AtomicInteger sessions = new AtomicInteger();
+
+        private Instance(URI uri) {
+            this.uri = uri;
+        }
+
+        public URI getUri() {
+            return uri;
+        }
+    }
+
+    public static final class Session {
+        private final String key;
+        private final Instance instance;
+        private final AtomicInteger openRequests = new AtomicInteger();
+        private volatile boolean endsWithConnection;
+        private volatile long lastSeen = System.nanoTime();
+
+        private Session(String key, Instance instance) {
+            this.key = key;
+            this.instance = instance;
+        }
+
+        public URI getInstance() {
+            return instance.uri;
+        }
+    }
+
+    private final WebSocketRoutingProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, List<Instance>> pools = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> cursors = new ConcurrentHashMap<>();
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final Disposable sweeper;
+
+    public WebSocketSessionBalancer(WebSocketRoutingProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        long period = Math.max(1, properties.getSessionIdleTimeout().toMillis() / 2);
+        this.sweeper = Schedulers.parallel().schedulePeriodically(this::sweep, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    public boolean handles(String routeId) {
+        List<URI> instances = properties.getRoutes().get(routeId);
+        return instances != null && !instances.isEmpty();
+    }
+
+    /**
+     * Binds one request to an instance, {@link #release(Session)} must be called when it ends.
+     *
+     * @param sessionId SockJS session id, null for a request outside a session (info, raw WebSocket)
+     * @param endsWithConnection the session is over when this request ends (WebSocket transport)
+     */
+    public Session acquire(String routeId, String sessionId, boolean endsWithConnection) {
+        List<Instance> pool = pool(routeId);
+        if (sessionId == null) {
+            Session session = new Session(null, leastLoaded(routeId, pool));
+            session.instance.sessions.incrementAndGet();
+            session.openRequests.incrementAndGet();
+            session.endsWithConnection = true;
+            return session;
+        }
+
+        Session session = sessions.compute(routeId + '|' + sessionId, (key, existing) -> {
+            Session bound = existing;
+            if (bound == null) {
+                bound = new Session(key, leastLoaded(routeId, pool));
+                bound.instance.sessions.incrementAndGet();
+            }
+            bound.openRequests.incrementAndGet();
+            bound.lastSeen = System.nanoTime();
+            return bound;
+        });
+        if (endsWithConnection) {
+            session.endsWithConnection = true;
+        }
+        return session;
+    }
+
+    public void release(Session session) {
+        session.lastSeen = System.nanoTime();
+        if (session.openRequests.decrementAndGet() > 0 || !session.endsWithConnection) {
+            return;
+        }
+        if (session.key == null) {
+            session.instance.sessions.decrementAndGet();
+            return;
+        }
+        sessions.computeIfPresent(session.key, (key, current) -> {
+            if (current != session || current.openRequests.get() > 0) {
+                return current;
+            }
+            current.instance.sessions.decrementAndGet();
+            return null;
+        });
+    }
+
+    @PreDestroy
+    void stop() {
+        sweeper.dispose();
+    }
+
+    private void sweep() {
+        long idleNanos = properties.getSessionIdleTimeout().toNanos();
+        long now = System.nanoTime();
+        for (String key : sessions.keySet()) {
+            sessions.computeIfPresent(key, (k, session) -> {
+                if (session.openRequests.get() > 0 || now - session.lastSeen < idleNanos) {
+                    return session;
+                }
+                session.instance.sessions.decrementAndGet();
+                return null;
+            });
+        }
+    }
+
+    private Instance leastLoaded(String routeId, List<Instance> pool) {
+        // Bắt đầu từ vị trí xoay vòng để các instance bằng nhau được chia đều
+        int start = Math.floorMod(cursors.computeIfAbsent(routeId, id -> new AtomicInteger()).getAndIncrement(), pool.size());
+        Instance best = pool.get(start);
+        for (int i = 1; i < pool.size(); i++) {
+            Instance candidate = pool.get((start + i) % pool.size());
+            if (candidate.sessions.get() < best.sessions.get()) {
+                best = candidate;
+            }
+        }
+        return best;
+    }
+
+    private List<Instance> pool(String routeId) {
+        return pools.computeIfAbsent(routeId, id -> properties.getRoutes().get(id).stream()
+                .map(uri -> {
+                    Instance instance = new Instance(uri);
+                    Gauge.builder("gateway.websocket.sessions", instance.sessions, AtomicInteger::get)
+                            .description("Live realtime sessions routed to the instance")
+                            .tag("route", id)
+                            .tag("instance", uri.toString())
+                            .register(meterRegistry);
+                    return instance;
+                })
+                .toList());
+    }
+}
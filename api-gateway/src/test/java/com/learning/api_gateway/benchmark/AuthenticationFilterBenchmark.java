@@ -0,0 +1,150 @@
+package com.learning.api_gateway.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.learning.api_gateway.config.AuthenticationFilter;
+import com.learning.api_gateway.repository.GatewayClient;
+import com.learning.api_gateway.service.GatewayService;
+import com.learning.api_gateway.service.IntrospectionBatcher;
+import com.learning.api_gateway.service.IntrospectionCache;
+import com.learning.api_gateway.service.IntrospectionSingleFlight;
+import com.learning.api_gateway.service.JwksKeySet;
+import com.learning.api_gateway.service.LocalTokenVerifier;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.MACSigner;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.support.WebClientAdapter;
+import org.springframework.web.service.invoker.HttpServiceProxyFactory;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * p50/p99 latency of {@link AuthenticationFilter} for an authenticated request,
+ * remote introspection (user-service stubbed on loopback), cached introspection
+ * and local verification.
+ *
+ * <pre>mvn -Pbenchmark test-compile exec:exec -Djmh.args="AuthenticationFilterBenchmark"</pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuthenticationFilterBenchmark {
+
+    static final String SIGNER_KEY = "benchmark-only-signer-key-that-is-long-enough-for-hs512-0123456789";
+    // Benchmark token HS512 ký lúc chạy: mốc chuyển khoá đặt ở tương lai để vẫn được chấp nhận
+    static final String LEGACY_ROTATED_AT = Instant.now().plus(1, ChronoUnit.DAYS).toString();
+    static final GatewayFilterChain CHAIN = exchange -> Mono.empty();
+
+    DisposableServer userService;
+    AuthenticationFilter remoteFilter;
+    AuthenticationFilter cachedFilter;
+    AuthenticationFilter localFilter;
+    String bearer;
+
+    @Setup
+    public void setUp() throws Exception {
+        ((Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+
+        userService = HttpServer.create()
+                .host("127.0.0.1")
+                .port(0)
+                .route(routes -> routes.post("/user-service/users/introspect", (request, response) -> response
+                        .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                        .sendString(Mono.just("{\"code\":1000,\"result\":{\"valid\":true}}"))))
+                .bindNow();
+
+        WebClient webClient = WebClient.builder()
+                .baseUrl("http://127.0.0.1:" + userService.port() + "/user-service")
+                .build();
+        GatewayClient gatewayClient = HttpServiceProxyFactory.builderFor(WebClientAdapter.create(webClient))
+                .build()
+                .createClient(GatewayClient.class);
+
+        JwksKeySet noJwks = new JwksKeySet("", Duration.ZERO);
+        LocalTokenVerifier remoteOnly = new LocalTokenVerifier(SIGNER_KEY, LEGACY_ROTATED_AT, 36000, false, false, noJwks);
+        IntrospectionBatcher unbatched = new IntrospectionBatcher(gatewayClient, false, "", 64, Duration.ofMillis(5),
+                false, new SimpleMeterRegistry());
+        remoteFilter = filter(new GatewayService(gatewayClient, remoteOnly, cache(false), singleFlight(), unbatched));
+        cachedFilter = filter(new GatewayService(gatewayClient, remoteOnly, cache(true), singleFlight(), unbatched));
+        localFilter = filter(new GatewayService(gatewayClient,
+                new LocalTokenVerifier(SIGNER_KEY, LEGACY_ROTATED_AT, 36000, true, false, noJwks),
+                cache(false), singleFlight(), unbatched));
+        bearer = "Bearer " + signToken();
+    }
+
+    @TearDown
+    public void tearDown() {
+        userService.disposeNow();
+    }
+
+    @Benchmark
+    public void remoteIntrospection() {
+        remoteFilter.filter(exchange(), CHAIN).block();
+    }
+
+    @Benchmark
+    public void cachedIntrospection() {
+        cachedFilter.filter(exchange(), CHAIN).block();
+    }
+
+    @Benchmark
+    public void localVerification() {
+        localFilter.filter(exchange(), CHAIN).block();
+    }
+
+    private MockServerWebExchange exchange() {
+        return MockServerWebExchange.from(MockServerHttpRequest
+                .get("/api/enrollment-service/enrolls/user/1")
+                .header(HttpHeaders.AUTHORIZATION, bearer));
+    }
+
+    private static AuthenticationFilter filter(GatewayService gatewayService) {
+        return new AuthenticationFilter(gatewayService, new ObjectMapper(), "/api");
+    }
+
+    private static IntrospectionCache cache(boolean enabled) {
+        return new IntrospectionCache(enabled, 10_000, Duration.ofMinutes(5), Duration.ofSeconds(5), new SimpleMeterRegistry());
+    }
+
+    private static IntrospectionSingleFlight singleFlight() {
+        return new IntrospectionSingleFlight(new SimpleMeterRegistry());
+    }
+
+    private static String signToken() throws Exception {
+        JWTClaimsSet claims = new JWTClaimsSet.Builder()
+                .subject("benchmark")
+                .issuer("devteria.com")
+                .issueTime(new Date())
+                .expirationTime(Date.from(Instant.now().plus(1, ChronoUnit.HOURS)))
+                .jwtID(UUID.randomUUID().toString())
+                .claim("scope", "ROLE_STUDENT")
+                .build();
+        SignedJWT signedJWT = new SignedJWT(new JWSHeader(JWSAlgorithm.HS512), claims);
+        signedJWT.sign(new MACSigner(SIGNER_KEY.getBytes(StandardCharsets.UTF_8)));
+        return signedJWT.serialize();
+    }
+}
@@ -0,0 +1,106 @@
+package com.learning.api_gateway.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.learning.api_gateway.config.AuthenticationFilter;
+import com.learning.api_gateway.repository.GatewayClient;
+import com.learning.api_gateway.service.GatewayService;
+import com.learning.api_gateway.service.IntrospectionBatcher;
+import com.learning.api_gateway.service.IntrospectionCache;
+import com.learning.api_gateway.service.IntrospectionSingleFlight;
+import com.learning.api_gateway.service.JwksKeySet;
+import com.learning.api_gateway.service.LocalTokenVerifier;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.MACSigner;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of {@link AuthenticationFilter} on representative paths once the token is
+ * decided locally. Add {@code -prof gc} to see bytes allocated per request.
+ *
+ * <pre>mvn -Pbenchmark test-compile exec:exec -Djmh.args="AuthenticationFilterHotPathBenchmark -prof gc"</pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuthenticationFilterHotPathBenchmark {
+
+    static final String API_PREFIX = "/api";
+    static final GatewayFilterChain CHAIN = exchange -> Mono.empty();
+
+    @Param({"public", "websocket", "authenticated", "missingToken", "invalidToken"})
+    String scenario;
+
+    AuthenticationFilter filter;
+    MockServerHttpRequest request;
+
+    @Setup
+    public void setUp() throws Exception {
+        ((Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+
+        // Every scenario here is decided before a remote call would be needed
+        GatewayClient unreachable = null;
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        GatewayService gatewayService = new GatewayService(unreachable,
+                new LocalTokenVerifier(AuthenticationFilterBenchmark.SIGNER_KEY,
+                        AuthenticationFilterBenchmark.LEGACY_ROTATED_AT, 36000, true, false,
+                        new JwksKeySet("", Duration.ZERO)),
+                new IntrospectionCache(false, 0, Duration.ZERO, Duration.ZERO, meterRegistry),
+                new IntrospectionSingleFlight(meterRegistry),
+                new IntrospectionBatcher(unreachable, false, "", 1, Duration.ZERO, false, meterRegistry));
+        filter = new AuthenticationFilter(gatewayService, new ObjectMapper(), API_PREFIX);
+
+        request = switch (scenario) {
+            case "public" -> MockServerHttpRequest.post("/api/user-service/users/login").build();
+            case "websocket" -> MockServerHttpRequest.get("/api/enrollment-service/ws/qa/101/abcd/websocket")
+                    .header(HttpHeaders.UPGRADE, "websocket")
+                    .build();
+            case "authenticated" -> MockServerHttpRequest.get("/api/enrollment-service/enrolls/user/1/progress")
+                    .header(HttpHeaders.AUTHORIZATION, "Bearer " + signToken())
+                    .build();
+            case "missingToken" -> MockServerHttpRequest.get("/api/content-service/contents/course/1").build();
+            case "invalidToken" -> MockServerHttpRequest.get("/api/notification-service/notifications/count")
+                    .header(HttpHeaders.AUTHORIZATION, "Bearer not.a.jwt")
+                    .build();
+            default -> throw new IllegalArgumentException(scenario);
+        };
+    }
+
+    @Benchmark
+    public void filter() {
+        filter.filter(MockServerWebExchange.from(request), CHAIN).block();
+    }
+
+    private static String signToken() throws Exception {
+        JWTClaimsSet claims = new JWTClaimsSet.Builder()
+                .subject("benchmark")
+                .issueTime(new Date())
+                .expirationTime(Date.from(Instant.now().plus(1, ChronoUnit.HOURS)))
+                .claim("scope", "ROLE_STUDENT")
+                .build();
+        SignedJWT signedJWT = new SignedJWT(new JWSHeader(JWSAlgorithm.HS512), claims);
+        signedJWT.sign(new MACSigner(AuthenticationFilterBenchmark.SIGNER_KEY.getBytes(StandardCharsets.UTF_8)));
+        return signedJWT.serialize();
+    }
+}
@@ -0,0 +1,68 @@
+package com.learning.api_gateway.benchmark;
+
+import com.learning.api_gateway.config.PublicPathMatcher;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link PublicPathMatcher} against the stream/startsWith loop AuthenticationFilter used before.
+ *
+ * <pre>mvn -Pbenchmark test-compile exec:exec -Djmh.args="PublicPathMatcherBenchmark -prof gc"</pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PublicPathMatcherBenchmark {
+
+    static final String API_PREFIX = "/api";
+    static final String[] PUBLIC_ENDPOINTS = {
+            "/user-service/users/login",
+            "/user-service/users/auth/**",
+            "/user-service/users/refresh",
+            "/user-service/users/create",
+            "/enrollment-service/ws/qa/**",
+            "/ws/qa/**",
+            "/user-service/users/oauth2/callback/google",
+    };
+
+    @Param({
+            "/api/user-service/users/login",
+            "/api/enrollment-service/ws/qa/101/abcd/websocket",
+            "/api/enrollment-service/enrolls/user/1/progress",
+            "/api/notification-service/notifications/count",
+    })
+    String path;
+
+    PublicPathMatcher publicPathMatcher;
+
+    @Setup
+    public void setUp() {
+        publicPathMatcher = new PublicPathMatcher(API_PREFIX, PUBLIC_ENDPOINTS);
+    }
+
+    @Benchmark
+    public boolean trie() {
+        return publicPathMatcher.matches(path);
+    }
+
+    @Benchmark
+    public boolean streamStartsWith() {
+        if (!path.startsWith(API_PREFIX)) {
+            return false;
+        }
+        String strippedPath = path.substring(API_PREFIX.length());
+        return Arrays.stream(PUBLIC_ENDPOINTS)
+                .anyMatch(publicEndpoint -> {
+                    if (publicEndpoint.endsWith("/**")) {
+                        String prefix = publicEndpoint.substring(0, publicEndpoint.length() - 3);
+                        return strippedPath.startsWith(prefix);
+                    }
+                    return strippedPath.startsWith(publicEndpoint);
+                });
+    }
+}
@@ -0,0 +1,64 @@
+package com.learning.api_gateway.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DeadlineFilterTest {
+
+    private final GatewayFilterChain hangingUpstream = exchange -> Mono.never();
+    private DeadlineProperties properties;
+    private DeadlineFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        properties = new DeadlineProperties();
+        properties.setDefaultBudget(Duration.ofMillis(50));
+        filter = new DeadlineFilter(properties, new SimpleMeterRegistry(), new ObjectMapper());
+    }
+
+    private static MockServerWebExchange request(Long deadline) {
+        MockServerHttpRequest.BaseBuilder<?> request = MockServerHttpRequest.get("/api/course-service/courses");
+        if (deadline != null) {
+            request.header("X-Request-Deadline", Long.toString(deadline));
+        }
+        return MockServerWebExchange.from(request);
+    }
+
+    @Test
+    void expiredCallerDeadlineIsMarkedAsCallers() {
+        MockServerWebExchange exchange = request(System.currentTimeMillis() - 1);
+        filter.filter(exchange, hangingUpstream).block();
+
+        assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.GATEWAY_TIMEOUT);
+        assertThat(exchange.getAttributes()).containsKey(DeadlineFilter.CALLER_DEADLINE_ATTR);
+    }
+
+    @Test
+    void shortCallerDeadlineTimeoutIsMarkedAsCallers() {
+        MockServerWebExchange exchange = request(System.currentTimeMillis() + 5);
+        filter.filter(exchange, hangingUpstream).block();
+
+        assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.GATEWAY_TIMEOUT);
+        assertThat(exchange.getAttributes()).containsKey(DeadlineFilter.CALLER_DEADLINE_ATTR);
+    }
+
+    @Test
+    void routeBudgetTimeoutCountsAgainstTheRoute() {
+        MockServerWebExchange exchange = request(System.currentTimeMillis() + 60_000);
+        filter.filter(exchange, hangingUpstream).block();
+
+        assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.GATEWAY_TIMEOUT);
+        assertThat(exchange.getAttributes()).doesNotContainKey(DeadlineFilter.CALLER_DEADLINE_ATTR);
+    }
+}
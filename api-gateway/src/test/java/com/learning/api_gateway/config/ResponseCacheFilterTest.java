@@ -0,0 +1,133 @@
+package com.learning.api_gateway.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.learning.api_gateway.service.ResponseCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResponseCacheFilterTest {
+
+    // app.api-prefix
+    private static final String API_PREFIX = "/api";
+    private static final String ROUTE = "course-service-graphql";
+    private static final String QUERY = "{\"query\":\"{ findAllCourses(page: 0) { id title } }\"}";
+    private static final byte[] UPSTREAM_BODY = "{\"data\":{\"findAllCourses\":[]}}".getBytes(StandardCharsets.UTF_8);
+
+    private ResponseCache responseCache;
+    private ResponseCacheFilter filter;
+    private final AtomicInteger upstreamCalls = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        newCache();
+    }
+
+    // Cache rỗng mới, như khi entry đã hết hạn / bị evict hoặc request vào instance gateway khác
+    private void newCache() {
+        ResponseCacheProperties.RouteCache routeCache = new ResponseCacheProperties.RouteCache();
+        routeCache.setGraphqlQueries(List.of("findAllCourses"));
+        ResponseCacheProperties properties = new ResponseCacheProperties();
+        properties.getRoutes().put(ROUTE, routeCache);
+        responseCache = new ResponseCache(properties, new SimpleMeterRegistry());
+        filter = new ResponseCacheFilter(responseCache, new ObjectMapper());
+    }
+
+    private final GatewayFilterChain upstream = exchange -> {
+        upstreamCalls.incrementAndGet();
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.OK);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        response.getHeaders().setContentLength(UPSTREAM_BODY.length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(UPSTREAM_BODY)));
+    };
+
+    private static MockServerWebExchange graphql(String body, String ifNoneMatch) {
+        MockServerHttpRequest.BodyBuilder request = MockServerHttpRequest.post(API_PREFIX + "/course-service/graphql")
+                .contentType(MediaType.APPLICATION_JSON);
+        if (body != null) {
+            request.contentLength(body.getBytes(StandardCharsets.UTF_8).length);
+        }
+        if (ifNoneMatch != null) {
+            request.ifNoneMatch(ifNoneMatch);
+        }
+        MockServerWebExchange exchange = MockServerWebExchange.from(request.body(body != null ? body : QUERY));
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, Route.async()
+                .id(ROUTE).uri(URI.create("http://localhost:8082")).predicate(e -> true).build());
+        return exchange;
+    }
+
+    private static String cacheKey(ServerWebExchange exchange) {
+        return exchange.getAttribute(ResponseCacheFilter.CACHE_KEY_ATTR);
+    }
+
+    @Test
+    void storesCacheableQueryWithEtag() {
+        MockServerWebExchange exchange = graphql(QUERY, null);
+        filter.filter(exchange, upstream).block();
+
+        ResponseCache.Entry entry = responseCache.get(ROUTE, cacheKey(exchange));
+        assertThat(entry).isNotNull();
+        assertThat(exchange.getResponse().getHeaders().getETag()).isEqualTo(entry.getEtag());
+        assertThat(exchange.getResponse().getBodyAsString().block()).isEqualTo(new String(UPSTREAM_BODY, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void missWhoseFreshEtagMatchesIfNoneMatchGets304() {
+        MockServerWebExchange first = graphql(QUERY, null);
+        filter.filter(first, upstream).block();
+        String etag = first.getResponse().getHeaders().getETag();
+
+        // Cache không còn entry: request đi tới upstream nhưng body y hệt bản client đang giữ
+        newCache();
+        MockServerWebExchange second = graphql(QUERY, etag);
+        filter.filter(second, upstream).block();
+
+        assertThat(upstreamCalls).hasValue(2);
+        assertThat(second.getResponse().getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(second.getResponse().getHeaders().getETag()).isEqualTo(etag);
+        assertThat(second.getResponse().getHeaders().containsKey(HttpHeaders.CONTENT_LENGTH)).isFalse();
+        assertThat(second.getResponse().getBodyAsString().block()).isEmpty();
+    }
+
+    @Test
+    void oversizedOrUnsizedBodyIsNotBuffered() {
+        String padding = " ".repeat(20 * 1024);
+        MockServerWebExchange oversized = graphql(QUERY.replace("{ findAllCourses", "{" + padding + "findAllCourses"), null);
+        filter.filter(oversized, upstream).block();
+        assertThat(cacheKey(oversized)).isNull();
+        assertThat(oversized.getAttributes()).doesNotContainKey(ServerWebExchangeUtils.CACHED_REQUEST_BODY_ATTR);
+
+        MockServerWebExchange chunked = graphql(null, null);
+        filter.filter(chunked, upstream).block();
+        assertThat(cacheKey(chunked)).isNull();
+        assertThat(upstreamCalls).hasValue(2);
+    }
+
+    @Test
+    void mutationIsNotCached() {
+        MockServerWebExchange exchange = graphql("{\"query\":\"mutation { deleteCourse(id: 1) }\"}", null);
+        filter.filter(exchange, upstream).block();
+
+        assertThat(cacheKey(exchange)).isNull();
+        assertThat(exchange.getResponse().getHeaders().getETag()).isNull();
+    }
+}
@@ -0,0 +1,70 @@
+package com.learning.api_gateway.service;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.MACSigner;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LocalTokenVerifierTest {
+
+    private static final String SIGNER_KEY = "test-only-signer-key-that-is-long-enough-for-hs512-0123456789abcdef";
+
+    private static LocalTokenVerifier verifier(String rotatedAt, long refreshableSeconds) {
+        return new LocalTokenVerifier(SIGNER_KEY, rotatedAt, refreshableSeconds, true, false,
+                new JwksKeySet("", Duration.ZERO));
+    }
+
+    private static String legacyToken(Instant issuedAt) throws Exception {
+        JWTClaimsSet claims = new JWTClaimsSet.Builder()
+                .subject("student01")
+                .issueTime(Date.from(issuedAt))
+                .expirationTime(Date.from(Instant.now().plus(1, ChronoUnit.HOURS)))
+                .build();
+        SignedJWT signedJWT = new SignedJWT(new JWSHeader(JWSAlgorithm.HS512), claims);
+        signedJWT.sign(new MACSigner(SIGNER_KEY.getBytes(StandardCharsets.UTF_8)));
+        return signedJWT.serialize();
+    }
+
+    @Test
+    void legacyTokenIssuedBeforeRotationIsAccepted() throws Exception {
+        Instant rotatedAt = Instant.now().minus(1, ChronoUnit.HOURS);
+
+        assertThat(verifier(rotatedAt.toString(), 36000).verify(legacyToken(rotatedAt.minusSeconds(60))))
+                .isEqualTo(LocalTokenVerifier.Verdict.VALID);
+    }
+
+    @Test
+    void legacyTokenIssuedAfterRotationIsRejected() throws Exception {
+        Instant rotatedAt = Instant.now().minus(1, ChronoUnit.HOURS);
+
+        assertThat(verifier(rotatedAt.toString(), 36000).verify(legacyToken(Instant.now())))
+                .isEqualTo(LocalTokenVerifier.Verdict.INVALID);
+    }
+
+    @Test
+    void legacySecretIsDroppedAfterRefreshableDuration() throws Exception {
+        Instant rotatedAt = Instant.now().minus(2, ChronoUnit.HOURS);
+        LocalTokenVerifier verifier = verifier(rotatedAt.toString(), 3600);
+
+        assertThat(verifier.verify(legacyToken(rotatedAt.minusSeconds(60)))).isEqualTo(LocalTokenVerifier.Verdict.INVALID);
+        assertThat(verifier.isEnabled()).isFalse();
+    }
+
+    @Test
+    void legacySecretWithoutRotationInstantIsNotUsed() throws Exception {
+        LocalTokenVerifier verifier = verifier("", 36000);
+
+        assertThat(verifier.isEnabled()).isFalse();
+        assertThat(verifier.verify(legacyToken(Instant.now()))).isEqualTo(LocalTokenVerifier.Verdict.UNDECIDED);
+    }
+}
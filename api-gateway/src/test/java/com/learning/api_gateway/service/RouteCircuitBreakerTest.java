@@ -0,0 +1,175 @@
+package com.learning.api_gateway.service;
+
+import com.learning.api_gateway.config.CircuitBreakerProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RouteCircuitBreakerTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(5);
+
+    private final AtomicLong clock = new AtomicLong();
+    private RouteCircuitBreaker breaker;
+
+    @BeforeEach
+    void setUp() {
+        CircuitBreakerProperties.Breaker config = new CircuitBreakerProperties.Breaker();
+        config.setWindow(Duration.ofSeconds(1));
+        config.setBuckets(2);
+        config.setMinRequests(4);
+        config.setErrorRateThreshold(0.5);
+        config.setOpenDuration(Duration.ofSeconds(10));
+        config.setHalfOpenPermits(2);
+        config.setHalfOpenTimeout(Duration.ofSeconds(30));
+        breaker = new RouteCircuitBreaker(config, clock::get);
+    }
+
+    @Test
+    void opensWhenErrorRateIsOverThreshold() {
+        for (int i = 0; i < 4; i++) {
+            assertThat(breaker.tryAcquire()).isTrue();
+            breaker.onResult(FAST, i % 2 == 0);
+        }
+        advance(Duration.ofMillis(500));
+
+        assertThat(breaker.tryAcquire()).isFalse();
+        assertThat(breaker.getState()).isEqualTo(RouteCircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void staysClosedBelowMinRequests() {
+        for (int i = 0; i < 3; i++) {
+            breaker.tryAcquire();
+            breaker.onResult(FAST, true);
+        }
+        advance(Duration.ofMillis(500));
+
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(breaker.getState()).isEqualTo(RouteCircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void closesAfterSuccessfulHalfOpenTrials() {
+        trip();
+        advance(Duration.ofSeconds(10));
+
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(breaker.tryAcquire()).isFalse();
+        assertThat(breaker.getState()).isEqualTo(RouteCircuitBreaker.State.HALF_OPEN);
+
+        breaker.onResult(FAST, false);
+        breaker.onResult(FAST, false);
+
+        assertThat(breaker.getState()).isEqualTo(RouteCircuitBreaker.State.CLOSED);
+        assertThat(breaker.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void reopensWhenHalfOpenTrialFails() {
+        trip();
+        advance(Duration.ofSeconds(10));
+        assertThat(breaker.tryAcquire()).isTrue();
+
+        breaker.onResult(FAST, true);
+
+        assertThat(breaker.getState()).isEqualTo(RouteCircuitBreaker.State.OPEN);
+        assertThat(breaker.tryAcquire()).isFalse();
+        advance(Duration.ofSeconds(10));
+        assertThat(breaker.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void cancelledTrialReturnsItsPermit() {
+        trip();
+        advance(Duration.ofSeconds(10));
+        RouteCircuitBreaker.Admission first = breaker.admit();
+        RouteCircuitBreaker.Admission second = breaker.admit();
+        assertThat(first.admitted()).isTrue();
+        assertThat(second.admitted()).isTrue();
+        // Bị từ chối nhiều lần không được làm permit âm
+        for (int i = 0; i < 5; i++) {
+            assertThat(breaker.tryAcquire()).isFalse();
+        }
+
+        breaker.onCancel(first);
+        breaker.onCancel(second);
+
+        assertThat(breaker.tryAcquire()).isTrue();
+        breaker.onResult(FAST, false);
+        assertThat(breaker.tryAcquire()).isTrue();
+        breaker.onResult(FAST, false);
+        assertThat(breaker.getState()).isEqualTo(RouteCircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void cancelOfRequestWithoutTrialPermitReturnsNothing() {
+        RouteCircuitBreaker.Admission closed = breaker.admit();
+        trip();
+        advance(Duration.ofSeconds(10));
+        RouteCircuitBreaker.Admission staleTrial = breaker.admit();
+        breaker.onResult(FAST, true);
+        advance(Duration.ofSeconds(10));
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(breaker.tryAcquire()).isTrue();
+
+        // Request vào lúc CLOSED và permit của đợt half-open trước không được thêm permit cho đợt này
+        breaker.onCancel(closed);
+        breaker.onCancel(staleTrial);
+
+        assertThat(breaker.tryAcquire()).isFalse();
+    }
+
+    @Test
+    void idleGapClearsTheWholeWindow() {
+        for (int i = 0; i < 3; i++) {
+            breaker.tryAcquire();
+            breaker.onResult(FAST, true);
+        }
+        // Rảnh lâu hơn cả window: 3 lỗi cũ không được cộng với lỗi mới
+        advance(Duration.ofMinutes(5));
+        breaker.tryAcquire();
+        breaker.onResult(FAST, true);
+        advance(Duration.ofMillis(500));
+
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(breaker.getState()).isEqualTo(RouteCircuitBreaker.State.CLOSED);
+        assertThat(breaker.getErrorRate()).isEqualTo(1.0);
+    }
+
+    @Test
+    void halfOpenTimesOutBackToOpen() {
+        trip();
+        advance(Duration.ofSeconds(10));
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(breaker.tryAcquire()).isTrue();
+
+        // Hai request thử không bao giờ báo kết quả
+        advance(Duration.ofSeconds(30));
+        assertThat(breaker.tryAcquire()).isFalse();
+        assertThat(breaker.getState()).isEqualTo(RouteCircuitBreaker.State.OPEN);
+
+        advance(Duration.ofSeconds(10));
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(breaker.getState()).isEqualTo(RouteCircuitBreaker.State.HALF_OPEN);
+    }
+
+    private void trip() {
+        for (int i = 0; i < 4; i++) {
+            breaker.tryAcquire();
+            breaker.onResult(FAST, true);
+        }
+        advance(Duration.ofMillis(500));
+        assertThat(breaker.tryAcquire()).isFalse();
+    }
+
+    private void advance(Duration duration) {
+        clock.addAndGet(duration.toNanos());
+    }
+}
@@ -1,4 +1,5 @@
 package com.learning.content_service.client;
+import com.learning.content_service.config.RequestDeadline;
 import feign.RequestInterceptor;
 import feign.RequestTemplate;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -14,5 +15,14 @@ public class FeignClientInterceptor implements RequestInterceptor {
                 SecurityContextHolder.getContext().getAuthentication().getPrincipal() instanceof Jwt jwt) {
             template.header("Authorization", "Bearer " + jwt.getTokenValue());
         }
+
+        // Client đã bỏ đi thì không gọi course-service nữa
+        RequestDeadline.check();
+        Long deadline = RequestDeadline.get();
+        if (deadline != null) {
+            // Interceptor có thể được đăng ký nhiều lần cho cùng client, header chỉ được có một giá trị
+            template.removeHeader(RequestDeadline.HEADER);
+            template.header(RequestDeadline.HEADER, deadline.toString());
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,98 @@
+package com.learning.content_service.config;
+
+import com.learning.content_service.exception.AppException;
+import com.learning.content_service.exception.ErrorCode;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Deadline of the request being handled, as set by the gateway in the {@value #HEADER}
+ * header (epoch millis). Bound to the servlet thread by {@link RequestDeadlineFilter};
+ * the pipelines built on that thread capture it with {@link #within(Mono)} /
+ * {@link #bind(Callable)} so Mongo queries and Feign calls running on other schedulers
+ * still stop at the deadline. Without the header there is no deadline.
+ */
+public final class RequestDeadline {
+
+    public static final String HEADER = "X-Request-Deadline";
+
+    private static final ThreadLocal<Long> DEADLINE = new ThreadLocal<>();
+
+    private RequestDeadline() {
+    }
+
+    static void set(Long deadline) {
+        DEADLINE.set(deadline);
+    }
+
+    static void clear() {
+        DEADLINE.remove();
+    }
+
+    /**
+     * @return the deadline in epoch millis, null if the request has none
+     */
+    public static Long get() {
+        return DEADLINE.get();
+    }
+
+    public static void check() {
+        Long deadline = DEADLINE.get();
+        if (deadline != null && deadline <= System.currentTimeMillis()) {
+            throw new AppException(ErrorCode.DEADLINE_EXCEEDED);
+        }
+    }
+
+    /**
+     * Cancels the query when the current request's deadline passes. Must be called on
+     * the request thread, where the deadline is bound.
+     */
+    public static <T> Mono<T> within(Mono<T> mono) {
+        Long deadline = DEADLINE.get();
+        if (deadline == null) {
+            return mono;
+        }
+        return Mono.defer(() -> {
+            long remaining = deadline - System.currentTimeMillis();
+            return remaining <= 0
+                    ? Mono.<T>error(new AppException(ErrorCode.DEADLINE_EXCEEDED))
+                    : mono.timeout(Duration.ofMillis(remaining)).onErrorMap(TimeoutException.class, RequestDeadline::exceeded);
+        });
+    }
+
+    /**
+     * Carries the current deadline to the thread that runs the callable (boundedElastic),
+     * so {@link #check()} and the Feign interceptor see it there.
+     */
+    public static <T> Callable<T> bind(Callable<T> callable) {
+        Long deadline = DEADLINE.get();
+        return () -> {
+            Long previous = DEADLINE.get();
+            DEADLINE.set(deadline);
+            try {
+                check();
+                return callable.call();
+            } finally {
+                DEADLINE.set(previous);
+            }
+        };
+    }
+
+    private static Throwable exceeded(TimeoutException e) {
+        return new AppException(ErrorCode.DEADLINE_EXCEEDED);
+    }
+
+    static Long parse(String header) {
+        if (header == null || header.isBlank()) {
+            return null;
+        }
+        try {
+            return Long.parseLong(header.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.learning.content_service.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.learning.content_service.dto.ApiResponse;
+import com.learning.content_service.exception.ErrorCode;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Binds the {@link RequestDeadline#HEADER} of the request to the handling thread and
+ * answers 504 right away if the deadline has already passed (request sat in a queue).
+ * Deadlines that pass later surface as {@code DEADLINE_EXCEEDED} through {@link com.learning.content_service.exception.AppExceptionHandler}.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class RequestDeadlineFilter extends OncePerRequestFilter {
+
+    private final ObjectMapper objectMapper;
+
+    public RequestDeadlineFilter(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Long deadline = RequestDeadline.parse(request.getHeader(RequestDeadline.HEADER));
+        if (deadline == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        if (deadline <= System.currentTimeMillis()) {
+            ErrorCode errorCode = ErrorCode.DEADLINE_EXCEEDED;
+            response.setStatus(errorCode.getStatusCode().value());
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getWriter().write(objectMapper.writeValueAsString(ApiResponse.builder()
+                    .code(errorCode.getCode())
+                    .message(errorCode.getMessage())
+                    .build()));
+            return;
+        }
+
+        RequestDeadline.set(deadline);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            RequestDeadline.clear();
+        }
+    }
+}
@@ -1,9 +1,11 @@
 package com.learning.content_service.controller;
 
+import com.learning.content_service.config.RequestDeadline;
 import com.learning.content_service.dto.BulkOperationResponse;
 import com.learning.content_service.dto.ContentResponse;
 import com.learning.content_service.dto.CreateContentRequest;
 import com.learning.content_service.entity.Content;
+import com.learning.content_service.exception.AppException;
 import com.learning.content_service.service.ContentService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -88,7 +90,8 @@ public class ContentController {
                             .status(HttpStatus.BAD_REQUEST)
                             .body(new OperationResponse(false, null, error.getMessage(), HttpStatus.BAD_REQUEST)));
                 })
-                .onErrorResume(Exception.class, error -> {
+                // AppException (DEADLINE_EXCEEDED) đi tiếp tới AppExceptionHandler → 504
+                .onErrorResume(error -> !(error instanceof AppException), error -> {
                     log.error("Server error: {}", error.getMessage(), error);
                     return Mono.just(ResponseEntity
                             .status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -132,7 +135,7 @@ public class ContentController {
                 .doOnNext(id -> log.info("Fetching content with id = {}", id))
                 .flatMap(contentService::getContentById)
                 .map(content -> ResponseEntity.ok(mapToResponse(content)))
-                .onErrorResume(error -> {
+                .onErrorResume(error -> !(error instanceof AppException), error -> {
                     log.warn("Content not found with id = {}", contentId);
                     return Mono.just(ResponseEntity
                             .status(HttpStatus.NOT_FOUND)
@@ -209,13 +212,13 @@ public class ContentController {
             return Mono.just(ResponseEntity.badRequest().body(List.of()));
         }
 
-        return contentService.getContentsByCourseId(courseId)
-                .collectList()
+        // Mongo query bị huỷ khi quá X-Request-Deadline
+        return RequestDeadline.within(contentService.getContentsByCourseId(courseId).collectList())
                 .map(ResponseEntity::ok)
                 .switchIfEmpty(Mono.just(ResponseEntity.ok(List.of())))  // Empty -> empty list
                 .doOnSuccess(response -> log.info("Controller: Fetched {} contents for courseId={}",
                         response.getBody().size(), courseId))
-                .onErrorResume(error -> {
+                .onErrorResume(error -> !(error instanceof AppException), error -> {
                     log.error("Controller: Error fetching contents for courseId={}: {}", courseId, error.getMessage(), error);
                     return Mono.just(ResponseEntity
                             .status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -5,6 +5,7 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.learning.content_service.client.CourseClient;
+import com.learning.content_service.config.RequestDeadline;
 import com.learning.content_service.dto.ContentResponse;
 import com.learning.content_service.dto.CreateContentRequest;
 import com.learning.content_service.entity.Content;
@@ -66,7 +67,7 @@ public class ContentService {
                 .flatMap(token -> {
                     log.info("Service: Using token: {}...", token.substring(0, Math.min(10, token.length())));
 
-                    return Mono.fromCallable(() -> courseClient.getCourseById(Long.valueOf(request.getCourseId())))
+                    return Mono.fromCallable(RequestDeadline.bind(() -> courseClient.getCourseById(Long.valueOf(request.getCourseId()))))
                             .subscribeOn(Schedulers.boundedElastic())
                             .doOnSuccess(course -> log.info("Service: Course fetch: {}", course != null ? "found" : "NULL"))
                             .flatMap(course -> {
@@ -215,7 +216,7 @@ public class ContentService {
     public Mono<Content> getContentById(String contentId) {
         log.info("Fetching content with id = {}", contentId);
 
-        return contentRepository.findById(contentId)
+        return RequestDeadline.within(contentRepository.findById(contentId))
                 .switchIfEmpty(Mono.error(new IllegalArgumentException("Content không tồn tại")))
                 .doOnError(e -> log.error("Error fetching content: {}", e.getMessage()));
     }
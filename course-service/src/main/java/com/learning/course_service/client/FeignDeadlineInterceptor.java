@@ -0,0 +1,22 @@
+package com.learning.course_service.client;
+
+import com.learning.course_service.config.RequestDeadline;
+import feign.RequestInterceptor;
+import feign.RequestTemplate;
+import org.springframework.stereotype.Component;
+
+@Component
+public class FeignDeadlineInterceptor implements RequestInterceptor {
+
+    @Override
+    public void apply(RequestTemplate template) {
+        // Client đã bỏ đi thì không gọi user-service nữa
+        RequestDeadline.check();
+        Long deadline = RequestDeadline.get();
+        if (deadline != null) {
+            // Interceptor có thể được đăng ký nhiều lần cho cùng client, header chỉ được có một giá trị
+            template.removeHeader(RequestDeadline.HEADER);
+            template.header(RequestDeadline.HEADER, deadline.toString());
+        }
+    }
+}
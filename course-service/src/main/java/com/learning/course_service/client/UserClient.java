@@ -21,7 +21,7 @@ public interface UserClient {
         Map<String, Object> request = Map.of(
                 "query", """
                 query GetUser($id: ID!) {
-                    getUserById(id: $id) { id username email role }
+                    getUserById(id: $id) { id username name email role }
                 }
                 """,
                 "variables", variables
@@ -49,6 +49,7 @@ public interface UserClient {
         UserDTO user = new UserDTO();
         user.setId(Long.valueOf((String) userMap.get("id")));
         user.setUsername((String) userMap.get("username"));
+        user.setName((String) userMap.get("name"));
         user.setEmail((String) userMap.get("email"));
         user.setRole((String) userMap.get("role"));
         return user;
@@ -0,0 +1,98 @@
+package com.learning.course_service.client;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.learning.course_service.config.UserProfileCacheProperties;
+import com.learning.course_service.dto.UserDTO;
+import com.learning.course_service.dto.UserUpdatedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Near cache cho profile user lấy từ user-service, bị xoá theo event user-updated thay vì TTL.
+ * Mỗi instance có consumer group riêng, cố định theo instance-id (đọc từ latest) để nhận đủ event; xem thêm bản cùng tên ở enrollment-service.
+ */
+@Slf4j
+@Component
+public class UserProfileCache {
+
+    private final UserClient userClient;
+    private final String applicationName;
+    private final Cache<Long, UserDTO> cache;
+    private final LongAdder invalidations = new LongAdder();
+
+    public UserProfileCache(UserClient userClient, UserProfileCacheProperties properties,
+                            @Value("${spring.application.name}") String applicationName,
+                            MeterRegistry meterRegistry) {
+        this.userClient = userClient;
+        this.applicationName = applicationName;
+        if (properties.getMaxSize() <= 0) {
+            this.cache = null;
+            return;
+        }
+        Caffeine<Object, Object> builder = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxSize())
+                .recordStats();
+        if (properties.getExpireAfterWrite() != null && !properties.getExpireAfterWrite().isZero()) {
+            builder.expireAfterWrite(properties.getExpireAfterWrite());
+        }
+        this.cache = builder.build();
+        CaffeineCacheMetrics.monitor(meterRegistry, this.cache, "user-profile-cache");
+    }
+
+    /**
+     * Null nếu user không tồn tại (kết quả null không được cache).
+     */
+    public UserDTO get(Long userId, String token) {
+        if (userId == null) {
+            return null;
+        }
+        if (cache == null) {
+            return userClient.getUserById(userId, token);
+        }
+        return cache.get(userId, id -> userClient.getUserById(id, token));
+    }
+
+    @KafkaListener(
+            topics = "${app.user-profile-cache.topic:user-updated}",
+            groupId = "${spring.application.name}-user-profile-cache-${app.user-profile-cache.instance-id}",
+            properties = "auto.offset.reset=latest")
+    public void onUserUpdated(UserUpdatedEvent event) {
+        if (event == null || event.getId() == null) {
+            return;
+        }
+        invalidate(event.getId());
+    }
+
+    public void invalidate(Long userId) {
+        if (cache != null) {
+            cache.invalidate(userId);
+            invalidations.increment();
+        }
+    }
+
+    public CacheStats stats() {
+        return cache != null ? cache.stats() : CacheStats.empty();
+    }
+
+    @Scheduled(fixedDelayString = "#{@userProfileCacheProperties.statsInterval.toMillis()}",
+            initialDelayString = "#{@userProfileCacheProperties.statsInterval.toMillis()}")
+    public void logStats() {
+        if (cache == null) {
+            return;
+        }
+        CacheStats stats = cache.stats();
+        log.info("user-profile-cache[{}] size={} hits={} misses={} hitRate={} loads={} loadFailures={} evictions={} invalidations={}",
+                applicationName, cache.estimatedSize(), stats.hitCount(), stats.missCount(),
+                String.format("%.3f", stats.hitRate()), stats.loadCount(), stats.loadFailureCount(),
+                stats.evictionCount(), invalidations.sum());
+    }
+}
@@ -0,0 +1,60 @@
+package com.learning.course_service.config;
+
+import com.learning.course_service.exception.AppException;
+import com.learning.course_service.exception.ErrorCode;
+
+/**
+ * Deadline of the request being handled on this thread, as set by the gateway in the
+ * {@value #HEADER} header (epoch millis). Used to skip the user-service calls once the
+ * caller has given up. Without the header there is no deadline.
+ */
+public final class RequestDeadline {
+
+    public static final String HEADER = "X-Request-Deadline";
+
+    private static final ThreadLocal<Long> DEADLINE = new ThreadLocal<>();
+
+    private RequestDeadline() {
+    }
+
+    static void set(Long deadline) {
+        DEADLINE.set(deadline);
+    }
+
+    static void clear() {
+        DEADLINE.remove();
+    }
+
+    /**
+     * @return the deadline in epoch millis, null if the request has none
+     */
+    public static Long get() {
+        return DEADLINE.get();
+    }
+
+    public static long remainingMillis() {
+        Long deadline = DEADLINE.get();
+        return deadline == null ? Long.MAX_VALUE : deadline - System.currentTimeMillis();
+    }
+
+    public static boolean isExpired() {
+        return remainingMillis() <= 0;
+    }
+
+    public static void check() {
+        if (isExpired()) {
+            throw new AppException(ErrorCode.DEADLINE_EXCEEDED);
+        }
+    }
+
+    static Long parse(String header) {
+        if (header == null || header.isBlank()) {
+            return null;
+        }
+        try {
+            return Long.parseLong(header.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.learning.course_service.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.user-profile-cache")
+public class UserProfileCacheProperties {
+    // Số profile tối đa giữ trong bộ nhớ, <= 0 thì tắt cache
+    private long maxSize = 10_000;
+    // Entry bị xoá khi nhận user-updated; TTL này chỉ để không giữ profile cũ mãi nếu lỡ event
+    private Duration expireAfterWrite = Duration.ofHours(6);
+    private Duration statsInterval = Duration.ofMinutes(5);
+    private String topic = "user-updated";
+    // Hậu tố consumer group, cố định theo instance (hostname/pod) để restart không tạo group mới
+    private String instanceId = "local";
+}
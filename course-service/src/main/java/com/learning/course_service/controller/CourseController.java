@@ -3,6 +3,7 @@ package com.learning.course_service.controller;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.learning.course_service.dto.CreateCourseRequest;
 import com.learning.course_service.entity.Course;
+import com.learning.course_service.exception.AppException;
 import com.learning.course_service.service.CloudinaryService;
 import com.learning.course_service.service.CourseService;
 import lombok.RequiredArgsConstructor;
@@ -30,6 +31,8 @@ public class CourseController {
             Course created = courseService.createCourse(request, thumbnail);
             return ResponseEntity.ok(created);
 
+        } catch (AppException e) {
+            throw e;
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.badRequest().body("Lỗi tạo khóa học: " + e.getMessage());
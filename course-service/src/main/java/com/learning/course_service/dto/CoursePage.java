@@ -15,7 +15,11 @@ import java.util.Optional;
 @FieldDefaults(level = AccessLevel.PRIVATE)
 public class CoursePage {
     private List<Course> content;
-    private long totalElements;
-    private int totalPages;
+    // Gần đúng (xem PageCountCache), null khi gọi với withTotal=false
+    private Long totalElements;
+    private Integer totalPages;
     private int currentPage;
+    // Truyền lại làm after để lấy trang kế; null khi hết dữ liệu
+    private String nextCursor;
+    private boolean hasNext;
 }
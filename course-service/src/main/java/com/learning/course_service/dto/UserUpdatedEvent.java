@@ -0,0 +1,20 @@
+package com.learning.course_service.dto;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class UserUpdatedEvent {
+    Long id;
+    String name;
+    String username;
+    String avatarUrl;
+    String role;
+    LocalDateTime updatedAt;
+}
@@ -21,8 +21,10 @@ public class CourseGraphQLController {
     private CourseService courseService;
 
     @QueryMapping
-    public CoursePage findAllCourses(@Argument Integer page, @Argument Integer size) {
-        return courseService.findAllCourses(page != null ? page : 0, size != null ? size : 5);
+    public CoursePage findAllCourses(@Argument Integer page, @Argument Integer size,
+                                     @Argument String after, @Argument Boolean withTotal) {
+        return courseService.findAllCourses(page != null ? page : 0, size != null ? size : 5, after,
+                withTotal == null || withTotal);
     }
 
 
@@ -37,9 +39,11 @@ public class CourseGraphQLController {
                                     @Argument String category,
                                     @Argument Integer page,
                                     @Argument Integer size,
+                                    @Argument String after,
+                                    @Argument Boolean withTotal,
                                     DataFetchingEnvironment env) {
         page = (page != null) ? page : 0;
         size = (size != null) ? size : 10;
-        return courseService.searchCourses(title, category, page, size);
+        return courseService.searchCourses(title, category, page, size, after, withTotal == null || withTotal);
     }
 }
\ No newline at end of file
@@ -1,13 +1,14 @@
 package com.learning.course_service.repository;
 
 import com.learning.course_service.entity.Course;
-import feign.Param;
-import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
@@ -15,13 +16,27 @@ public interface CourseRepository extends JpaRepository<Course, Long> {
 
     List<Course> findByInstructorId(Long instructorId);
     List<Course> findByTitleContainingIgnoreCase(String title);
-    @Query(value = "SELECT c FROM Course c WHERE " +
-            "(:title IS NULL OR LOWER(c.title) LIKE LOWER(CONCAT('%', :title, '%'))) AND " +
-            "(:category IS NULL OR LOWER(c.category) LIKE LOWER(CONCAT('%', :category, '%')))",
-            countQuery = "SELECT COUNT(c) FROM Course c WHERE " +
-                    "(:title IS NULL OR LOWER(c.title) LIKE LOWER(CONCAT('%', :title, '%'))) AND " +
-                    "(:category IS NULL OR LOWER(c.category) LIKE LOWER(CONCAT('%', :category, '%')))")
-    Page<Course> searchCourses(@Param("title") String title,
-                               @Param("category") String category,
-                               Pageable pageable);
+    // Danh sách khoá học (tuỳ chọn lọc theo tiêu đề và danh mục), mới nhất trước. Ba query dùng chung một điều kiện
+    // lọc; null nghĩa là không lọc. Slice lấy size + 1 dòng để biết còn trang sau, không kèm COUNT(*)
+    String COURSE_FILTER = "(:title IS NULL OR LOWER(c.title) LIKE LOWER(CONCAT('%', :title, '%'))) " +
+            "AND (:category IS NULL OR LOWER(c.category) LIKE LOWER(CONCAT('%', :category, '%')))";
+
+    // Trang đầu (hoặc trang theo số khi client chưa dùng cursor)
+    @Query("SELECT c FROM Course c WHERE " + COURSE_FILTER + " ORDER BY c.createdAt DESC, c.id DESC")
+    Slice<Course> searchCourses(@Param("title") String title,
+                                @Param("category") String category,
+                                Pageable pageable);
+
+    // Trang sau cursor (createdAt, id): seek trên idx_courses_created_at_id thay cho OFFSET
+    @Query("SELECT c FROM Course c WHERE " + COURSE_FILTER +
+            " AND (c.createdAt < :createdAt OR (c.createdAt = :createdAt AND c.id < :id))" +
+            " ORDER BY c.createdAt DESC, c.id DESC")
+    Slice<Course> searchCoursesBefore(@Param("title") String title,
+                                      @Param("category") String category,
+                                      @Param("createdAt") LocalDateTime createdAt,
+                                      @Param("id") Long id,
+                                      Pageable pageable);
+
+    @Query("SELECT COUNT(c) FROM Course c WHERE " + COURSE_FILTER)
+    long countCourses(@Param("title") String title, @Param("category") String category);
 }
@@ -1,20 +1,21 @@
 package com.learning.course_service.service;
 
-import com.learning.course_service.client.UserClient;
+import com.learning.course_service.client.UserProfileCache;
 import com.learning.course_service.dto.CoursePage;
 import com.learning.course_service.dto.CreateCourseRequest;
+import com.learning.course_service.dto.PageCursor;
 import com.learning.course_service.dto.UserDTO;
+import com.learning.course_service.dto.UserUpdatedEvent;
 import com.learning.course_service.entity.Course;
 import com.learning.course_service.entity.Instructor;
+import com.learning.course_service.exception.AppException;
 import com.learning.course_service.repository.CourseRepository;
 import com.learning.course_service.repository.InstructorRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cache.annotation.Cacheable;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Slice;
+import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Service;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
@@ -30,9 +31,10 @@ import java.util.List;
 public class CourseService {
 
     private final CourseRepository courseRepository;
-    private final UserClient userClient;
+    private final UserProfileCache userProfileCache;
     private final InstructorRepository instructorRepository;
     private final CloudinaryService cloudinaryService;
+    private final PageCountCache pageCountCache;
 
     private String getTokenFromContext() {
         ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
@@ -61,7 +63,7 @@ public class CourseService {
 
             String token = getTokenFromContext();
 
-            UserDTO userDTO = userClient.getUserById(request.getInstructorId(), token);
+            UserDTO userDTO = userProfileCache.get(request.getInstructorId(), token);
             if (userDTO == null) {
                 throw new IllegalArgumentException("Instructor không tồn tại");
             }
@@ -106,6 +108,9 @@ public class CourseService {
 
         } catch (feign.FeignException.Unauthorized e) {
             throw new IllegalArgumentException("Unauthorized: Token không hợp lệ hoặc hết hạn. Vui lòng đăng nhập lại.");
+        } catch (AppException e) {
+            // DEADLINE_EXCEEDED: để AppExceptionHandler trả 504
+            throw e;
         } catch (RuntimeException e) {
             if (e.getMessage().contains("GraphQL error") || e.getMessage().contains("ClassCastException")) {
                 throw new IllegalArgumentException("Lỗi gọi user-service: " + e.getMessage());
@@ -118,26 +123,35 @@ public class CourseService {
         }
     }
 
-    @Cacheable(value = "courses", key = "#page + ':' + #size")
-
-    public CoursePage findAllCourses(int page, int size) {
-        Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
-        Page<Course> coursePage = courseRepository.findAll(pageable);
-        List<Course> content = coursePage.getContent().stream()
-                .peek(this::populateInstructor)
-                .toList();
-
-        CoursePage dto = new CoursePage();
-        dto.setContent(content);
-        dto.setTotalElements(coursePage.getTotalElements());
-        dto.setTotalPages(coursePage.getTotalPages());
-        dto.setCurrentPage(coursePage.getNumber());
-        return dto;
+    public CoursePage findAllCourses(int page, int size, String after, boolean withTotal) {
+        return listCourses(null, null, page, size, after, withTotal);
     }
 
-    @Cacheable(value = "userDTOs", key = "#instructorId")
     public UserDTO getCachedUserDTO(Long instructorId, String token) {
-        return userClient.getUserById(instructorId, token);
+        return userProfileCache.get(instructorId, token);
+    }
+
+    // Bảng instructors giữ bản sao username/fullName; group dùng chung nên chỉ một instance ghi DB cho mỗi event
+    @KafkaListener(topics = "${app.user-profile-cache.topic:user-updated}", groupId = "course-service-instructor-sync")
+    public void syncInstructorProfile(UserUpdatedEvent event) {
+        if (event == null || event.getId() == null) {
+            return;
+        }
+        instructorRepository.findByUserId(event.getId()).ifPresent(instructor -> {
+            boolean changed = false;
+            if (event.getUsername() != null && !event.getUsername().equals(instructor.getUsername())) {
+                instructor.setUsername(event.getUsername());
+                changed = true;
+            }
+            if (event.getName() != null && !event.getName().equals(instructor.getFullName())) {
+                instructor.setFullName(event.getName());
+                changed = true;
+            }
+            if (changed) {
+                instructorRepository.save(instructor);
+                log.info("Synced instructor profile for user {}", event.getId());
+            }
+        });
     }
 
     private void populateInstructor(Course course) {
@@ -175,19 +189,36 @@ public class CourseService {
         return courseRepository.findByInstructorId(instructorId);
     }
 
-    @Cacheable(value = "searchCourses", key = "#title + ':' + #category + ':' + #page + ':' + #size")
-    public CoursePage searchCourses(String title, String category, int page, int size) {
-        Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
-        Page<Course> coursePage = courseRepository.searchCourses(title, category, pageable);
-        List<Course> content = coursePage.getContent().stream()
+    public CoursePage searchCourses(String title, String category, int page, int size, String after, boolean withTotal) {
+        return listCourses(title, category, page, size, after, withTotal);
+    }
+
+    // created_at DESC, id DESC (id phụ để thứ tự không đổi giữa các trang khi nhiều khoá học cùng created_at,
+    // sắp trong JPQL của repository). Có after thì seek theo (created_at, id) thay cho OFFSET, không có thì dùng page;
+    // tổng số chỉ tính khi được yêu cầu và lấy từ PageCountCache
+    private CoursePage listCourses(String title, String category, int page, int size, String after, boolean withTotal) {
+        PageCursor cursor = PageCursor.decode(after);
+        Slice<Course> slice = cursor != null
+                ? courseRepository.searchCoursesBefore(title, category, cursor.createdAt(), cursor.id(),
+                        PageRequest.of(0, size))
+                : courseRepository.searchCourses(title, category, PageRequest.of(page, size));
+        List<Course> content = slice.getContent().stream()
                 .peek(this::populateInstructor)  // Populate UserDTO cho instructor
                 .toList();
 
         CoursePage dto = new CoursePage();
         dto.setContent(content);
-        dto.setTotalElements(coursePage.getTotalElements());
-        dto.setTotalPages(coursePage.getTotalPages());
-        dto.setCurrentPage(coursePage.getNumber());
+        dto.setCurrentPage(page);
+        dto.setHasNext(slice.hasNext());
+        if (slice.hasNext()) {
+            dto.setNextCursor(PageCursor.after(content.get(content.size() - 1)).encode());
+        }
+        if (withTotal) {
+            String key = (title != null ? title.toLowerCase() : "") + ":" + (category != null ? category.toLowerCase() : "");
+            long total = pageCountCache.count(key, () -> courseRepository.countCourses(title, category));
+            dto.setTotalElements(total);
+            dto.setTotalPages((int) ((total + size - 1) / size));
+        }
         return dto;
     }
 }
\ No newline at end of file
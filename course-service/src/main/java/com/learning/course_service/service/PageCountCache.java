@@ -0,0 +1,29 @@
+package com.learning.course_service.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.learning.course_service.config.PaginationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+
+/**
+ * Tổng số bản ghi cho phân trang, dùng lại trong count-ttl thay vì chạy COUNT(*) cho mỗi trang.
+ * Số trả về có thể lệch với dữ liệu mới ghi trong khoảng đó.
+ */
+@Component
+public class PageCountCache {
+
+    private final Cache<String, Long> counts;
+
+    public PageCountCache(PaginationProperties properties) {
+        this.counts = Caffeine.newBuilder()
+                .maximumSize(properties.getCountCacheSize())
+                .expireAfterWrite(properties.getCountTtl())
+                .build();
+    }
+
+    public long count(String key, Supplier<Long> counter) {
+        return counts.get(key, ignored -> counter.get());
+    }
+}
@@ -0,0 +1,85 @@
+package com.learning.course_service.repository;
+
+import com.learning.course_service.entity.Course;
+import com.learning.course_service.entity.Instructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect")
+class CourseRepositoryTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2025, 1, 1, 8, 0);
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private InstructorRepository instructorRepository;
+
+    private Instructor instructor;
+
+    @BeforeEach
+    void setUp() {
+        instructor = new Instructor();
+        instructor.setUserId(1L);
+        instructor.setUsername("teacher");
+        instructor = instructorRepository.saveAndFlush(instructor);
+
+        save("Java cơ bản", "Lập trình", BASE);
+        save("Thiết kế UI", "Thiết kế", BASE.plusMinutes(1));
+        save("Java nâng cao", "Lập trình", BASE.plusMinutes(2));
+        // Cùng created_at với "Java nâng cao": thứ tự phải phân định bằng id
+        save("Spring Boot", "Lập trình", BASE.plusMinutes(2));
+    }
+
+    @Test
+    void listsAllCoursesNewestFirstWithoutFilters() {
+        Slice<Course> first = courseRepository.searchCourses(null, null, PageRequest.of(0, 3));
+
+        assertThat(first.getContent()).extracting(Course::getTitle)
+                .containsExactly("Spring Boot", "Java nâng cao", "Thiết kế UI");
+        assertThat(first.hasNext()).isTrue();
+        assertThat(courseRepository.countCourses(null, null)).isEqualTo(4);
+    }
+
+    @Test
+    void cursorPageContinuesAfterLastRow() {
+        Slice<Course> first = courseRepository.searchCourses(null, null, PageRequest.of(0, 2));
+        Course last = first.getContent().get(1);
+
+        Slice<Course> second = courseRepository.searchCoursesBefore(null, null, last.getCreatedAt(), last.getId(),
+                PageRequest.of(0, 2));
+
+        assertThat(first.getContent()).extracting(Course::getTitle).containsExactly("Spring Boot", "Java nâng cao");
+        assertThat(second.getContent()).extracting(Course::getTitle).containsExactly("Thiết kế UI", "Java cơ bản");
+        assertThat(second.hasNext()).isFalse();
+    }
+
+    @Test
+    void titleAndCategoryFilterTogether() {
+        Slice<Course> page = courseRepository.searchCourses("java", "lập trình", PageRequest.of(0, 10));
+
+        assertThat(page.getContent()).extracting(Course::getTitle).containsExactly("Java nâng cao", "Java cơ bản");
+        assertThat(courseRepository.countCourses("java", "lập trình")).isEqualTo(2);
+        assertThat(courseRepository.searchCourses(null, "thiết kế", PageRequest.of(0, 10)).getContent())
+                .extracting(Course::getTitle).containsExactly("Thiết kế UI");
+        assertThat(courseRepository.countCourses("java", "thiết kế")).isZero();
+    }
+
+    private void save(String title, String category, LocalDateTime createdAt) {
+        Course course = new Course();
+        course.setTitle(title);
+        course.setCategory(category);
+        course.setInstructor(instructor);
+        course.setCreatedAt(createdAt);
+        courseRepository.saveAndFlush(course);
+    }
+}
@@ -1,5 +1,6 @@
 package com.learning.enrollment_service.client;
 
+import com.learning.enrollment_service.config.RequestDeadline;
 import feign.RequestInterceptor;
 import feign.RequestTemplate;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -16,6 +17,15 @@ public class FeignAuthInterceptor implements RequestInterceptor {
         if (token != null && !token.isEmpty()) {
             template.header("Authorization", "Bearer " + token);
         }
+
+        // Client đã bỏ đi thì không gọi tiếp service khác
+        RequestDeadline.check();
+        Long deadline = RequestDeadline.get();
+        if (deadline != null) {
+            // Interceptor có thể được đăng ký nhiều lần cho cùng client, header chỉ được có một giá trị
+            template.removeHeader(RequestDeadline.HEADER);
+            template.header(RequestDeadline.HEADER, deadline.toString());
+        }
     }
 
     private String extractTokenFromContext() {
@@ -30,4 +40,4 @@ public class FeignAuthInterceptor implements RequestInterceptor {
         }
         return null;
     }
-}
\ No newline at end of file
+}
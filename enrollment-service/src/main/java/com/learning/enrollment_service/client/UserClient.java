@@ -5,9 +5,17 @@ import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import java.util.Collection;
+import java.util.List;
 
 @FeignClient(name = "user-service", url = "${app.services.user.url}")
 public interface UserClient  {
     @GetMapping("/users/{userId}")
     ResponseEntity<UserResponse> getUserById(@PathVariable("userId") Long userId);
+
+    // Một request cho nhiều user (id, name, username, avatarUrl, role)
+    @GetMapping("/users/batch")
+    ResponseEntity<List<UserResponse>> getUsersByIds(@RequestParam("ids") Collection<Long> ids);
 }
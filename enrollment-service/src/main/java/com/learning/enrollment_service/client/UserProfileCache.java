@@ -0,0 +1,138 @@
+package com.learning.enrollment_service.client;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.learning.enrollment_service.config.UserProfileCacheProperties;
+import com.learning.enrollment_service.dto.UserResponse;
+import com.learning.enrollment_service.dto.UserUpdatedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Near cache cho profile user (tên, avatar, role) lấy từ user-service.
+ *
+ * Entry không dựa vào TTL ngắn mà bị xoá khi user-service phát event user-updated. Mỗi instance
+ * dùng một consumer group riêng, cố định theo instance-id, nên instance nào cũng nhận đủ event của mọi
+ * partition; group mới đọc từ latest vì lúc khởi động cache còn rỗng. Miss của cả một lượt được gom vào
+ * một lần gọi /users/batch; key bị invalidate trong lúc lô đó đang tải thì không giữ kết quả cũ.
+ */
+@Slf4j
+@Component
+public class UserProfileCache {
+
+    private final UserClient userClient;
+    private final String applicationName;
+    private final Cache<Long, UserResponse> cache;
+    private final LongAdder invalidations = new LongAdder();
+    // Thứ tự của lần invalidate gần nhất theo userId, giữ đủ lâu hơn một lần gọi /users/batch
+    private final AtomicLong invalidationSeq = new AtomicLong();
+    private final Cache<Long, Long> invalidatedAt = Caffeine.newBuilder()
+            .expireAfterWrite(Duration.ofMinutes(5))
+            .build();
+
+    public UserProfileCache(UserClient userClient, UserProfileCacheProperties properties,
+                            @Value("${spring.application.name}") String applicationName,
+                            MeterRegistry meterRegistry) {
+        this.userClient = userClient;
+        this.applicationName = applicationName;
+        if (properties.getMaxSize() <= 0) {
+            this.cache = null;
+            return;
+        }
+        Caffeine<Object, Object> builder = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxSize())
+                .recordStats();
+        if (properties.getExpireAfterWrite() != null && !properties.getExpireAfterWrite().isZero()) {
+            builder.expireAfterWrite(properties.getExpireAfterWrite());
+        }
+        this.cache = builder.build();
+        CaffeineCacheMetrics.monitor(meterRegistry, this.cache, "user-profile-cache");
+    }
+
+    /**
+     * Trả về profile của các userId tìm thấy; id không tồn tại thì không có trong map và không bị cache.
+     */
+    public Map<Long, UserResponse> getAll(Collection<Long> userIds) {
+        List<Long> ids = userIds.stream().filter(Objects::nonNull).distinct().toList();
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+        if (cache == null) {
+            return fetch(ids);
+        }
+        long loadStarted = invalidationSeq.get();
+        Map<Long, UserResponse> profiles = cache.getAll(ids, this::fetch);
+        // getAll ghi kết quả lô vào cache sau khi fetch xong, đè lên invalidate đến giữa chừng: xoá lại các key đó.
+        // invalidate() ghi invalidatedAt trước khi xoá cache nên nếu ở đây chưa thấy thì lần xoá của nó đến sau
+        for (Long id : ids) {
+            Long at = invalidatedAt.getIfPresent(id);
+            if (at != null && at > loadStarted) {
+                cache.invalidate(id);
+            }
+        }
+        return profiles;
+    }
+
+    private Map<Long, UserResponse> fetch(Collection<? extends Long> ids) {
+        ResponseEntity<List<UserResponse>> response = userClient.getUsersByIds(new ArrayList<>(ids));
+        if (!response.getStatusCode().is2xxSuccessful() || response.getBody() == null) {
+            throw new IllegalStateException("user-service trả về " + response.getStatusCode() + " cho /users/batch");
+        }
+        return response.getBody().stream()
+                .collect(Collectors.toMap(user -> Long.valueOf(user.getId()), user -> user, (a, b) -> a));
+    }
+
+    @KafkaListener(
+            topics = "${app.user-profile-cache.topic:user-updated}",
+            groupId = "${spring.application.name}-user-profile-cache-${app.user-profile-cache.instance-id}",
+            properties = {
+                    "auto.offset.reset=latest",
+                    "spring.json.value.default.type=com.learning.enrollment_service.dto.UserUpdatedEvent",
+                    "spring.json.use.type.headers=false",
+                    "spring.json.trusted.packages=com.learning.enrollment_service.dto"
+            })
+    public void onUserUpdated(UserUpdatedEvent event) {
+        if (event == null || event.getId() == null) {
+            return;
+        }
+        invalidate(event.getId());
+    }
+
+    public void invalidate(Long userId) {
+        if (cache != null) {
+            invalidatedAt.put(userId, invalidationSeq.incrementAndGet());
+            cache.invalidate(userId);
+            invalidations.increment();
+        }
+    }
+
+    public CacheStats stats() {
+        return cache != null ? cache.stats() : CacheStats.empty();
+    }
+
+    @Scheduled(fixedDelayString = "#{@userProfileCacheProperties.statsInterval.toMillis()}",
+            initialDelayString = "#{@userProfileCacheProperties.statsInterval.toMillis()}")
+    public void logStats() {
+        if (cache == null) {
+            return;
+        }
+        CacheStats stats = cache.stats();
+        log.info("user-profile-cache[{}] size={} hits={} misses={} hitRate={} loads={} loadFailures={} evictions={} invalidations={}",
+                applicationName, cache.estimatedSize(), stats.hitCount(), stats.missCount(),
+                String.format("%.3f", stats.hitRate()), stats.loadCount(), stats.loadFailureCount(),
+                stats.evictionCount(), invalidations.sum());
+    }
+}
@@ -0,0 +1,24 @@
+package com.learning.enrollment_service.exception;
+
+import com.learning.enrollment_service.dto.ApiResponse;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+/**
+ * Maps {@link AppException} that escape a controller to its status, e.g. 504 for
+ * {@link ErrorCode#DEADLINE_EXCEEDED} thrown by RequestDeadline checks and the Feign interceptor.
+ */
+@RestControllerAdvice
+public class AppExceptionHandler {
+
+    @ExceptionHandler(AppException.class)
+    public ResponseEntity<ApiResponse<?>> handleAppException(AppException e) {
+        ErrorCode errorCode = e.getErrorCode();
+        return ResponseEntity.status(errorCode.getStatusCode())
+                .body(ApiResponse.builder()
+                        .code(errorCode.getCode())
+                        .message(errorCode.getMessage())
+                        .build());
+    }
+}
@@ -18,6 +18,7 @@ public enum ErrorCode {
     EMAIL_IS_EXISTED(1011, "Email already existed", HttpStatus.BAD_REQUEST),
     USER_NOT_EXISTED(1012, "User not existed", HttpStatus.BAD_REQUEST),
     INVALID_PASSWORD(1013, "Invalid password", HttpStatus.BAD_REQUEST),
+    DEADLINE_EXCEEDED(1504, "Request deadline exceeded", HttpStatus.GATEWAY_TIMEOUT),
     ;
 
     ErrorCode(int code, String message, HttpStatusCode statusCode) {
@@ -2,19 +2,27 @@ package com.learning.enrollment_service.service;
 
 import com.learning.enrollment_service.client.ContentClient;
 import com.learning.enrollment_service.client.CourseClient;
-import com.learning.enrollment_service.client.UserClient;
+import com.learning.enrollment_service.client.UserProfileCache;
+import com.learning.enrollment_service.config.RequestDeadline;
 import com.learning.enrollment_service.dto.*;
 import com.learning.enrollment_service.entity.*;
+import com.learning.enrollment_service.exception.AppException;
+import com.learning.enrollment_service.exception.ErrorCode;
 import com.learning.enrollment_service.repository.*;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.QueryTimeoutException;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionTimedOutException;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Service
@@ -32,9 +40,10 @@ public class EnrollmentService {
     private final QuestionRepository questionRepository;
     private final AnswerRepository answerRepository;
     private final LikeRepository likeRepository;
+    private final PlatformTransactionManager transactionManager;
 
     @Autowired
-    private UserClient userClient;
+    private UserProfileCache userProfileCache;
     @Autowired
     private CourseClient courseClient;
 
@@ -304,19 +313,47 @@ public class EnrollmentService {
     }
 
     public List<EnrollmentDTO> getEnrollmentsByUserId(Long userId) {
-        List<Enrollment> enrollments = enrollmentRepository.findByUserIdWithProgress(userId);
-        for (Enrollment enrollment : enrollments) {
-            enrollment.calculateProgress();
-        }
+        List<Enrollment> enrollments = withinDeadline(() -> {
+            List<Enrollment> result = enrollmentRepository.findByUserIdWithProgress(userId);
+            for (Enrollment enrollment : result) {
+                enrollment.calculateProgress();  // load enrollmentProgresses trong cùng timeout
+            }
+            return result;
+        });
 
+        // Mỗi enrollment là một lần gọi course-service, dừng ngay khi quá deadline
         List<EnrollmentDTO> dtos = enrollments.stream()
-                .map(this::toDto)
+                .map(enrollment -> {
+                    RequestDeadline.check();
+                    return toDto(enrollment);
+                })
                 .collect(Collectors.toList());
 
         log.info("Retrieved {} enrollments for userId: {}", dtos.size(), userId);
         return dtos;
     }
 
+    /**
+     * Runs the reads with a transaction timeout equal to the time left before the request
+     * deadline, so the queries are cancelled by the driver instead of finishing for nobody.
+     */
+    private <T> T withinDeadline(Supplier<T> reads) {
+        RequestDeadline.check();
+        int timeout = RequestDeadline.timeoutSeconds();
+        if (timeout < 0) {
+            return reads.get();
+        }
+
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(true);
+        template.setTimeout(timeout);
+        try {
+            return template.execute(status -> reads.get());
+        } catch (TransactionTimedOutException | QueryTimeoutException e) {
+            throw new AppException(ErrorCode.DEADLINE_EXCEEDED);
+        }
+    }
+
     private EnrollmentDTO toDto(Enrollment enrollment) {
 
         String courseTitle = null;
@@ -409,27 +446,25 @@ public class EnrollmentService {
         Map<Long, List<Answer>> answersByQuestion = allAnswers.stream()
                 .collect(Collectors.groupingBy(answer -> answer.getQuestion().getId()));
 
+        // Tên + avatar của mọi người hỏi/trả lời trong một request tới user-service
+        Set<Long> userIds = new HashSet<>();
+        questions.forEach(question -> userIds.add(question.getEnrollment().getUserId()));
+        allAnswers.forEach(answer -> userIds.add(answer.getAnsweredBy()));
+        Map<Long, UserResponse> users = getUsersFromClient(userIds);
+
         return questions.stream()
                 .map(question -> {
                     Long enrollmentUserId = question.getEnrollment().getUserId();
-                    String authorName = enrollmentUserId != null
-                            ? getUserNameFromClient(enrollmentUserId)
-                            : "Anonymous";
-                    String authorAvatar = enrollmentUserId != null
-                            ? getAvatarUserFromClient(enrollmentUserId)
-                            : null;
+                    String authorName = userName(users, enrollmentUserId);
+                    String authorAvatar = userAvatar(users, enrollmentUserId);
 
                     List<Answer> questionAnswers = answersByQuestion.getOrDefault(question.getId(), List.of());
 
                     List<AnswerResponse> answerResponses = questionAnswers.stream()
                             .map(answer -> {
                                 Long answeredById = answer.getAnsweredBy();
-                                String answererName = answeredById != null
-                                        ? getUserNameFromClient(answeredById)
-                                        : "Anonymous";
-                                String answererAvatar = answeredById != null  // THÊM FETCH AVATAR
-                                        ? getAvatarUserFromClient(answeredById)
-                                        : null;
+                                String answererName = userName(users, answeredById);
+                                String answererAvatar = userAvatar(users, answeredById);
 
                                 return AnswerResponse.builder()
                                         .id(answer.getId())
@@ -519,29 +554,23 @@ public class EnrollmentService {
         return answer;
     }
 
-    private String getUserNameFromClient(Long userId) {
+    private Map<Long, UserResponse> getUsersFromClient(Collection<Long> userIds) {
         try {
-            ResponseEntity<UserResponse> response = userClient.getUserById(userId);
-            if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
-                return response.getBody().getName();
-            }
+            return userProfileCache.getAll(userIds);
         } catch (Exception e) {
-            log.error("Failed to get user name for userId: {}", userId, e);
+            log.error("Failed to get users for userIds: {}", userIds, e);
         }
-        return "Anonymous";
+        return Map.of();
     }
 
+    private static String userName(Map<Long, UserResponse> users, Long userId) {
+        UserResponse user = userId != null ? users.get(userId) : null;
+        return user != null && user.getName() != null ? user.getName() : "Anonymous";
+    }
 
-    private String getAvatarUserFromClient(Long userId) {
-        try {
-            ResponseEntity<UserResponse> response = userClient.getUserById(userId);
-            if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
-                return response.getBody().getAvatarUrl();
-            }
-        } catch (Exception e) {
-            log.error("Failed to get avatar for userId: {}", userId, e);
-        }
-        return null;
+    private static String userAvatar(Map<Long, UserResponse> users, Long userId) {
+        UserResponse user = userId != null ? users.get(userId) : null;
+        return user != null ? user.getAvatarUrl() : null;
     }
 
     @Transactional
@@ -649,8 +678,9 @@ public class EnrollmentService {
 
         // Trả về DTO (tương tự getQAByContentInCourse)
         Long enrollmentUserId = updatedQuestion.getEnrollment().getUserId();
-        String authorName = getUserNameFromClient(enrollmentUserId);
-        String authorAvatar = getAvatarUserFromClient(enrollmentUserId);
+        Map<Long, UserResponse> users = getUsersFromClient(Collections.singleton(enrollmentUserId));
+        String authorName = userName(users, enrollmentUserId);
+        String authorAvatar = userAvatar(users, enrollmentUserId);
 
         return QuestionResponse.builder()
                 .id(updatedQuestion.getId())
@@ -688,7 +718,8 @@ public class EnrollmentService {
         Answer updatedAnswer = answerRepository.save(answer);
 
         // Trả về DTO
-        String answererName = getUserNameFromClient(updatedAnswer.getAnsweredBy());
+        Map<Long, UserResponse> users = getUsersFromClient(Collections.singleton(updatedAnswer.getAnsweredBy()));
+        String answererName = userName(users, updatedAnswer.getAnsweredBy());
 
         return AnswerResponse.builder()
                 .id(updatedAnswer.getId())
@@ -1,16 +1,42 @@
 package com.learning.notification_service.config;
 
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
 import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.PathMatcher;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Map;
+
+@Slf4j
 @Configuration
 @EnableWebSocketMessageBroker
 @EnableScheduling // Bật scheduler
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
+
+    // /topic/notifications/{userId} là topic riêng của từng user: chỉ link của gateway (đã kiểm tra token và
+    // userId của client) được SUBSCRIBE, nhận diện bằng header link-key lúc CONNECT
+    private static final String USER_TOPIC_PATTERN = "/topic/notifications/**";
+    private static final String TRUSTED_LINK_ATTR = "realtimeLinkTrusted";
+
+    @Value("${app.realtime.link-key:}")
+    private String linkKey;
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
         config.enableSimpleBroker("/topic", "/user");
@@ -24,4 +50,55 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
                 .setAllowedOrigins("*")
                 .withSockJS();
     }
-}
\ No newline at end of file
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        if (linkKey == null || linkKey.isBlank()) {
+            log.warn("app.realtime.link-key (REALTIME_LINK_KEY) is not set, nobody can subscribe to /topic/notifications/**");
+        }
+        registration.interceptors(new SubscriptionGuard(linkKey));
+    }
+
+    /**
+     * Chặn SUBSCRIBE vào topic riêng của user từ session không trình link-key. Simple broker nhận cả
+     * destination dạng Ant pattern (/topic/**), nên session không tin cậy không được dùng pattern và mọi
+     * destination khớp /topic/notifications/** đều bị từ chối.
+     */
+    static class SubscriptionGuard implements ChannelInterceptor {
+
+        private final PathMatcher pathMatcher = new AntPathMatcher();
+        private final String linkKey;
+
+        SubscriptionGuard(String linkKey) {
+            this.linkKey = linkKey;
+        }
+
+        @Override
+        public Message<?> preSend(Message<?> message, MessageChannel channel) {
+            StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+            if (accessor == null || accessor.getCommand() == null) {
+                return message;
+            }
+            Map<String, Object> session = accessor.getSessionAttributes();
+            if (accessor.getCommand() == StompCommand.CONNECT && session != null) {
+                session.put(TRUSTED_LINK_ATTR, isLinkKey(accessor.getFirstNativeHeader("link-key")));
+            } else if (accessor.getCommand() == StompCommand.SUBSCRIBE
+                    && (session == null || !Boolean.TRUE.equals(session.get(TRUSTED_LINK_ATTR)))
+                    && !isPublicDestination(accessor.getDestination())) {
+                throw new MessageDeliveryException("Subscribe to " + accessor.getDestination() + " is not allowed");
+            }
+            return message;
+        }
+
+        private boolean isPublicDestination(String destination) {
+            return destination != null
+                    && destination.chars().noneMatch(c -> c == '*' || c == '?' || c == '{')
+                    && !pathMatcher.match(USER_TOPIC_PATTERN, destination);
+        }
+
+        private boolean isLinkKey(String value) {
+            return linkKey != null && !linkKey.isBlank() && value != null
+                    && MessageDigest.isEqual(linkKey.getBytes(StandardCharsets.UTF_8), value.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -1,29 +1,40 @@
 package com.learning.notification_service.security;  // Adjust package as needed
 
-import com.nimbusds.jwt.SignedJWT;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
 import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtClaimNames;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.jwt.MappedJwtClaimSetConverter;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
 import org.springframework.stereotype.Component;
 
-import java.text.ParseException;
+import java.util.Map;
 
+/**
+ * Verifies tokens locally against user-service's published keys (signature + exp),
+ * no introspection call.
+ */
 @Component
 public class CustomJwtDecoder implements JwtDecoder {
-    @Override
-    public Jwt decode(String token) throws JwtException {
-        try {
-            SignedJWT signedJWT = SignedJWT.parse(token);
 
-            return new Jwt(token,
-                    signedJWT.getJWTClaimsSet().getIssueTime().toInstant(),
-                    signedJWT.getJWTClaimsSet().getExpirationTime().toInstant(),
-                    signedJWT.getHeader().toJSONObject(),
-                    signedJWT.getJWTClaimsSet().getClaims()
-            );
+    private final NimbusJwtDecoder nimbusJwtDecoder;
+
+    public CustomJwtDecoder(JwksKeySet jwksKeySet) {
+        DefaultJWTProcessor<SecurityContext> jwtProcessor = new DefaultJWTProcessor<>();
+        jwtProcessor.setJWTClaimsSetAwareJWSKeySelector(jwksKeySet);
+        // exp/nbf do validator mặc định của Spring kiểm tra
+        jwtProcessor.setJWTClaimsSetVerifier((claims, context) -> {
+        });
+        nimbusJwtDecoder = new NimbusJwtDecoder(jwtProcessor);
+        // iss "devteria.com" không phải URL, giữ nguyên string
+        nimbusJwtDecoder.setClaimSetConverter(MappedJwtClaimSetConverter
+                .withDefaults(Map.of(JwtClaimNames.ISS, issuer -> issuer == null ? null : issuer.toString())));
+    }
 
-        } catch (ParseException e) {
-            throw new JwtException("Invalid token");
-        }
+    @Override
+    public Jwt decode(String token) throws JwtException {
+        return nimbusJwtDecoder.decode(token);
     }
 }
@@ -0,0 +1,174 @@
+package com.learning.notification_service.security;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.proc.JWTClaimsSetAwareJWSKeySelector;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Public keys of user-service, loaded from its JWKS endpoint and refreshed in the
+ * background so token verification never waits for the network. An unknown kid
+ * triggers an early refresh (at most once per MIN_REFRESH_GAP) in case a key was
+ * published after the last refresh.
+ *
+ * <p>Legacy HS512 tokens (no kid) are only accepted when jwt.legacy-rotated-at is set: the
+ * token must have been issued before that instant, and the secret is dropped altogether
+ * once jwt.refreshable-duration has passed since it, when no legacy token can be refreshed.
+ *
+ * <p>Deliberately copied rather than shared (each service builds on its own): enrollment, course,
+ * content and notification hold identical copies apart from the package, api-gateway a reactive
+ * variant. Keep all five in sync.
+ */
+@Slf4j
+@Component
+public class JwksKeySet implements JWTClaimsSetAwareJWSKeySelector<SecurityContext> {
+
+    private static final Duration RETRY_DELAY = Duration.ofSeconds(10);
+    private static final Duration MIN_REFRESH_GAP = Duration.ofSeconds(30);
+
+    private record PublishedKey(JWSAlgorithm algorithm, Key key) {
+    }
+
+    private final URL jwksUrl;
+    private final Duration refreshInterval;
+    // Token HS512 cũ (không có kid), null nếu không cấu hình jwt.secret/jwt.legacy-rotated-at hoặc đã hết hạn
+    private volatile Key legacyKey;
+    private final Instant legacyRotatedAt;
+    private final Instant legacyAcceptedUntil;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "jwks-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile Map<String, PublishedKey> keys = Map.of();
+    private volatile long lastAttempt;
+
+    public JwksKeySet(@Value("${jwt.jwks-uri}") URL jwksUrl,
+                      @Value("${jwt.jwks-refresh-interval:5m}") Duration refreshInterval,
+                      @Value("${jwt.secret:}") String legacySecret,
+                      @Value("${jwt.legacy-rotated-at:}") String legacyRotatedAt,
+                      @Value("${jwt.refreshable-duration:36000}") long refreshableSeconds) {
+        this.jwksUrl = jwksUrl;
+        this.refreshInterval = refreshInterval;
+        this.legacyRotatedAt = parseInstant(legacyRotatedAt);
+        this.legacyAcceptedUntil = this.legacyRotatedAt == null ? null : this.legacyRotatedAt.plusSeconds(refreshableSeconds);
+        if (legacySecret.isBlank()) {
+            this.legacyKey = null;
+        } else if (this.legacyRotatedAt == null) {
+            log.warn("jwt.secret is set without jwt.legacy-rotated-at, legacy HS512 tokens are rejected");
+            this.legacyKey = null;
+        } else {
+            this.legacyKey = new SecretKeySpec(legacySecret.getBytes(StandardCharsets.UTF_8), "HmacSHA512");
+        }
+        scheduler.execute(this::refresh);
+    }
+
+    @Override
+    public List<Key> selectKeys(JWSHeader header, JWTClaimsSet claimsSet, SecurityContext context) {
+        if (header.getKeyID() == null) {
+            Key key = JWSAlgorithm.HS512.equals(header.getAlgorithm()) ? legacyKeyFor(claimsSet.getIssueTime()) : null;
+            return key != null ? List.of(key) : List.of();
+        }
+        PublishedKey published = keys.get(header.getKeyID());
+        if (published == null) {
+            refreshSoon();
+            return List.of();
+        }
+        return published.algorithm().equals(header.getAlgorithm()) ? List.of(published.key()) : List.of();
+    }
+
+    private Key legacyKeyFor(Date issuedAt) {
+        Key key = legacyKey;
+        if (key == null) {
+            return null;
+        }
+        if (!Instant.now().isBefore(legacyAcceptedUntil)) {
+            // Không còn token HS512 nào refresh được nữa, bỏ hẳn secret
+            log.info("Legacy HS512 tokens expired at {}, dropping jwt.secret", legacyAcceptedUntil);
+            legacyKey = null;
+            return null;
+        }
+        return issuedAt != null && !issuedAt.toInstant().isAfter(legacyRotatedAt) ? key : null;
+    }
+
+    private static Instant parseInstant(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Instant.parse(value.trim());
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid jwt.legacy-rotated-at: " + value, e);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    private void refreshSoon() {
+        if (System.currentTimeMillis() - lastAttempt >= MIN_REFRESH_GAP.toMillis()) {
+            lastAttempt = System.currentTimeMillis();
+            scheduler.execute(this::load);
+        }
+    }
+
+    private void refresh() {
+        boolean loaded = load();
+        scheduler.schedule(this::refresh, (loaded ? refreshInterval : RETRY_DELAY).toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private boolean load() {
+        lastAttempt = System.currentTimeMillis();
+        try {
+            JWKSet jwkSet = JWKSet.load(jwksUrl, 2000, 2000, 64 * 1024);
+            Map<String, PublishedKey> loaded = new HashMap<>();
+            for (JWK jwk : jwkSet.getKeys()) {
+                if (jwk.getKeyID() == null) {
+                    continue;
+                }
+                if (jwk instanceof RSAKey rsaKey) {
+                    loaded.put(jwk.getKeyID(), new PublishedKey(JWSAlgorithm.RS256, rsaKey.toPublicKey()));
+                } else if (jwk instanceof ECKey ecKey) {
+                    loaded.put(jwk.getKeyID(), new PublishedKey(JWSAlgorithm.ES256, ecKey.toPublicKey()));
+                }
+            }
+            if (!loaded.keySet().equals(keys.keySet())) {
+                log.info("JWKS keys loaded: {}", loaded.keySet());
+            }
+            keys = Map.copyOf(loaded);
+            return true;
+        } catch (Exception e) {
+            // Giữ bộ khoá cũ, token đang dùng vẫn verify được
+            log.warn("Cannot load JWKS from {}: {}", jwksUrl, e.getMessage());
+            return false;
+        }
+    }
+}
@@ -42,6 +42,8 @@ public class NotificationService {
         log.info("Created notification {} for user {}", saved.getId(), userId);
 
         messagingTemplate.convertAndSendToUser(userId, "/notifications", saved);
+        // Cho socket realtime chung ở gateway: link dùng chung không có principal của từng user
+        messagingTemplate.convertAndSend("/topic/notifications/" + userId, saved);
         return saved;
     }
 
@@ -0,0 +1,68 @@
+package com.learning.notification_service.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class WebSocketConfigTest {
+
+    private final WebSocketConfig.SubscriptionGuard guard = new WebSocketConfig.SubscriptionGuard("link-secret");
+
+    private static Message<byte[]> frame(StompCommand command, Map<String, Object> session, String destination, String linkKey) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(command);
+        accessor.setSessionAttributes(session);
+        accessor.setDestination(destination);
+        if (linkKey != null) {
+            accessor.addNativeHeader("link-key", linkKey);
+        }
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private Map<String, Object> connect(String linkKey) {
+        Map<String, Object> session = new HashMap<>();
+        guard.preSend(frame(StompCommand.CONNECT, session, null, linkKey), null);
+        return session;
+    }
+
+    private void subscribe(Map<String, Object> session, String destination) {
+        guard.preSend(frame(StompCommand.SUBSCRIBE, session, destination, null), null);
+    }
+
+    @Test
+    void wildcardSubscribeWithoutLinkKeyIsRejected() {
+        Map<String, Object> session = connect(null);
+
+        assertThatThrownBy(() -> subscribe(session, "/topic/**")).isInstanceOf(MessageDeliveryException.class);
+        assertThatThrownBy(() -> subscribe(session, "/topic/notifications/*")).isInstanceOf(MessageDeliveryException.class);
+        assertThatThrownBy(() -> subscribe(session, "/topic/notif?cations/7")).isInstanceOf(MessageDeliveryException.class);
+        assertThatThrownBy(() -> subscribe(session, "/topic/{any}/7")).isInstanceOf(MessageDeliveryException.class);
+    }
+
+    @Test
+    void userTopicWithoutLinkKeyIsRejected() {
+        Map<String, Object> session = connect("wrong-key");
+
+        assertThatThrownBy(() -> subscribe(session, "/topic/notifications/7")).isInstanceOf(MessageDeliveryException.class);
+        assertThatThrownBy(() -> subscribe(session, "/topic/notifications")).isInstanceOf(MessageDeliveryException.class);
+        assertThatThrownBy(() -> subscribe(session, "/topic/notifications/7/extra")).isInstanceOf(MessageDeliveryException.class);
+    }
+
+    @Test
+    void publicTopicsStayOpenAndLinkMaySubscribeToUserTopics() {
+        Map<String, Object> client = connect(null);
+        assertThatCode(() -> subscribe(client, "/topic/answers")).doesNotThrowAnyException();
+
+        Map<String, Object> link = connect("link-secret");
+        assertThatCode(() -> subscribe(link, "/topic/notifications/7")).doesNotThrowAnyException();
+    }
+}
@@ -0,0 +1,33 @@
+package com.learning.user_service.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.email-outbox")
+public class EmailOutboxProperties {
+    // Số worker gửi song song, mỗi worker giữ một kết nối SMTP cho cả lô
+    private int workers = 2;
+    private int batchSize = 20;
+    // Worker ngủ tối đa chừng này khi outbox rỗng; có email mới commit thì được đánh thức ngay
+    private Duration pollInterval = Duration.ofSeconds(5);
+    // Email đang gửi mà worker chết thì sau lease sẽ được worker khác gửi lại
+    private Duration lease = Duration.ofMinutes(2);
+    private int maxAttempts = 8;
+    private Duration initialBackoff = Duration.ofSeconds(10);
+    private Duration maxBackoff = Duration.ofMinutes(30);
+    private Duration purgeInterval = Duration.ofHours(1);
+    private Duration retention = Duration.ofDays(7);
+    private SmtpStub smtpStub = new SmtpStub();
+
+    @Data
+    public static class SmtpStub {
+        // SMTP server trong process để chạy thử/test mà không cần Gmail; trỏ spring.mail.host/port vào đây
+        private boolean enabled = false;
+        private int port = 3025;
+    }
+}
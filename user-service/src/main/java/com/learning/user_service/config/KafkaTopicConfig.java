@@ -0,0 +1,19 @@
+package com.learning.user_service.config;
+
+import com.learning.user_service.service.UserEventPublisher;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.TopicBuilder;
+
+@Configuration
+public class KafkaTopicConfig {
+
+    @Bean
+    public NewTopic userUpdatedTopic() {
+        return TopicBuilder.name(UserEventPublisher.USER_UPDATED_TOPIC)
+                .partitions(3)
+                .replicas(1)
+                .build();
+    }
+}
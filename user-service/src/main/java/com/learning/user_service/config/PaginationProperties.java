@@ -0,0 +1,16 @@
+package com.learning.user_service.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.pagination")
+public class PaginationProperties {
+    // totalElements là số gần đúng: COUNT(*) của mỗi bộ lọc chạy tối đa một lần trong count-ttl
+    private Duration countTtl = Duration.ofSeconds(30);
+    private long countCacheSize = 1_000;
+}
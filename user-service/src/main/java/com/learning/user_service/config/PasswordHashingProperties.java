@@ -0,0 +1,21 @@
+package com.learning.user_service.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.password-hashing")
+public class PasswordHashingProperties {
+    // BCrypt cost; hash cũ có cost khác sẽ được hash lại khi user đăng nhập thành công
+    private int cost = 10;
+    // Số thread hash, mặc định bằng số CPU vì BCrypt chỉ tốn CPU
+    private int threads = Runtime.getRuntime().availableProcessors();
+    // Số yêu cầu được chờ trong hàng đợi, vượt quá thì trả 503 ngay thay vì giữ thread Tomcat
+    private int queueCapacity = 64;
+    // Thời gian tối đa một request chờ kết quả hash (gồm cả thời gian xếp hàng)
+    private Duration maxWait = Duration.ofSeconds(5);
+}
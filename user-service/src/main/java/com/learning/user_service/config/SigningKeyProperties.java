@@ -0,0 +1,24 @@
+package com.learning.user_service.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.signing-keys")
+public class SigningKeyProperties {
+    // RS256 (RSA 2048) hoặc ES256 (EC P-256)
+    private String algorithm = "RS256";
+    private Duration rotationInterval = Duration.ofDays(7);
+    // Khoá mới được publish trước khi ký, phải lớn hơn jwks-refresh-interval của các service
+    private Duration publishAhead = Duration.ofMinutes(15);
+    // Đọc lại bảng signing_key để thấy khoá do instance khác tạo
+    private Duration reloadInterval = Duration.ofMinutes(1);
+    // Cache-Control của JWKS endpoint
+    private Duration jwksMaxAge = Duration.ofMinutes(5);
+    // AES key (base64, 16/24/32 byte) mã hoá private JWK trong bảng signing_key; rỗng thì lưu dạng rõ (chỉ dùng local)
+    private String encryptionKey = "";
+}
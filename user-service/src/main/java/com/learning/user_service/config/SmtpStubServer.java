@@ -0,0 +1,196 @@
+package com.learning.user_service.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * SMTP server tối giản chạy trong process để thử luồng email outbox mà không cần Gmail: nhận mọi lệnh
+ * (kể cả AUTH), giữ các email đã nhận trong bộ nhớ và log người nhận/tiêu đề. Bật bằng profile local-smtp
+ * hoặc app.email-outbox.smtp-stub.enabled=true với spring.mail.host/port trỏ vào localhost:&lt;port&gt;.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "app.email-outbox.smtp-stub", name = "enabled", havingValue = "true")
+public class SmtpStubServer implements SmartLifecycle {
+
+    private static final int MAX_KEPT_MESSAGES = 1000;
+
+    public record ReceivedMessage(String from, List<String> recipients, String data) {
+    }
+
+    private final EmailOutboxProperties properties;
+    private final List<ReceivedMessage> received = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicInteger connectionCount = new AtomicInteger();
+    private volatile ServerSocket serverSocket;
+    private volatile ExecutorService connections;
+
+    public SmtpStubServer(EmailOutboxProperties properties) {
+        this.properties = properties;
+    }
+
+    public List<ReceivedMessage> receivedMessages() {
+        synchronized (received) {
+            return List.copyOf(received);
+        }
+    }
+
+    // Số kết nối SMTP đã nhận, để kiểm tra một lô email đi chung một kết nối
+    public int connectionCount() {
+        return connectionCount.get();
+    }
+
+    public int port() {
+        return serverSocket != null ? serverSocket.getLocalPort() : -1;
+    }
+
+    @Override
+    public void start() {
+        try {
+            serverSocket = new ServerSocket(properties.getSmtpStub().getPort());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot start SMTP stub on port " + properties.getSmtpStub().getPort(), e);
+        }
+        ServerSocket socket = serverSocket;
+        ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "smtp-stub");
+            thread.setDaemon(true);
+            return thread;
+        });
+        connections = executor;
+        executor.execute(() -> acceptLoop(socket, executor));
+        log.info("SMTP stub listening on port {}", serverSocket.getLocalPort());
+    }
+
+    @Override
+    public void stop() {
+        try {
+            if (serverSocket != null) {
+                serverSocket.close();
+            }
+        } catch (IOException ignored) {
+        }
+        serverSocket = null;
+        if (connections != null) {
+            connections.shutdownNow();
+            connections = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return serverSocket != null;
+    }
+
+    private void acceptLoop(ServerSocket socket, ExecutorService executor) {
+        while (!socket.isClosed()) {
+            try {
+                Socket client = socket.accept();
+                connectionCount.incrementAndGet();
+                executor.execute(() -> handle(client));
+            } catch (IOException | RejectedExecutionException e) {
+                return;
+            }
+        }
+    }
+
+    private void handle(Socket client) {
+        try (client;
+             BufferedReader in = new BufferedReader(new InputStreamReader(client.getInputStream(), StandardCharsets.UTF_8));
+             Writer out = new OutputStreamWriter(client.getOutputStream(), StandardCharsets.UTF_8)) {
+            reply(out, "220 localhost SMTP stub");
+            String from = null;
+            List<String> recipients = new ArrayList<>();
+            String line;
+            while ((line = in.readLine()) != null) {
+                String command = line.length() >= 4 ? line.substring(0, 4).toUpperCase() : line.toUpperCase();
+                switch (command) {
+                    case "EHLO" -> reply(out, "250-localhost\r\n250-AUTH PLAIN LOGIN\r\n250 8BITMIME");
+                    case "HELO", "NOOP" -> reply(out, "250 OK");
+                    case "AUTH" -> authenticate(line, in, out);
+                    case "MAIL" -> {
+                        from = line.substring(line.indexOf(':') + 1).trim();
+                        recipients.clear();
+                        reply(out, "250 OK");
+                    }
+                    case "RCPT" -> {
+                        recipients.add(line.substring(line.indexOf(':') + 1).trim());
+                        reply(out, "250 OK");
+                    }
+                    case "DATA" -> {
+                        reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                        String data = readData(in);
+                        keep(new ReceivedMessage(from, List.copyOf(recipients), data));
+                        reply(out, "250 OK queued");
+                    }
+                    case "RSET" -> {
+                        from = null;
+                        recipients.clear();
+                        reply(out, "250 OK");
+                    }
+                    case "QUIT" -> {
+                        reply(out, "221 Bye");
+                        return;
+                    }
+                    default -> reply(out, "502 Command not implemented");
+                }
+            }
+        } catch (IOException e) {
+            log.debug("SMTP stub connection closed: {}", e.getMessage());
+        }
+    }
+
+    private static void authenticate(String line, BufferedReader in, Writer out) throws IOException {
+        String[] parts = line.trim().split("\\s+");
+        if (parts.length >= 2 && "LOGIN".equalsIgnoreCase(parts[1])) {
+            if (parts.length < 3) {
+                reply(out, "334 VXNlcm5hbWU6");
+                in.readLine();
+            }
+            reply(out, "334 UGFzc3dvcmQ6");
+            in.readLine();
+        } else if (parts.length == 2) {
+            reply(out, "334 ");
+            in.readLine();
+        }
+        reply(out, "235 Authentication successful");
+    }
+
+    private static String readData(BufferedReader in) throws IOException {
+        StringBuilder data = new StringBuilder();
+        String line;
+        while ((line = in.readLine()) != null && !".".equals(line)) {
+            data.append(line.startsWith("..") ? line.substring(1) : line).append("\r\n");
+        }
+        return data.toString();
+    }
+
+    private void keep(ReceivedMessage message) {
+        synchronized (received) {
+            if (received.size() >= MAX_KEPT_MESSAGES) {
+                received.remove(0);
+            }
+            received.add(message);
+        }
+        String subject = message.data().lines().filter(l -> l.startsWith("Subject:")).findFirst().orElse("");
+        log.info("SMTP stub received mail to {} {}", message.recipients(), subject);
+    }
+
+    private static void reply(Writer out, String response) throws IOException {
+        out.write(response + "\r\n");
+        out.flush();
+    }
+}
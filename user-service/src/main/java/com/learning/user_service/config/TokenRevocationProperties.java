@@ -0,0 +1,20 @@
+package com.learning.user_service.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.token-revocation")
+public class TokenRevocationProperties {
+    // Đọc lại bảng invalidated_token để thấy token bị thu hồi ở instance khác
+    private Duration syncInterval = Duration.ofMinutes(1);
+    // Số seq cuối được đọc lại mỗi lần sync: dòng có seq nhỏ hơn có thể commit sau dòng có seq lớn hơn
+    private int syncSeqOverlap = 1000;
+    private Duration purgeInterval = Duration.ofMinutes(10);
+    // Số dòng mỗi lần đọc khi warm-up/sync và mỗi lệnh DELETE khi purge
+    private int batchSize = 1000;
+}
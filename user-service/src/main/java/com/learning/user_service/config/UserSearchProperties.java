@@ -0,0 +1,26 @@
+package com.learning.user_service.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.user-search")
+public class UserSearchProperties {
+    // Tắt thì searchUsers quay về LIKE '%name%' trên DB
+    private boolean enabled = true;
+    // Đọc lại user có updated_at mới để thấy thay đổi của instance khác
+    private Duration syncInterval = Duration.ofMinutes(1);
+    // Đọc lùi thêm một khoảng để không sót transaction commit chậm hơn updated_at của nó
+    private Duration syncOverlap = Duration.ofSeconds(30);
+    private int batchSize = 10_000;
+    // Tỉ lệ trigram của từ khoá có trong tên/email để tính là khớp gần đúng (gõ sai)
+    private double fuzzyThreshold = 0.4;
+    // Số từ gần giống tối đa cho mỗi từ của từ khoá
+    private int fuzzyMaxTerms = 64;
+    // Số doc tối đa duyệt ở bước gần đúng; quá thì total chỉ là cận dưới
+    private int fuzzyMaxDocs = 5_000;
+}
@@ -0,0 +1,15 @@
+package com.learning.user_service.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.usernames")
+public class UsernameProperties {
+    // Giữ username vừa cấp tới khi chắc chắn đã được lưu, để signup đồng thời không nhận trùng
+    private Duration reservationTtl = Duration.ofMinutes(10);
+}
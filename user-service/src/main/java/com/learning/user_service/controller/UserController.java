@@ -3,12 +3,20 @@ package com.learning.user_service.controller;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.learning.user_service.dto.*;
 import com.learning.user_service.entity.User;
+import com.learning.user_service.config.SigningKeyProperties;
+import com.learning.user_service.exception.AppException;
+import com.learning.user_service.exception.ErrorCode;
 import com.learning.user_service.service.CloudinaryService;
+import com.learning.user_service.service.PasswordHasher;
+import com.learning.user_service.service.SigningKeyManager;
 import com.learning.user_service.service.UserService;
 import com.nimbusds.jose.JOSEException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -20,8 +28,10 @@ import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.util.UriComponentsBuilder;
 
 import java.text.ParseException;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 @Slf4j
 @RestController
@@ -31,10 +41,15 @@ public class UserController {
     private final ObjectMapper objectMapper;
     private final UserService userService;
     private final CloudinaryService cloudinaryService;
+    private final SigningKeyManager signingKeyManager;
+    private final SigningKeyProperties signingKeyProperties;
 
     @Autowired
     private final RestTemplate restTemplate;
 
+    @Value("${app.introspect-batch.max-size:64}")
+    private int introspectBatchMaxSize;
+
 
     @PutMapping(value = "/{id}/avatar", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public ResponseEntity<?> uploadAvatar(
@@ -84,21 +99,40 @@ public class UserController {
         }
     }
 
+    // Trả về future để thread Tomcat được nhả ra trong lúc BCrypt chạy trên pool của PasswordHasher
     @PostMapping("/login")
-    public ResponseEntity<?> login(@RequestBody LoginRequest request) {
+    public CompletableFuture<ResponseEntity<?>> login(@RequestBody LoginRequest request) {
+        if (request == null || request.getUsername() == null || request.getPassword() == null) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body("Username and password cannot be null"));
+        }
+        CompletableFuture<AuthResponse> result;
         try {
-            if (request == null || request.getUsername() == null || request.getPassword() == null) {
-                return ResponseEntity.badRequest().body("Username and password cannot be null");
-            }
-            AuthResponse authResponse = userService.authenticate(request);
-            return ResponseEntity.ok(authResponse);
-        } catch (IllegalArgumentException e) {
-            return ResponseEntity.badRequest().body("Invalid input: " + e.getMessage());
+            result = userService.authenticateAsync(request);
         } catch (Exception e) {
-            System.err.println("Login error: " + e.getMessage());
-            e.printStackTrace();
-            return ResponseEntity.badRequest().body("Login failed: " + e.getMessage());
+            result = CompletableFuture.failedFuture(e);
         }
+        return result.<ResponseEntity<?>>handle((authResponse, ex) -> {
+            if (ex == null) {
+                return ResponseEntity.ok(authResponse);
+            }
+            RuntimeException e = PasswordHasher.unwrap(ex);
+            if (e instanceof AppException appException
+                    && appException.getErrorCode() == ErrorCode.PASSWORD_HASHING_BUSY) {
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, "1")
+                        .body("Login failed: " + e.getMessage());
+            }
+            if (e instanceof IllegalArgumentException) {
+                return ResponseEntity.badRequest().body("Invalid input: " + e.getMessage());
+            }
+            // Sai mật khẩu, chưa xác thực... là AppException: không cần stack trace
+            if (e instanceof AppException) {
+                log.warn("Login failed for {}: {}", request.getUsername(), e.getMessage());
+            } else {
+                log.error("Login error for {}", request.getUsername(), e);
+            }
+            return ResponseEntity.badRequest().body("Login failed: " + e.getMessage());
+        });
     }
 
 
@@ -139,14 +173,39 @@ public class UserController {
         return ApiResponse.<IntrospectResponse>builder().result(result).build();
     }
 
+    // Chỉ cho gateway (SecurityConfig kiểm tra X-Internal-Key), lô lớn hơn max-size của batcher bị từ chối
+    @PostMapping("/introspect/batch")
+    ResponseEntity<ApiResponse<IntrospectBatchResponse>> introspectBatch(@RequestBody IntrospectBatchRequest request)
+            throws JOSEException {
+        if (request.getTokens() != null && request.getTokens().size() > introspectBatchMaxSize) {
+            return ResponseEntity.badRequest().body(ApiResponse.<IntrospectBatchResponse>builder()
+                    .code(ErrorCode.INTROSPECT_BATCH_TOO_LARGE.getCode())
+                    .message(ErrorCode.INTROSPECT_BATCH_TOO_LARGE.getMessage() + ": " + introspectBatchMaxSize)
+                    .build());
+        }
+        var result = userService.introspectBatch(request);
+        return ResponseEntity.ok(ApiResponse.<IntrospectBatchResponse>builder().result(result).build());
+    }
+
+    // Public keys để các service tự verify token, JSON dựng sẵn khi bộ khoá thay đổi
+    @GetMapping(value = "/.well-known/jwks.json", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<String> jwks() {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(signingKeyProperties.getJwksMaxAge()).cachePublic())
+                .body(signingKeyManager.jwksJson());
+    }
+
 
+    // after: nextCursor của trang trước (seek, không OFFSET); withTotal=false bỏ qua tổng số
     @GetMapping
     public ResponseEntity<?> findAllUsers(
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "true") boolean withTotal
     ) {
         try {
-            UserPage userPage = userService.findAllUsers(page, size);
+            UserPage userPage = userService.findAllUsers(page, size, after, withTotal);
             return ResponseEntity.ok(userPage);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body("Dữ liệu không hợp lệ: " + e.getMessage());
@@ -162,11 +221,13 @@ public class UserController {
             @RequestParam(required = false) String name,
             @RequestParam(required = false) String role,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "5") int size
+            @RequestParam(defaultValue = "5") int size,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "true") boolean withTotal
     ) {
         try {
             User.Role enumRole = (role != null && !role.isEmpty()) ? User.Role.valueOf(role.toUpperCase()) : null;
-            UserPage userPage = userService.searchUsers(name, enumRole, page, size);
+            UserPage userPage = userService.searchUsers(name, enumRole, page, size, after, withTotal);
             return ResponseEntity.ok(userPage);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body("Dữ liệu không hợp lệ (có thể role không tồn tại): " + e.getMessage());
@@ -177,6 +238,16 @@ public class UserController {
         }
     }
 
+    // /users/batch?ids=1,2,3 - một query cho cả danh sách, không có password/email
+    @GetMapping("/batch")
+    public ResponseEntity<?> findUsersByIds(@RequestParam List<Long> ids) {
+        try {
+            return ResponseEntity.ok(userService.getUsersByIds(ids));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     @GetMapping("/{userId}")
     public ResponseEntity<?> findUserById(@PathVariable Long userId) {
         var result = userService.getInfoUserById(userId);
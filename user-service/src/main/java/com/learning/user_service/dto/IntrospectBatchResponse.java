@@ -0,0 +1,16 @@
+package com.learning.user_service.dto;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class IntrospectBatchResponse {
+    // Cùng thứ tự với IntrospectBatchRequest.tokens
+    List<IntrospectResponse> results;
+}
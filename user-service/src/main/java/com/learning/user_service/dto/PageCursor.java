@@ -0,0 +1,39 @@
+package com.learning.user_service.dto;
+
+import com.learning.user_service.entity.User;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Vị trí ngay sau bản ghi cuối của trang trước theo thứ tự created_at DESC, id DESC.
+ * Client nhận/gửi lại dưới dạng chuỗi base64url của "createdAt|id" (tham số after).
+ */
+public record PageCursor(LocalDateTime createdAt, Long id) {
+
+    public static PageCursor after(User user) {
+        return new PageCursor(user.getCreatedAt(), user.getId());
+    }
+
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((createdAt + "|" + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Null khi không có cursor (trang đầu)
+    public static PageCursor decode(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+            int separator = decoded.lastIndexOf('|');
+            return new PageCursor(LocalDateTime.parse(decoded.substring(0, separator)),
+                    Long.parseLong(decoded.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Cursor không hợp lệ: " + value);
+        }
+    }
+}
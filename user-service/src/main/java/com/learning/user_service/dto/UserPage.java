@@ -14,7 +14,11 @@ import java.util.List;
 @FieldDefaults(level = AccessLevel.PRIVATE)
 public class UserPage {
     private List<UserResponse> user;
-    private long totalElements;
-    private int totalPages;
+    // Gần đúng (xem PageCountCache), null khi gọi với withTotal=false
+    private Long totalElements;
+    private Integer totalPages;
     private int currentPage;
+    // Truyền lại làm after để lấy trang kế; null khi hết dữ liệu hoặc kết quả xếp theo độ liên quan
+    private String nextCursor;
+    private boolean hasNext;
 }
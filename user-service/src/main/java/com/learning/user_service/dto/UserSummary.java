@@ -0,0 +1,22 @@
+package com.learning.user_service.dto;
+
+import com.learning.user_service.entity.User;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+/**
+ * Thông tin hiển thị của user cho service khác (tên, avatar...). Được select thẳng
+ * bằng constructor expression nên không bao giờ load cột password.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class UserSummary {
+    Long id;
+    String name;
+    String username;
+    String avatarUrl;
+    User.Role role;
+}
@@ -0,0 +1,25 @@
+package com.learning.user_service.dto;
+
+import com.learning.user_service.entity.User;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.time.LocalDateTime;
+
+/**
+ * Event gửi lên topic user-updated mỗi khi thông tin hiển thị của user thay đổi (tên, avatar, role...).
+ * Các service khác dùng nó để xoá profile trong near cache thay vì chờ TTL.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class UserUpdatedEvent {
+    Long id;
+    String name;
+    String username;
+    String avatarUrl;
+    User.Role role;
+    LocalDateTime updatedAt;
+}
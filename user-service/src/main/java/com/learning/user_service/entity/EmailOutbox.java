@@ -0,0 +1,62 @@
+package com.learning.user_service.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.util.Date;
+
+/**
+ * Email chờ gửi, được ghi cùng transaction với thay đổi sinh ra nó (vd. user mới + OTP).
+ * EmailOutboxDispatcher lấy theo lô và gửi; dedupeKey unique nên cùng một email không được xếp hai lần.
+ */
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@Entity
+@Table(name = "email_outbox",
+        uniqueConstraints = @UniqueConstraint(name = "uk_email_outbox_dedupe", columnNames = "dedupeKey"),
+        indexes = @Index(name = "idx_email_outbox_due", columnList = "status, nextAttemptAt"))
+public class EmailOutbox {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    Long id;
+
+    @Column(nullable = false, length = 191)
+    String dedupeKey;
+
+    @Column(nullable = false)
+    String recipient;
+
+    String subject;
+
+    @Column(columnDefinition = "TEXT")
+    String body;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    Status status;
+
+    int attempts;
+
+    // PENDING: thời điểm được gửi (lần đầu hoặc sau backoff); SENDING: hết lease thì worker khác nhận lại
+    @Column(nullable = false)
+    Date nextAttemptAt;
+
+    // Quá hạn thì bỏ, không gửi (vd. OTP đã hết hiệu lực)
+    Date expiresAt;
+
+    Date createdAt;
+
+    Date sentAt;
+
+    @Column(length = 500)
+    String lastError;
+
+    public enum Status {
+        PENDING, SENDING, SENT, FAILED
+    }
+}
@@ -2,10 +2,14 @@ package com.learning.user_service.entity;
 
 import java.util.Date;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
 
 import lombok.*;
+import org.hibernate.annotations.Generated;
 import lombok.experimental.FieldDefaults;
 
 @Getter
@@ -15,9 +19,15 @@ import lombok.experimental.FieldDefaults;
 @AllArgsConstructor
 @FieldDefaults(level = AccessLevel.PRIVATE)
 @Entity
+@Table(indexes = @Index(name = "idx_invalidated_token_expiry", columnList = "expiryTime"))
 public class InvalidatedToken {
     @Id
     String id;
 
     Date expiryTime;
+
+    // Thứ tự ghi, do MySQL cấp: sync của các instance chỉ đọc các dòng có seq lớn hơn dòng cuối đã thấy
+    @Generated
+    @Column(columnDefinition = "BIGINT AUTO_INCREMENT UNIQUE")
+    Long seq;
 }
@@ -0,0 +1,40 @@
+package com.learning.user_service.entity;
+
+import java.util.Date;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+/**
+ * Khoá ký JWT (RSA/EC) dùng chung giữa các instance user-service. {@code jwk} chứa cả
+ * private key, mã hoá AES-GCM bằng app.signing-keys.encryption-key (tiền tố {@code enc:v1:});
+ * chỉ phần public được publish qua JWKS.
+ */
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@Entity
+@Table(name = "signing_key")
+public class SigningKey {
+    @Id
+    String id;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    String jwk;
+
+    // Bắt đầu dùng để ký từ lúc này; trước đó chỉ được publish để các service kịp tải về
+    @Column(nullable = false)
+    Date activatesAt;
+
+    // Sau thời điểm này không còn token hợp lệ nào ký bằng khoá này
+    @Column(nullable = false)
+    Date expiresAt;
+}
@@ -1,6 +1,7 @@
 package com.learning.user_service.entity;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.learning.user_service.service.UserSearchIndexListener;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -9,7 +10,12 @@ import lombok.AllArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = {
+        @Index(name = "idx_users_username", columnList = "username"),
+        @Index(name = "idx_users_updated_at", columnList = "updated_at"),
+        @Index(name = "idx_users_created_at_id", columnList = "created_at, id")
+})
+@EntityListeners(UserSearchIndexListener.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -62,6 +68,12 @@ public class User {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt = LocalDateTime.now();
 
+    // UserSearchIndex đồng bộ giữa các instance theo updated_at, nên mọi lần update đều phải cập nhật nó
+    @PreUpdate
+    void touchUpdatedAt() {
+        this.updatedAt = LocalDateTime.now();
+    }
+
     public enum Role {
         STUDENT, INSTRUCTOR, ADMIN
     }
@@ -18,6 +18,8 @@ public enum ErrorCode {
     EMAIL_IS_EXISTED(1011, "Email already existed", HttpStatus.BAD_REQUEST),
     USER_NOT_EXISTED(1012, "User not existed", HttpStatus.BAD_REQUEST),
     INVALID_PASSWORD(1013, "Invalid password", HttpStatus.BAD_REQUEST),
+    PASSWORD_HASHING_BUSY(1014, "Server is busy, please retry", HttpStatus.SERVICE_UNAVAILABLE),
+    INTROSPECT_BATCH_TOO_LARGE(1015, "Too many tokens in one introspect batch", HttpStatus.BAD_REQUEST),
     ;
 
     ErrorCode(int code, String message, HttpStatusCode statusCode) {
@@ -1,20 +1,62 @@
 package com.learning.user_service.graphql;
 
+import com.learning.user_service.dto.UserPage;
+import com.learning.user_service.dto.UserSummary;
 import com.learning.user_service.entity.User;
+import com.learning.user_service.repository.UserRepository;
 import com.learning.user_service.service.UserService;
+import org.dataloader.DataLoader;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.graphql.data.method.annotation.Argument;
 import org.springframework.graphql.data.method.annotation.QueryMapping;
+import org.springframework.graphql.execution.BatchLoaderRegistry;
 import org.springframework.stereotype.Controller;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Controller
 public class UserGrahqlController {
     @Autowired
     private UserService userService;
+
+    public UserGrahqlController(BatchLoaderRegistry batchLoaderRegistry, UserRepository userRepository) {
+        // Mọi getUserById trong cùng một request (alias, resolver lồng nhau) gom thành một findAllById
+        batchLoaderRegistry.forTypePair(Long.class, User.class)
+                .registerMappedBatchLoader((ids, env) -> Mono.fromCallable(() -> userRepository.findAllById(ids)
+                        .stream()
+                        .collect(Collectors.toMap(User::getId, Function.identity()))));
+    }
+
+    @QueryMapping
+    public CompletableFuture<User> getUserById(@Argument Long id, DataLoader<Long, User> userLoader) {
+        return userLoader.load(id).thenApply(user -> {
+            if (user == null) {
+                throw new IllegalArgumentException("User không tồn tại");
+            }
+            return user;
+        });
+    }
+
+    @QueryMapping
+    public List<UserSummary> getUsersByIds(@Argument List<Long> ids) {
+        return userService.getUsersByIds(ids);
+    }
+
+    @QueryMapping
+    public UserPage findAllUsers(@Argument Integer page, @Argument Integer size,
+                                 @Argument String after, @Argument Boolean withTotal) {
+        return userService.findAllUsers(page != null ? page : 0, size != null ? size : 10, after,
+                withTotal == null || withTotal);
+    }
+
     @QueryMapping
-    public User getUserById(@Argument Long id) {
-        return userService.getUserById(id);
+    public UserPage searchUsers(@Argument String name, @Argument User.Role role, @Argument Integer page,
+                                @Argument Integer size, @Argument String after, @Argument Boolean withTotal) {
+        return userService.searchUsers(name, role, page != null ? page : 0, size != null ? size : 5, after,
+                withTotal == null || withTotal);
     }
 }
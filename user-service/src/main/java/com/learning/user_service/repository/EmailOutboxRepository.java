@@ -0,0 +1,46 @@
+package com.learning.user_service.repository;
+
+import com.learning.user_service.entity.EmailOutbox;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+public interface EmailOutboxRepository extends JpaRepository<EmailOutbox, Long> {
+
+    // Trùng dedupe_key thì bỏ qua (0 dòng) thay vì lỗi làm rollback transaction của người gọi
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO email_outbox (dedupe_key, recipient, subject, body, status, attempts, "
+            + "next_attempt_at, expires_at, created_at) "
+            + "VALUES (:dedupeKey, :recipient, :subject, :body, 'PENDING', 0, :now, :expiresAt, :now)", nativeQuery = true)
+    int insertIfAbsent(@Param("dedupeKey") String dedupeKey, @Param("recipient") String recipient,
+                       @Param("subject") String subject, @Param("body") String body,
+                       @Param("expiresAt") Date expiresAt, @Param("now") Date now);
+
+    // SKIP LOCKED: nhiều worker/instance cùng lấy mà không chờ nhau và không lấy trùng dòng
+    @Query(value = "SELECT id FROM email_outbox WHERE status IN ('PENDING', 'SENDING') AND next_attempt_at <= :now "
+            + "ORDER BY next_attempt_at LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Long> lockDue(@Param("now") Date now, @Param("limit") int limit);
+
+    @Modifying
+    @Query("UPDATE EmailOutbox e SET e.status = com.learning.user_service.entity.EmailOutbox.Status.SENDING, "
+            + "e.attempts = e.attempts + 1, e.nextAttemptAt = :leaseUntil WHERE e.id IN :ids")
+    int markSending(@Param("ids") Collection<Long> ids, @Param("leaseUntil") Date leaseUntil);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE EmailOutbox e SET e.status = com.learning.user_service.entity.EmailOutbox.Status.SENT, "
+            + "e.sentAt = :now, e.lastError = null WHERE e.id IN :ids")
+    int markSent(@Param("ids") Collection<Long> ids, @Param("now") Date now);
+
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM email_outbox WHERE status IN ('SENT', 'FAILED') AND created_at <= :before LIMIT :limit",
+            nativeQuery = true)
+    int deleteFinishedBefore(@Param("before") Date before, @Param("limit") int limit);
+}
@@ -1,8 +1,25 @@
 package com.learning.user_service.repository;
 
 import com.learning.user_service.entity.InvalidatedToken;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Date;
+import java.util.List;
 
 @Repository
-public interface InvalidatedTokenRepository extends JpaRepository<InvalidatedToken, String> {}
+public interface InvalidatedTokenRepository extends JpaRepository<InvalidatedToken, String> {
+
+    List<InvalidatedToken> findBySeqGreaterThanAndExpiryTimeAfterOrderBySeqAsc(Long seq, Date time, Pageable pageable);
+
+    // Xoá theo lô để không khoá bảng lâu, gọi lại tới khi trả về < limit
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM invalidated_token WHERE expiry_time <= :time LIMIT :limit", nativeQuery = true)
+    int deleteExpired(@Param("time") Date time, @Param("limit") int limit);
+}
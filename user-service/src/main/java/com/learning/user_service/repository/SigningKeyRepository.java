@@ -0,0 +1,26 @@
+package com.learning.user_service.repository;
+
+import com.learning.user_service.entity.SigningKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Date;
+import java.util.List;
+
+@Repository
+public interface SigningKeyRepository extends JpaRepository<SigningKey, String> {
+
+    List<SigningKey> findByExpiresAtAfter(Date time);
+
+    // Không ghi đè khoá instance khác đã tạo với cùng kid
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT IGNORE INTO signing_key (id, jwk, activates_at, expires_at) "
+            + "VALUES (:id, :jwk, :activatesAt, :expiresAt)", nativeQuery = true)
+    int insertIfAbsent(@Param("id") String id, @Param("jwk") String jwk,
+                       @Param("activatesAt") Date activatesAt, @Param("expiresAt") Date expiresAt);
+}
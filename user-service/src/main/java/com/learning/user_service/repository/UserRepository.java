@@ -1,24 +1,77 @@
 package com.learning.user_service.repository;
 
+import com.learning.user_service.dto.UserSummary;
 import com.learning.user_service.entity.User;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
+
+    interface SearchRow {
+        Long getId();
+        String getName();
+        String getEmail();
+        User.Role getRole();
+        LocalDateTime getCreatedAt();
+        LocalDateTime getUpdatedAt();
+    }
+
     boolean existsByUsername(String username);
     boolean existsByEmail(String email);
     Optional<User> findByUsername(String username);
     Optional<User> findByEmail(String email);
     List<User> findByRole(User.Role role);
 
-    @Query("SELECT u FROM User u WHERE (:name IS NULL OR LOWER(u.name) LIKE LOWER(CONCAT('%', :name, '%'))) " +
-            "AND (:role IS NULL OR u.role = :role)")
-    Page<User> findByNameContainingOrRole(String name, User.Role role, Pageable pageable);
+    // Danh sách user (tuỳ chọn lọc theo tên và role), mới nhất trước. Ba query dùng chung một điều kiện lọc;
+    // null nghĩa là không lọc. Slice lấy size + 1 dòng để biết còn trang sau, không kèm COUNT(*)
+    String USER_FILTER = "(:name IS NULL OR LOWER(u.name) LIKE LOWER(CONCAT('%', :name, '%'))) " +
+            "AND (:role IS NULL OR u.role = :role)";
+
+    // Trang đầu (hoặc trang theo số khi client chưa dùng cursor)
+    @Query("SELECT u FROM User u WHERE " + USER_FILTER + " ORDER BY u.createdAt DESC, u.id DESC")
+    Slice<User> findUserPage(@Param("name") String name, @Param("role") User.Role role, Pageable pageable);
+
+    // Trang sau cursor (createdAt, id): seek trên idx_users_created_at_id thay cho OFFSET
+    @Query("SELECT u FROM User u WHERE " + USER_FILTER +
+            " AND (u.createdAt < :createdAt OR (u.createdAt = :createdAt AND u.id < :id))" +
+            " ORDER BY u.createdAt DESC, u.id DESC")
+    Slice<User> findUserPageBefore(@Param("name") String name, @Param("role") User.Role role,
+                                   @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id,
+                                   Pageable pageable);
+
+    @Query("SELECT COUNT(u) FROM User u WHERE " + USER_FILTER)
+    long countUsers(@Param("name") String name, @Param("role") User.Role role);
     Optional<User> findByEmailAndOtp(String email, String otp);
     Optional<User> findByProviderAndProviderId(String provider, String providerId);
+
+    @Query("SELECT new com.learning.user_service.dto.UserSummary(u.id, u.name, u.username, u.avatarUrl, u.role) " +
+            "FROM User u WHERE u.id IN :ids")
+    List<UserSummary> findSummariesByIdIn(Collection<Long> ids);
+
+    // Tất cả username bắt đầu bằng prefix; %, _ và ! trong prefix phải được escape bằng '!' (không dùng backslash vì MySQL coi nó là escape của chuỗi)
+    @Query("SELECT u.username FROM User u WHERE u.username LIKE CONCAT(:prefix, '%') ESCAPE '!'")
+    List<String> findUsernamesStartingWith(@Param("prefix") String prefix);
+
+    // Đọc user theo id tăng dần (keyset) để nạp UserSearchIndex
+    <T> List<T> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable, Class<T> type);
+
+    // User thay đổi từ một thời điểm, để UserSearchIndex thấy thay đổi của instance khác
+    <T> Slice<T> findByUpdatedAtGreaterThanEqual(LocalDateTime since, Pageable pageable, Class<T> type);
+
+    // Chỉ ghi khi hash chưa bị đổi ở request khác (đổi mật khẩu trong lúc đang rehash)
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.password = :newHash WHERE u.id = :id AND u.password = :oldHash")
+    int updatePasswordIfUnchanged(@Param("id") Long id, @Param("oldHash") String oldHash,
+                                  @Param("newHash") String newHash);
 }
@@ -1,59 +1,114 @@
 package com.learning.user_service.security;  // Adjust package as needed
 
-import com.learning.user_service.dto.IntrospectRequest;
-import com.learning.user_service.dto.IntrospectResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.learning.user_service.exception.AppException;
+import com.learning.user_service.service.TokenRevocationStore;
 import com.learning.user_service.service.UserService;
 import com.nimbusds.jose.JOSEException;
-
-import com.nimbusds.jose.JWSAlgorithm;
-import com.nimbusds.jwt.JWT;
-import lombok.RequiredArgsConstructor;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Lazy;
-import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
 import org.springframework.security.oauth2.jwt.*;
 import org.springframework.stereotype.Component;
 
-
-import javax.crypto.spec.SecretKeySpec;
 import java.text.ParseException;
-import java.util.Objects;
+import java.time.Instant;
+import java.util.Map;
 
+/**
+ * Decodes bearer tokens with a single parse + signature check (done by
+ * {@link UserService#verifyAccessToken}) and keeps the resulting {@link Jwt} until the
+ * token expires, so repeated requests with the same token skip HMAC verification.
+ * A cached token is still checked against the revocation deny list on every use.
+ */
 @Slf4j
 @Component
-@RequiredArgsConstructor
 public class CustomJwtDecoder implements JwtDecoder {
 
-    @Value("${jwt.signerKey}")
-    private String jwtSecret;
+    // iss "devteria.com" không phải URL: converter mặc định thử new URL(), ném exception rồi mới giữ string
+    private static final MappedJwtClaimSetConverter CLAIM_SET_CONVERTER = MappedJwtClaimSetConverter
+            .withDefaults(Map.of(JwtClaimNames.ISS, issuer -> issuer == null ? null : issuer.toString()));
 
-    @Autowired
-    @Lazy
-    private UserService authenticationService;
+    private final UserService authenticationService;
+    private final TokenRevocationStore tokenRevocationStore;
+    // null khi max-size = 0 (tắt cache)
+    private final Cache<String, Jwt> cache;
 
-    private NimbusJwtDecoder nimbusJwtDecoder = null;
+    public CustomJwtDecoder(@Lazy UserService authenticationService, TokenRevocationStore tokenRevocationStore,
+                            @Value("${jwt.decoder-cache.max-size:10000}") long maxSize) {
+        this.authenticationService = authenticationService;
+        this.tokenRevocationStore = tokenRevocationStore;
+        this.cache = maxSize <= 0 ? null : Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<String, Jwt>() {
+                    @Override
+                    public long expireAfterCreate(String token, Jwt jwt, long currentTime) {
+                        return untilExpiry(jwt);
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String token, Jwt jwt, long currentTime, long currentDuration) {
+                        return untilExpiry(jwt);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String token, Jwt jwt, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
 
     @Override
     public Jwt decode(String token) throws JwtException {
+        Jwt cached = cache != null ? cache.getIfPresent(token) : null;
+        if (cached != null) {
+            if (tokenRevocationStore.isRevoked(cached.getId())) {
+                cache.invalidate(token);
+                throw new BadJwtException("Token invalid");
+            }
+            return cached;
+        }
 
+        SignedJWT signedJWT;
         try {
-            var response = authenticationService.introspect(
-                    IntrospectRequest.builder().token(token).build());
-
-            if (!response.isValid()) throw new JwtException("Token invalid");
+            signedJWT = authenticationService.verifyAccessToken(token);
+        } catch (AppException e) {
+            throw new BadJwtException("Token invalid");
         } catch (JOSEException | ParseException e) {
             throw new JwtException(e.getMessage());
         }
 
-        if (Objects.isNull(nimbusJwtDecoder)) {
-            SecretKeySpec secretKeySpec = new SecretKeySpec(jwtSecret.getBytes(), "HS512");
-            nimbusJwtDecoder = NimbusJwtDecoder.withSecretKey(secretKeySpec)
-                    .macAlgorithm(MacAlgorithm.HS512)
+        Jwt jwt = toJwt(token, signedJWT);
+        if (cache != null) {
+            cache.put(token, jwt);
+        }
+        return jwt;
+    }
+
+    private static Jwt toJwt(String token, SignedJWT signedJWT) {
+        try {
+            JWTClaimsSet claimsSet = signedJWT.getJWTClaimsSet();
+            // Cùng chuyển đổi claim (exp/iat -> Instant, ...) như NimbusJwtDecoder
+            Map<String, Object> claims = CLAIM_SET_CONVERTER.convert(claimsSet.getClaims());
+            return Jwt.withTokenValue(token)
+                    .headers(headers -> headers.putAll(signedJWT.getHeader().toJSONObject()))
+                    .claims(values -> values.putAll(claims))
                     .build();
+        } catch (ParseException e) {
+            throw new BadJwtException(e.getMessage(), e);
         }
+    }
 
-        return nimbusJwtDecoder.decode(token);
+    private static long untilExpiry(Jwt jwt) {
+        Instant expiresAt = jwt.getExpiresAt();
+        if (expiresAt == null) {
+            return 0;
+        }
+        return Math.max(0, expiresAt.toEpochMilli() - System.currentTimeMillis()) * 1_000_000;
     }
-}
\ No newline at end of file
+}
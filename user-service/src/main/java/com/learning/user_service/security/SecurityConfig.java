@@ -1,11 +1,16 @@
 package com.learning.user_service.security;
 
+import com.learning.user_service.config.PasswordHashingProperties;
 import com.learning.user_service.service.CustomOAuth2UserService;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -17,12 +22,16 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
 import org.springframework.security.oauth2.server.resource.authentication.JwtGrantedAuthoritiesConverter;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.util.Arrays;
 
+@Slf4j
 @Configuration
 @EnableWebSecurity
 @EnableMethodSecurity
@@ -44,12 +53,22 @@ public class SecurityConfig {
             "/graphql",
     };
 
+    // Shared credential của gateway, rỗng thì không ai gọi được /users/introspect/batch
+    @Value("${app.introspect-batch.internal-key:}")
+    private String internalKey;
+
+    private final String[] PUBLIC_GET_ENDPOINTS = {
+            "/users/.well-known/jwks.json",
+    };
+
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity httpSecurity) throws Exception {
         httpSecurity
                 .cors(Customizer.withDefaults())  // ← THÊM NÀY: Sử dụng CorsConfigurationSource
                 .authorizeHttpRequests(request -> request
                         .requestMatchers(HttpMethod.POST, PUBLIC_ENDPOINTS).permitAll()
+                        .requestMatchers(HttpMethod.GET, PUBLIC_GET_ENDPOINTS).permitAll()
+                        .requestMatchers(HttpMethod.POST, "/users/introspect/batch").access(internalCaller())
                         .requestMatchers(HttpMethod.OPTIONS, PUBLIC_ENDPOINTS).permitAll()  // ← THÊM OPTIONS explicit
                         .anyRequest().authenticated()
                 )
@@ -86,6 +105,18 @@ public class SecurityConfig {
 //        return source;
 //    }
 
+    private AuthorizationManager<RequestAuthorizationContext> internalCaller() {
+        if (internalKey.isBlank()) {
+            log.warn("app.introspect-batch.internal-key (INTERNAL_API_KEY) is not set, /users/introspect/batch rejects every call");
+        }
+        byte[] expected = internalKey.getBytes(StandardCharsets.UTF_8);
+        return (authentication, context) -> {
+            String key = context.getRequest().getHeader("X-Internal-Key");
+            return new AuthorizationDecision(!internalKey.isEmpty() && key != null
+                    && MessageDigest.isEqual(expected, key.getBytes(StandardCharsets.UTF_8)));
+        };
+    }
+
     @Bean
     public JwtAuthenticationConverter jwtAuthenticationConverter() {
         JwtGrantedAuthoritiesConverter jwtGrantedAuthoritiesConverter = new JwtGrantedAuthoritiesConverter();
@@ -99,7 +130,7 @@ public class SecurityConfig {
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder(10);
+    public PasswordEncoder passwordEncoder(PasswordHashingProperties passwordHashingProperties) {
+        return new BCryptPasswordEncoder(passwordHashingProperties.getCost());
     }
 }
\ No newline at end of file
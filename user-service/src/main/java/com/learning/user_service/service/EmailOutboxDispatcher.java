@@ -0,0 +1,211 @@
+package com.learning.user_service.service;
+
+import com.learning.user_service.config.EmailOutboxProperties;
+import com.learning.user_service.entity.EmailOutbox;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.mail.SendFailedException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Worker gửi email từ outbox.
+ *
+ * Mỗi worker nhận một lô (FOR UPDATE SKIP LOCKED nên nhiều worker/instance không lấy trùng) và gửi cả lô
+ * qua một kết nối SMTP bằng JavaMailSender.send(SimpleMailMessage...). Email lỗi được thử lại theo backoff,
+ * email gửi được đánh dấu SENT ngay sau lô. Khi outbox rỗng worker ngủ tới poll-interval hoặc tới khi có
+ * email mới commit. Meter: email.outbox.sent, email.outbox.failed{outcome=retry|dropped},
+ * email.outbox.delivery.delay (từ lúc xếp tới lúc gửi xong).
+ */
+@Slf4j
+@Component
+public class EmailOutboxDispatcher implements SmartLifecycle {
+
+    private static final int PURGE_BATCH_SIZE = 1000;
+
+    private final EmailOutboxService emailOutboxService;
+    private final JavaMailSender mailSender;
+    private final EmailOutboxProperties properties;
+    private final Semaphore wakeups = new Semaphore(0);
+    private final Counter sent;
+    private final Counter retried;
+    private final Counter dropped;
+    private final Timer deliveryDelay;
+    private volatile ExecutorService workers;
+
+    public EmailOutboxDispatcher(EmailOutboxService emailOutboxService, JavaMailSender mailSender,
+                                 EmailOutboxProperties properties, MeterRegistry meterRegistry) {
+        this.emailOutboxService = emailOutboxService;
+        this.mailSender = mailSender;
+        this.properties = properties;
+        this.sent = Counter.builder("email.outbox.sent").register(meterRegistry);
+        this.retried = Counter.builder("email.outbox.failed").tag("outcome", "retry").register(meterRegistry);
+        this.dropped = Counter.builder("email.outbox.failed").tag("outcome", "dropped").register(meterRegistry);
+        this.deliveryDelay = Timer.builder("email.outbox.delivery.delay").register(meterRegistry);
+    }
+
+    @Override
+    public void start() {
+        int count = Math.max(1, properties.getWorkers());
+        AtomicInteger threadIndex = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(count, runnable -> {
+            Thread thread = new Thread(runnable, "email-outbox-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < count; i++) {
+            executor.execute(this::runWorker);
+        }
+        workers = executor;
+        log.info("Email outbox dispatcher started with {} workers", count);
+    }
+
+    @Override
+    public void stop() {
+        ExecutorService executor = workers;
+        workers = null;
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return workers != null;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEmailQueued(EmailOutboxService.EmailQueued event) {
+        if (wakeups.availablePermits() < properties.getWorkers()) {
+            wakeups.release();
+        }
+    }
+
+    private void runWorker() {
+        while (workers != null && !Thread.currentThread().isInterrupted()) {
+            try {
+                int claimed = drainOnce();
+                if (claimed < properties.getBatchSize()) {
+                    wakeups.tryAcquire(properties.getPollInterval().toMillis(), TimeUnit.MILLISECONDS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                log.warn("Email outbox worker error: {}", e.getMessage());
+                try {
+                    Thread.sleep(properties.getPollInterval().toMillis());
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    /**
+     * Nhận và gửi một lô, trả về số email đã nhận.
+     */
+    public int drainOnce() {
+        List<EmailOutbox> batch = emailOutboxService.claimBatch(properties.getBatchSize());
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        long now = System.currentTimeMillis();
+        List<EmailOutbox> deliverable = new ArrayList<>(batch.size());
+        for (EmailOutbox email : batch) {
+            if (email.getExpiresAt() != null && email.getExpiresAt().getTime() <= now) {
+                emailOutboxService.markFailed(email, "expired before delivery", true);
+                dropped.increment();
+            } else {
+                deliverable.add(email);
+            }
+        }
+        if (!deliverable.isEmpty()) {
+            send(deliverable);
+        }
+        return batch.size();
+    }
+
+    private void send(List<EmailOutbox> batch) {
+        SimpleMailMessage[] messages = new SimpleMailMessage[batch.size()];
+        for (int i = 0; i < messages.length; i++) {
+            EmailOutbox email = batch.get(i);
+            SimpleMailMessage message = new SimpleMailMessage();
+            message.setTo(email.getRecipient());
+            message.setSubject(email.getSubject());
+            message.setText(email.getBody());
+            messages[i] = message;
+        }
+
+        Map<Object, Exception> failures = Map.of();
+        try {
+            mailSender.send(messages);
+        } catch (MailSendException e) {
+            failures = e.getFailedMessages();
+        } catch (MailException e) {
+            // Lỗi trước khi gửi được email nào (kết nối, xác thực): cả lô thử lại sau
+            for (EmailOutbox email : batch) {
+                recordFailure(email, e, false);
+            }
+            return;
+        }
+
+        List<Long> sentIds = new ArrayList<>(batch.size());
+        for (int i = 0; i < messages.length; i++) {
+            Exception failure = failures.get(messages[i]);
+            if (failure == null) {
+                sentIds.add(batch.get(i).getId());
+            } else {
+                boolean permanent = failure instanceof SendFailedException sendFailed
+                        && sendFailed.getInvalidAddresses() != null && sendFailed.getInvalidAddresses().length > 0;
+                recordFailure(batch.get(i), failure, permanent);
+            }
+        }
+        emailOutboxService.markSent(sentIds);
+        long now = System.currentTimeMillis();
+        for (EmailOutbox email : batch) {
+            if (sentIds.contains(email.getId()) && email.getCreatedAt() != null) {
+                deliveryDelay.record(now - email.getCreatedAt().getTime(), TimeUnit.MILLISECONDS);
+            }
+        }
+        sent.increment(sentIds.size());
+    }
+
+    private void recordFailure(EmailOutbox email, Exception error, boolean permanent) {
+        log.warn("Gửi email {} tới {} lỗi (lần {}): {}", email.getDedupeKey(), email.getRecipient(),
+                email.getAttempts(), error.getMessage());
+        if (emailOutboxService.markFailed(email, error.getMessage(), permanent)) {
+            retried.increment();
+        } else {
+            dropped.increment();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "#{@emailOutboxProperties.purgeInterval.toMillis()}",
+            initialDelayString = "#{@emailOutboxProperties.purgeInterval.toMillis()}")
+    public void purgeFinished() {
+        int deleted;
+        int total = 0;
+        do {
+            deleted = emailOutboxService.purgeFinished(PURGE_BATCH_SIZE);
+            total += deleted;
+        } while (deleted == PURGE_BATCH_SIZE);
+        if (total > 0) {
+            log.info("Purged {} finished rows from email_outbox", total);
+        }
+    }
+}
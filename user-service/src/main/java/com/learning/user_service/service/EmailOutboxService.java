@@ -0,0 +1,99 @@
+package com.learning.user_service.service;
+
+import com.learning.user_service.config.EmailOutboxProperties;
+import com.learning.user_service.entity.EmailOutbox;
+import com.learning.user_service.repository.EmailOutboxRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Ghi và cập nhật trạng thái email trong bảng email_outbox. Việc gửi do EmailOutboxDispatcher làm.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class EmailOutboxService {
+
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final EmailOutboxProperties properties;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /** Phát ra khi có email mới, dispatcher nhận sau khi transaction commit để gửi ngay. */
+    public record EmailQueued(String dedupeKey) {
+    }
+
+    /**
+     * Xếp email vào outbox trong transaction hiện tại. Trả về false nếu dedupeKey đã có (email đã được xếp).
+     */
+    @Transactional
+    public boolean enqueue(String dedupeKey, String recipient, String subject, String body, Date expiresAt) {
+        int inserted = emailOutboxRepository.insertIfAbsent(dedupeKey, recipient, subject, body, expiresAt, new Date());
+        if (inserted == 0) {
+            log.info("Email {} đã có trong outbox, bỏ qua", dedupeKey);
+            return false;
+        }
+        eventPublisher.publishEvent(new EmailQueued(dedupeKey));
+        return true;
+    }
+
+    /**
+     * Nhận tối đa limit email đến hạn: chuyển sang SENDING với lease và tăng attempts.
+     */
+    @Transactional
+    public List<EmailOutbox> claimBatch(int limit) {
+        Date now = new Date();
+        List<Long> ids = emailOutboxRepository.lockDue(now, limit);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        emailOutboxRepository.markSending(ids, new Date(now.getTime() + properties.getLease().toMillis()));
+        return emailOutboxRepository.findAllById(ids);
+    }
+
+    public void markSent(Collection<Long> ids) {
+        if (!ids.isEmpty()) {
+            emailOutboxRepository.markSent(ids, new Date());
+        }
+    }
+
+    /**
+     * Lỗi tạm thời thì hẹn gửi lại theo exponential backoff; lỗi vĩnh viễn hoặc hết số lần thử thì FAILED.
+     * Trả về true nếu email sẽ được thử lại.
+     */
+    @Transactional
+    public boolean markFailed(EmailOutbox email, String error, boolean permanent) {
+        boolean retry = !permanent && email.getAttempts() < properties.getMaxAttempts();
+        email.setLastError(error != null && error.length() > 500 ? error.substring(0, 500) : error);
+        if (retry) {
+            email.setStatus(EmailOutbox.Status.PENDING);
+            email.setNextAttemptAt(new Date(System.currentTimeMillis() + backoffMillis(email.getAttempts())));
+        } else {
+            email.setStatus(EmailOutbox.Status.FAILED);
+            log.warn("Email {} tới {} bị bỏ sau {} lần thử: {}", email.getDedupeKey(), email.getRecipient(),
+                    email.getAttempts(), error);
+        }
+        emailOutboxRepository.save(email);
+        return retry;
+    }
+
+    public int purgeFinished(int limit) {
+        Date before = new Date(System.currentTimeMillis() - properties.getRetention().toMillis());
+        return emailOutboxRepository.deleteFinishedBefore(before, limit);
+    }
+
+    // initial * 2^(attempts-1), tối đa max-backoff, cộng jitter 20% để các email lỗi cùng lúc không dồn lại
+    private long backoffMillis(int attempts) {
+        long initial = properties.getInitialBackoff().toMillis();
+        long max = properties.getMaxBackoff().toMillis();
+        long backoff = attempts >= 31 ? max : Math.min(max, initial << Math.max(0, attempts - 1));
+        return backoff + ThreadLocalRandom.current().nextLong(backoff / 5 + 1);
+    }
+}
@@ -1,20 +1,25 @@
 package com.learning.user_service.service;
 
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
+import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+
+/**
+ * Soạn nội dung email và xếp vào outbox; việc gửi SMTP do EmailOutboxDispatcher làm nên request không chờ mail server.
+ */
 @Service
+@RequiredArgsConstructor
 public class EmailService {
-    @Autowired
-    private JavaMailSender mailSender;
 
-    public void sendOtpEmail(String to, String otp) {
-        SimpleMailMessage message = new SimpleMailMessage();
-        message.setTo(to);
-        message.setSubject("Xác thực tài khoản - Mã OTP");
-        message.setText("Mã OTP của bạn là: " + otp + "\nMã này có hiệu lực trong 5 phút.");
-        mailSender.send(message);
+    private final EmailOutboxService emailOutboxService;
+
+    public void sendOtpEmail(String to, String otp, LocalDateTime otpExpiry) {
+        emailOutboxService.enqueue("otp:" + to + ":" + otp, to,
+                "Xác thực tài khoản - Mã OTP",
+                "Mã OTP của bạn là: " + otp + "\nMã này có hiệu lực trong 5 phút.",
+                otpExpiry != null ? Date.from(otpExpiry.atZone(ZoneId.systemDefault()).toInstant()) : null);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,143 @@
+package com.learning.user_service.service;
+
+import com.learning.user_service.config.PasswordHashingProperties;
+import com.learning.user_service.exception.AppException;
+import com.learning.user_service.exception.ErrorCode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Chạy BCrypt trên một pool riêng có giới hạn thay vì trên thread Tomcat.
+ *
+ * Pool có số thread cố định và hàng đợi giới hạn. Khi hàng đợi đầy, yêu cầu bị từ chối ngay
+ * (PASSWORD_HASHING_BUSY → 503), nên đợt login dồn dập không chiếm hết thread xử lý
+ * /users/introspect. Meter: user.password.hash{op}, user.password.queue.wait,
+ * user.password.queue.depth, user.password.rejected, user.password.rehashed.
+ */
+@Slf4j
+@Service
+public class PasswordHasher {
+
+    private static final Pattern BCRYPT_COST = Pattern.compile("^\\$2[abxy]?\\$(\\d{2})\\$");
+
+    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingProperties properties;
+    private final ThreadPoolExecutor executor;
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+    private final Timer queueWait;
+    private final Counter rejected;
+    private final Counter rehashed;
+
+    public PasswordHasher(PasswordEncoder passwordEncoder, PasswordHashingProperties properties,
+                          MeterRegistry meterRegistry) {
+        this.passwordEncoder = passwordEncoder;
+        this.properties = properties;
+        int threads = Math.max(1, properties.getThreads());
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, properties.getQueueCapacity())),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hasher-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        this.encodeTimer = Timer.builder("user.password.hash").tag("op", "encode").register(meterRegistry);
+        this.matchesTimer = Timer.builder("user.password.hash").tag("op", "matches").register(meterRegistry);
+        this.queueWait = Timer.builder("user.password.queue.wait").register(meterRegistry);
+        this.rejected = Counter.builder("user.password.rejected").register(meterRegistry);
+        this.rehashed = Counter.builder("user.password.rehashed").register(meterRegistry);
+        Gauge.builder("user.password.queue.depth", executor, e -> e.getQueue().size()).register(meterRegistry);
+    }
+
+    public CompletableFuture<String> encodeAsync(CharSequence rawPassword) {
+        return submit(encodeTimer, () -> passwordEncoder.encode(rawPassword));
+    }
+
+    public CompletableFuture<Boolean> matchesAsync(CharSequence rawPassword, String encodedPassword) {
+        return submit(matchesTimer, () -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * Bản blocking cho các luồng không async (đăng ký, cập nhật user): vẫn bị giới hạn bởi pool,
+     * chờ tối đa max-wait.
+     */
+    public String encode(CharSequence rawPassword) {
+        return await(encodeAsync(rawPassword));
+    }
+
+    /**
+     * True nếu hash được tạo với cost khác cost đang cấu hình (hoặc không phải BCrypt).
+     */
+    public boolean needsRehash(String encodedPassword) {
+        if (encodedPassword == null) {
+            return false;
+        }
+        Matcher matcher = BCRYPT_COST.matcher(encodedPassword);
+        return !matcher.find() || Integer.parseInt(matcher.group(1)) != properties.getCost();
+    }
+
+    public void recordRehash() {
+        rehashed.increment();
+    }
+
+    private <T> CompletableFuture<T> submit(Timer timer, Supplier<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        long queuedAt = System.nanoTime();
+        try {
+            executor.execute(() -> {
+                queueWait.record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+                // Người gọi đã hết thời gian chờ thì không tốn CPU hash nữa
+                if (future.isDone()) {
+                    return;
+                }
+                try {
+                    future.complete(timer.record(task));
+                } catch (Throwable t) {
+                    future.completeExceptionally(t);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            log.warn("Password hashing queue full ({} waiting), rejecting request", executor.getQueue().size());
+            future.completeExceptionally(new AppException(ErrorCode.PASSWORD_HASHING_BUSY));
+        }
+        return future.orTimeout(properties.getMaxWait().toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw unwrap(e);
+        }
+    }
+
+    public static RuntimeException unwrap(Throwable throwable) {
+        Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null
+                ? throwable.getCause() : throwable;
+        if (cause instanceof TimeoutException) {
+            return new AppException(ErrorCode.PASSWORD_HASHING_BUSY);
+        }
+        return cause instanceof RuntimeException runtime ? runtime : new IllegalStateException(cause);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+}
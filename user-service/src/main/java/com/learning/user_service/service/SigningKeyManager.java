@@ -0,0 +1,247 @@
+package com.learning.user_service.service;
+
+import com.learning.user_service.config.SigningKeyProperties;
+import com.learning.user_service.entity.SigningKey;
+import com.learning.user_service.repository.SigningKeyRepository;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSSigner;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.crypto.ECDSASigner;
+import com.nimbusds.jose.crypto.ECDSAVerifier;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.crypto.RSASSAVerifier;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.KeyUse;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.ECKeyGenerator;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.text.ParseException;
+import java.util.Base64;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rotating asymmetric keys for signing access tokens. Keys live in the signing_key table
+ * so every user-service instance signs with the same key; each instance reloads it every
+ * reload-interval.
+ *
+ * <p>A new key is created publish-ahead before it starts signing, so services that
+ * refresh the JWKS in the background already know it when the first token arrives. An old
+ * key stays published until the last token it signed can no longer be refreshed.
+ *
+ * <p>Private JWKs are stored encrypted with AES-GCM under app.signing-keys.encryption-key
+ * (the kid is bound as associated data), so a database dump or replica alone cannot mint
+ * tokens. Rows written before encryption was configured stay readable until they expire.
+ */
+@Slf4j
+@Component
+public class SigningKeyManager {
+
+    public record ActiveKey(String kid, JWSAlgorithm algorithm, JWSSigner signer, JWSVerifier verifier,
+                            JWK publicJwk, Date activatesAt) {
+    }
+
+    private static final String ENCRYPTED_PREFIX = "enc:v1:";
+    private static final int GCM_IV_BYTES = 12;
+    private static final int GCM_TAG_BITS = 128;
+
+    private final SigningKeyRepository signingKeyRepository;
+    private final SigningKeyProperties properties;
+    private final long refreshableSeconds;
+    // null: private JWK lưu dạng rõ (chưa cấu hình encryption-key)
+    private final SecretKey encryptionKey;
+    private final SecureRandom random = new SecureRandom();
+
+    // Mới nhất trước
+    private volatile List<ActiveKey> keys = List.of();
+    private volatile Map<String, ActiveKey> keysById = Map.of();
+    private volatile String jwksJson = new JWKSet().toString();
+
+    public SigningKeyManager(SigningKeyRepository signingKeyRepository, SigningKeyProperties properties,
+                             @Value("${jwt.refreshable-duration}") long refreshableSeconds) {
+        this.signingKeyRepository = signingKeyRepository;
+        this.properties = properties;
+        this.refreshableSeconds = refreshableSeconds;
+        String configuredKey = properties.getEncryptionKey();
+        if (configuredKey == null || configuredKey.isBlank()) {
+            this.encryptionKey = null;
+            log.warn("app.signing-keys.encryption-key is not set, private signing keys are stored unencrypted");
+        } else {
+            byte[] raw = Base64.getDecoder().decode(configuredKey.trim());
+            if (raw.length != 16 && raw.length != 24 && raw.length != 32) {
+                throw new IllegalStateException("app.signing-keys.encryption-key must be a base64 AES key of 16, 24 or 32 bytes");
+            }
+            this.encryptionKey = new SecretKeySpec(raw, "AES");
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        reload();
+    }
+
+    /**
+     * @return the key to sign new tokens with: the newest key that is already active
+     */
+    public ActiveKey signingKey() {
+        long now = System.currentTimeMillis();
+        for (ActiveKey key : keys) {
+            if (key.activatesAt().getTime() <= now) {
+                return key;
+            }
+        }
+        throw new IllegalStateException("No active signing key");
+    }
+
+    /**
+     * @return the verifier for a published key, null if the kid is unknown or the
+     * algorithm does not match the key
+     */
+    public JWSVerifier verifier(String kid, JWSAlgorithm algorithm) {
+        ActiveKey key = keysById.get(kid);
+        return key != null && key.algorithm().equals(algorithm) ? key.verifier() : null;
+    }
+
+    /**
+     * @return the public keys as a JWKS document, rebuilt only when the key set changes
+     */
+    public String jwksJson() {
+        return jwksJson;
+    }
+
+    @Scheduled(initialDelayString = "#{@signingKeyProperties.reloadInterval.toMillis()}",
+            fixedDelayString = "#{@signingKeyProperties.reloadInterval.toMillis()}")
+    public synchronized void reload() {
+        Date now = new Date();
+        List<SigningKey> rows = new ArrayList<>(signingKeyRepository.findByExpiresAtAfter(now));
+        Date newest = rows.stream().map(SigningKey::getActivatesAt).max(Comparator.naturalOrder()).orElse(null);
+
+        if (newest == null) {
+            // Lần đầu (hoặc service tắt quá lâu): chưa có token nào cần khoá mới, dùng ngay
+            rows.add(create(now));
+        } else if (newest.getTime() + properties.getRotationInterval().toMillis()
+                - properties.getPublishAhead().toMillis() <= now.getTime()) {
+            long activatesAt = Math.max(newest.getTime() + properties.getRotationInterval().toMillis(),
+                    now.getTime() + properties.getPublishAhead().toMillis());
+            rows.add(create(new Date(activatesAt)));
+        }
+
+        if (rows.size() == keysById.size() && rows.stream().allMatch(row -> keysById.containsKey(row.getId()))) {
+            return;
+        }
+
+        Map<String, ActiveKey> byId = new HashMap<>();
+        for (SigningKey row : rows) {
+            ActiveKey existing = keysById.get(row.getId());
+            ActiveKey key = existing != null ? existing : load(row);
+            if (key != null) {
+                byId.put(key.kid(), key);
+            }
+        }
+        List<ActiveKey> sorted = byId.values().stream()
+                .sorted(Comparator.comparing(ActiveKey::activatesAt).reversed())
+                .toList();
+
+        keysById = Map.copyOf(byId);
+        keys = sorted;
+        jwksJson = new JWKSet(sorted.stream().map(ActiveKey::publicJwk).toList()).toString();
+        log.info("Signing keys loaded: {}", sorted.stream().map(ActiveKey::kid).toList());
+    }
+
+    private SigningKey create(Date activatesAt) {
+        // kid suy ra từ thời điểm kích hoạt: hai instance cùng xoay khoá sẽ tranh cùng một dòng,
+        // dòng ghi trước thắng và instance còn lại dùng khoá đó
+        String algorithm = properties.getAlgorithm().toUpperCase();
+        String kid = algorithm.toLowerCase() + "-" + activatesAt.getTime() / 1000;
+        Date expiresAt = new Date(activatesAt.getTime() + properties.getRotationInterval().toMillis()
+                + properties.getPublishAhead().toMillis() + refreshableSeconds * 1000);
+        try {
+            JWK jwk = switch (algorithm) {
+                case "RS256" -> new RSAKeyGenerator(2048)
+                        .keyID(kid).keyUse(KeyUse.SIGNATURE).algorithm(JWSAlgorithm.RS256).generate();
+                case "ES256" -> new ECKeyGenerator(Curve.P_256)
+                        .keyID(kid).keyUse(KeyUse.SIGNATURE).algorithm(JWSAlgorithm.ES256).generate();
+                default -> throw new IllegalStateException("Unsupported signing algorithm: " + algorithm);
+            };
+            if (signingKeyRepository.insertIfAbsent(kid, seal(kid, jwk.toJSONString()), activatesAt, expiresAt) > 0) {
+                log.info("Created signing key {} active from {}", kid, activatesAt);
+            }
+            return signingKeyRepository.findById(kid).orElseThrow();
+        } catch (JOSEException e) {
+            throw new IllegalStateException("Cannot generate signing key", e);
+        }
+    }
+
+    private ActiveKey load(SigningKey row) {
+        try {
+            JWK jwk = JWK.parse(unseal(row.getId(), row.getJwk()));
+            if (jwk instanceof RSAKey rsaKey) {
+                return new ActiveKey(row.getId(), JWSAlgorithm.RS256, new RSASSASigner(rsaKey),
+                        new RSASSAVerifier(rsaKey.toPublicJWK()), jwk.toPublicJWK(), row.getActivatesAt());
+            }
+            if (jwk instanceof ECKey ecKey) {
+                return new ActiveKey(row.getId(), JWSAlgorithm.ES256, new ECDSASigner(ecKey),
+                        new ECDSAVerifier(ecKey.toPublicJWK()), jwk.toPublicJWK(), row.getActivatesAt());
+            }
+            log.warn("Ignoring signing key {} of type {}", row.getId(), jwk.getKeyType());
+        } catch (ParseException | JOSEException | GeneralSecurityException e) {
+            log.warn("Ignoring unreadable signing key {}: {}", row.getId(), e.getMessage());
+        }
+        return null;
+    }
+
+    private String seal(String kid, String jwkJson) {
+        if (encryptionKey == null) {
+            return jwkJson;
+        }
+        try {
+            byte[] iv = new byte[GCM_IV_BYTES];
+            random.nextBytes(iv);
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.ENCRYPT_MODE, encryptionKey, new GCMParameterSpec(GCM_TAG_BITS, iv));
+            cipher.updateAAD(kid.getBytes(StandardCharsets.UTF_8));
+            byte[] sealed = cipher.doFinal(jwkJson.getBytes(StandardCharsets.UTF_8));
+            byte[] out = new byte[iv.length + sealed.length];
+            System.arraycopy(iv, 0, out, 0, iv.length);
+            System.arraycopy(sealed, 0, out, iv.length, sealed.length);
+            return ENCRYPTED_PREFIX + Base64.getEncoder().encodeToString(out);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot encrypt signing key " + kid, e);
+        }
+    }
+
+    private String unseal(String kid, String stored) throws GeneralSecurityException {
+        if (!stored.startsWith(ENCRYPTED_PREFIX)) {
+            return stored;
+        }
+        if (encryptionKey == null) {
+            throw new GeneralSecurityException("encrypted but app.signing-keys.encryption-key is not set");
+        }
+        byte[] in = Base64.getDecoder().decode(stored.substring(ENCRYPTED_PREFIX.length()));
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.DECRYPT_MODE, encryptionKey, new GCMParameterSpec(GCM_TAG_BITS, in, 0, GCM_IV_BYTES));
+        cipher.updateAAD(kid.getBytes(StandardCharsets.UTF_8));
+        return new String(cipher.doFinal(in, GCM_IV_BYTES, in.length - GCM_IV_BYTES), StandardCharsets.UTF_8);
+    }
+}
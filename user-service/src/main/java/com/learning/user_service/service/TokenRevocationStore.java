@@ -0,0 +1,125 @@
+package com.learning.user_service.service;
+
+import com.learning.user_service.config.TokenRevocationProperties;
+import com.learning.user_service.entity.InvalidatedToken;
+import com.learning.user_service.repository.InvalidatedTokenRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory deny list of revoked token ids (jti), backed by the invalidated_token table.
+ * Lookups are a single map read, so introspection does not go to the database.
+ *
+ * <p>Ids are also kept in one-minute buckets by expiry time: once a token has expired its
+ * signature check already fails, so whole buckets are dropped from memory, and expired
+ * rows are purged from the table in batches. Every sync-interval only the rows written since
+ * the last one seen (seq cursor) are read, to pick up revocations made by other instances.
+ * AUTO_INCREMENT values are handed out at insert but become visible at commit, so a lower
+ * seq can show up after a higher one was read: each sync re-reads the last sync-seq-overlap
+ * seq values, which is harmless because remembering a jti twice is a no-op. Entries leave
+ * memory by expiry alone.
+ */
+@Slf4j
+@Component
+public class TokenRevocationStore {
+
+    private static final long BUCKET_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private final InvalidatedTokenRepository invalidatedTokenRepository;
+    private final TokenRevocationProperties properties;
+    // jti -> expiry (epoch millis)
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+    // expiry bucket -> jti hết hạn trong phút đó
+    private final ConcurrentSkipListMap<Long, Set<String>> buckets = new ConcurrentSkipListMap<>();
+    // seq của dòng invalidated_token mới nhất đã đọc
+    private final AtomicLong lastSeenSeq = new AtomicLong();
+
+    public TokenRevocationStore(InvalidatedTokenRepository invalidatedTokenRepository,
+                                TokenRevocationProperties properties) {
+        this.invalidatedTokenRepository = invalidatedTokenRepository;
+        this.properties = properties;
+    }
+
+    @PostConstruct
+    void warmUp() {
+        int loaded = sync();
+        log.info("Loaded {} revoked tokens", loaded);
+    }
+
+    public boolean isRevoked(String jti) {
+        if (jti == null) {
+            return false;
+        }
+        Long expiry = revoked.get(jti);
+        return expiry != null && expiry > System.currentTimeMillis();
+    }
+
+    public void revoke(String jti, Date expiryTime) {
+        invalidatedTokenRepository.save(InvalidatedToken.builder().id(jti).expiryTime(expiryTime).build());
+        remember(jti, expiryTime.getTime());
+    }
+
+    @Scheduled(initialDelayString = "#{@tokenRevocationProperties.syncInterval.toMillis()}",
+            fixedDelayString = "#{@tokenRevocationProperties.syncInterval.toMillis()}")
+    public int sync() {
+        evictExpired();
+        int loaded = 0;
+        long after = Math.max(0, lastSeenSeq.get() - properties.getSyncSeqOverlap());
+        List<InvalidatedToken> tokens;
+        do {
+            tokens = invalidatedTokenRepository.findBySeqGreaterThanAndExpiryTimeAfterOrderBySeqAsc(after,
+                    new Date(), PageRequest.of(0, properties.getBatchSize()));
+            for (InvalidatedToken token : tokens) {
+                if (remember(token.getId(), token.getExpiryTime().getTime())) {
+                    loaded++;
+                }
+                after = Math.max(after, token.getSeq());
+            }
+        } while (tokens.size() == properties.getBatchSize());
+        lastSeenSeq.accumulateAndGet(after, Math::max);
+        return loaded;
+    }
+
+    @Scheduled(initialDelayString = "#{@tokenRevocationProperties.purgeInterval.toMillis()}",
+            fixedDelayString = "#{@tokenRevocationProperties.purgeInterval.toMillis()}")
+    public void purgeExpired() {
+        Date now = new Date();
+        int total = 0;
+        int deleted;
+        do {
+            deleted = invalidatedTokenRepository.deleteExpired(now, properties.getBatchSize());
+            total += deleted;
+        } while (deleted >= properties.getBatchSize());
+        if (total > 0) {
+            log.info("Purged {} expired invalidated tokens", total);
+        }
+    }
+
+    // false nếu jti đã có (hoặc đã hết hạn)
+    private boolean remember(String jti, long expiry) {
+        if (expiry <= System.currentTimeMillis() || revoked.putIfAbsent(jti, expiry) != null) {
+            return false;
+        }
+        buckets.computeIfAbsent(expiry / BUCKET_MILLIS, bucket -> ConcurrentHashMap.newKeySet()).add(jti);
+        return true;
+    }
+
+    private void evictExpired() {
+        // Bucket của phút hiện tại còn token chưa hết hạn, chỉ bỏ các bucket trước đó
+        Map<Long, Set<String>> expired = buckets.headMap(System.currentTimeMillis() / BUCKET_MILLIS);
+        expired.values().forEach(ids -> ids.forEach(revoked::remove));
+        expired.clear();
+    }
+}
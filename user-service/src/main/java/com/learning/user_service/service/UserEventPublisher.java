@@ -0,0 +1,44 @@
+package com.learning.user_service.service;
+
+import com.learning.user_service.dto.UserUpdatedEvent;
+import com.learning.user_service.entity.User;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+
+/**
+ * Phát event user-updated sau khi profile được lưu. Key là userId nên mọi event của cùng một user
+ * nằm trên cùng partition và consumer nhận đúng thứ tự.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UserEventPublisher {
+
+    public static final String USER_UPDATED_TOPIC = "user-updated";
+
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+
+    public void publishUserUpdated(User user) {
+        UserUpdatedEvent event = UserUpdatedEvent.builder()
+                .id(user.getId())
+                .name(user.getName())
+                .username(user.getUsername())
+                .avatarUrl(user.getAvatarUrl())
+                .role(user.getRole())
+                .updatedAt(user.getUpdatedAt())
+                .build();
+        try {
+            // Không chặn request chờ broker: nếu gửi lỗi thì cache bên kia chỉ cũ tới lúc hết expire-after-write
+            kafkaTemplate.send(USER_UPDATED_TOPIC, String.valueOf(user.getId()), event)
+                    .whenComplete((result, ex) -> {
+                        if (ex != null) {
+                            log.warn("Không gửi được user-updated cho user {}: {}", user.getId(), ex.getMessage());
+                        }
+                    });
+        } catch (Exception e) {
+            log.warn("Không gửi được user-updated cho user {}: {}", user.getId(), e.getMessage());
+        }
+    }
+}
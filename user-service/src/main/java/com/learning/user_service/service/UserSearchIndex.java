@@ -0,0 +1,791 @@
+package com.learning.user_service.service;
+
+import com.learning.user_service.config.UserSearchProperties;
+import com.learning.user_service.entity.User;
+import com.learning.user_service.repository.UserRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Trigram index trong bộ nhớ cho tìm kiếm user theo tên/email (admin search), thay cho
+ * {@code LOWER(name) LIKE '%q%'} quét cả bảng.
+ *
+ * <p>Tên và phần trước @ của email được bỏ dấu, tách từ và đánh index theo trigram có đệm như pg_trgm
+ * ("  n", " ng", ..., "en ") cùng trigram nối hai từ liền nhau ("n t"). Mỗi trigram có posting list docId tăng dần.
+ * <ul>
+ *   <li>Tìm chuỗi con: giao các posting list của trigram trong từ khoá, bắt đầu từ list ngắn nhất, rồi kiểm tra
+ *       lại bằng contains. Chi phí theo list hiếm nhất chứ không theo số user.</li>
+ *   <li>Gần đúng (gõ sai): khi chưa đủ kết quả, mỗi từ của từ khoá được đổi thành các từ gần giống trong từ điển
+ *       (trigram similarity &gt;= fuzzy-threshold) và chỉ duyệt doc chứa các từ đó.</li>
+ * </ul>
+ * Lọc role ngay khi duyệt, xếp hạng: trùng tên, đầu tên, đầu một từ, chứa trong tên, email, gần đúng;
+ * cùng hạng thì tên ngắn hơn rồi user mới hơn trước. Tên miền email không được đánh index.
+ *
+ * <p>Index được dựng ở nền khi ứng dụng sẵn sàng (trước đó {@link #search} trả về null để gọi DB), được cập nhật
+ * sau commit qua UserSearchIndexListener và đọc lại theo updated_at mỗi sync-interval cho thay đổi từ instance khác.
+ * Cập nhật một user tạo doc mới và đánh dấu doc cũ đã xoá; khi doc đã xoá chiếm quá 1/4, index được dựng lại
+ * ở thread riêng rồi thay vào (xem {@link #compact}).
+ */
+@Slf4j
+@Component
+public class UserSearchIndex {
+
+    private static final int FUZZY_TIER = 10;
+    private static final int MIN_FUZZY_QUERY_LENGTH = 4;
+    // Số từ tối đa xét khi khớp tiền tố, tính theo fuzzy-max-terms
+    private static final int PREFIX_SCAN_FACTOR = 16;
+    private static final IntList EMPTY = new IntList();
+    private static final User.Role[] ROLES = User.Role.values();
+
+    public record Entry(long userId, String name, String email, User.Role role, long createdAt) {
+        static Entry of(User user) {
+            return new Entry(user.getId(), user.getName(), user.getEmail(), user.getRole(), epochMillis(user.getCreatedAt()));
+        }
+
+        static Entry of(UserRepository.SearchRow row) {
+            return new Entry(row.getId(), row.getName(), row.getEmail(), row.getRole(), epochMillis(row.getCreatedAt()));
+        }
+    }
+
+    public record Result(List<Long> userIds, long total) {
+    }
+
+    private record Candidate(int doc, int tier, double score, long createdAt) {
+    }
+
+    // Tốt nhất trước: hạng nhỏ, điểm nhỏ (độ dài tên / -độ tương đồng), user mới hơn
+    private static final Comparator<Candidate> BEST_FIRST = (a, b) -> {
+        if (a.tier() != b.tier()) {
+            return Integer.compare(a.tier(), b.tier());
+        }
+        if (a.score() != b.score()) {
+            return Double.compare(a.score(), b.score());
+        }
+        if (a.createdAt() != b.createdAt()) {
+            return Long.compare(b.createdAt(), a.createdAt());
+        }
+        return Integer.compare(b.doc(), a.doc());
+    };
+
+    private final UserRepository userRepository;
+    private final UserSearchProperties properties;
+    private final Timer queryTimer;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Đọc/ghi dưới lock; compact dựng segment mới ở thread riêng rồi thay vào dưới write lock
+    private Segment current = new Segment(1024);
+    private final AtomicBoolean compacting = new AtomicBoolean();
+
+    private volatile boolean ready;
+    private volatile LocalDateTime syncedFrom;
+
+    public UserSearchIndex(UserRepository userRepository, UserSearchProperties properties, MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.properties = properties;
+        this.queryTimer = Timer.builder("user.search.query").register(meterRegistry);
+        Gauge.builder("user.search.index.size", this, index -> index.size()).register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildInBackground() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        Thread thread = new Thread(() -> {
+            try {
+                load();
+            } catch (Exception e) {
+                log.error("Không dựng được user search index, tìm kiếm dùng DB: {}", e.getMessage());
+            }
+        }, "user-search-index");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Nạp toàn bộ user theo id (keyset). Dùng trực tiếp được trong benchmark/test.
+     */
+    public void load() {
+        long started = System.currentTimeMillis();
+        LocalDateTime loadStartedAt = LocalDateTime.now();
+        long lastId = 0;
+        int loaded = 0;
+        List<UserRepository.SearchRow> rows;
+        do {
+            rows = userRepository.findByIdGreaterThanOrderByIdAsc(lastId, PageRequest.of(0, properties.getBatchSize()),
+                    UserRepository.SearchRow.class);
+            for (UserRepository.SearchRow row : rows) {
+                put(Entry.of(row));
+                lastId = Math.max(lastId, row.getId());
+            }
+            loaded += rows.size();
+        } while (rows.size() == properties.getBatchSize());
+        // Thay đổi commit trong lúc nạp sẽ được sync đọc lại
+        syncedFrom = loadStartedAt;
+        ready = true;
+        log.info("User search index ready: {} users, {} trigrams in {} ms", loaded, current.postings.size(),
+                System.currentTimeMillis() - started);
+    }
+
+    @Scheduled(initialDelayString = "#{@userSearchProperties.syncInterval.toMillis()}",
+            fixedDelayString = "#{@userSearchProperties.syncInterval.toMillis()}")
+    public void sync() {
+        if (!ready) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime since = syncedFrom.minus(properties.getSyncOverlap());
+        PageRequest pageRequest = PageRequest.of(0, properties.getBatchSize(), Sort.by("updatedAt", "id"));
+        Slice<UserRepository.SearchRow> slice;
+        do {
+            slice = userRepository.findByUpdatedAtGreaterThanEqual(since, pageRequest, UserRepository.SearchRow.class);
+            slice.forEach(row -> put(Entry.of(row)));
+            pageRequest = pageRequest.next();
+        } while (slice.hasNext());
+        syncedFrom = now;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return current.docCount - current.deadCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void put(Entry entry) {
+        String name = fold(entry.name());
+        String email = entry.email() != null ? stripAccents(entry.email().toLowerCase()) : "";
+        byte role = (byte) (entry.role() != null ? entry.role().ordinal() : -1);
+        boolean compact;
+        lock.writeLock().lock();
+        try {
+            Segment segment = current;
+            Integer old = segment.docByUser.get(entry.userId());
+            if (old != null) {
+                if (segment.names[old].equals(name) && segment.emails[old].equals(email) && segment.roles[old] == role) {
+                    return;
+                }
+                segment.kill(old);
+            }
+            segment.append(entry.userId(), name, email, role, entry.createdAt());
+            compact = segment.deadCount > Math.max(10_000, segment.docCount / 4);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        // Dựng lại không chạy trên thread của request/listener và không giữ write lock
+        if (compact && compacting.compareAndSet(false, true)) {
+            Thread thread = new Thread(() -> {
+                try {
+                    compact();
+                } catch (Exception e) {
+                    log.error("Không compact được user search index: {}", e.getMessage());
+                } finally {
+                    compacting.set(false);
+                }
+            }, "user-search-index-compact");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /**
+     * Một trang user id khớp name (tên hoặc email), theo độ liên quan. Null nếu index chưa sẵn sàng
+     * hoặc từ khoá không có chữ/số, khi đó người gọi tìm trên DB.
+     */
+    public Result search(String query, User.Role role, int page, int size) {
+        if (!ready || query == null) {
+            return null;
+        }
+        String q = fold(query);
+        String qEmail = stripAccents(query.trim().toLowerCase());
+        if (q.isEmpty() || size <= 0 || page < 0) {
+            return null;
+        }
+        return queryTimer.record(() -> {
+            lock.readLock().lock();
+            try {
+                return doSearch(q, qEmail, role != null ? role.ordinal() : -1, page, size);
+            } finally {
+                lock.readLock().unlock();
+            }
+        });
+    }
+
+    private Result doSearch(String q, String qEmail, int role, int page, int size) {
+        int window = (int) Math.min(Integer.MAX_VALUE - 1, (long) (page + 1) * size);
+        PriorityQueue<Candidate> top = new PriorityQueue<>(Math.min(window, 1024) + 1, BEST_FIRST.reversed());
+        BitSet matched = new BitSet();
+        long total = 0;
+
+        // 1. Chuỗi con: giao posting list, list ngắn nhất trước
+        List<IntList> lists = new ArrayList<>();
+        boolean allPresent = true;
+        for (long gram : substringGrams(q)) {
+            IntList list = current.postings.get(gram);
+            if (list == null) {
+                allPresent = false;
+                break;
+            }
+            lists.add(list);
+        }
+        if (allPresent && !lists.isEmpty()) {
+            lists.sort(Comparator.comparingInt(IntList::size));
+            IntList first = lists.get(0);
+            int[] cursors = new int[lists.size()];
+            outer:
+            for (int i = 0; i < first.size(); i++) {
+                int doc = first.get(i);
+                if (current.dead.get(doc) || (role >= 0 && current.roles[doc] != role)) {
+                    continue;
+                }
+                for (int l = 1; l < lists.size(); l++) {
+                    IntList other = lists.get(l);
+                    cursors[l] = other.lowerBound(doc, cursors[l]);
+                    if (cursors[l] >= other.size()) {
+                        break outer;
+                    }
+                    if (other.get(cursors[l]) != doc) {
+                        continue outer;
+                    }
+                }
+                int tier = matchTier(q, qEmail, current.names[doc], current.emails[doc]);
+                if (tier < 0) {
+                    continue;
+                }
+                matched.set(doc);
+                total++;
+                offer(top, window, new Candidate(doc, tier, current.names[doc].length(), current.createdAt[doc]));
+            }
+        }
+
+        // 2. Gần đúng khi chưa đủ một trang: kết quả gần đúng luôn xếp sau chuỗi con, nên trang đã đầy
+        // thì bỏ qua hẳn (khi đó total chỉ đếm khớp chuỗi con)
+        if (total < window && q.length() >= MIN_FUZZY_QUERY_LENGTH) {
+            total += fuzzySearch(q, role, matched, top, window);
+        }
+
+        List<Candidate> ranked = new ArrayList<>(top);
+        ranked.sort(BEST_FIRST);
+        List<Long> ids = new ArrayList<>(size);
+        for (int i = page * size; i < ranked.size(); i++) {
+            ids.add(current.userIds[ranked.get(i).doc()]);
+        }
+        return new Result(ids, total);
+    }
+
+    /**
+     * Mỗi từ của từ khoá được đổi thành tập từ gần giống trong từ điển (trigram similarity >= fuzzy-threshold;
+     * từ ngắn hoặc từ cuối thì tính cả các từ bắt đầu bằng nó), giữ tối đa fuzzy-max-terms từ giống nhất.
+     * Doc phải chứa một từ của mỗi tập: duyệt doc của tập hiếm nhất rồi kiểm tra các tập còn lại trên docTerms,
+     * nên không phải đi qua posting list lớn. Duyệt tối đa fuzzy-max-docs doc (từ giống nhất, user mới nhất trước);
+     * quá giới hạn thì total chỉ là cận dưới, như khi "phuong th" khớp gần đúng hàng chục nghìn user.
+     */
+    private long fuzzySearch(String q, int role, BitSet matched, PriorityQueue<Candidate> top, int window) {
+        String[] words = q.split(" ");
+        int[][] similarIds = new int[words.length][];
+        double[][] similarities = new double[words.length][];
+        for (int w = 0; w < words.length; w++) {
+            Map<Integer, Double> candidates = similarTerms(words[w], w == words.length - 1);
+            if (candidates.isEmpty()) {
+                return 0;
+            }
+            // Sắp theo termId để tra bằng binary search, tránh boxing trong vòng lặp theo doc
+            similarIds[w] = candidates.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+            similarities[w] = new double[similarIds[w].length];
+            for (int i = 0; i < similarIds[w].length; i++) {
+                similarities[w][i] = candidates.get(similarIds[w][i]);
+            }
+        }
+        int rarest = 0;
+        long rarestSize = Long.MAX_VALUE;
+        for (int w = 0; w < words.length; w++) {
+            long docs = 0;
+            for (int termId : similarIds[w]) {
+                docs += current.termDocs.get(termId).size();
+            }
+            if (docs < rarestSize) {
+                rarestSize = docs;
+                rarest = w;
+            }
+        }
+
+        Integer[] order = new Integer[similarIds[rarest].length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        double[] rarestSimilarities = similarities[rarest];
+        Arrays.sort(order, (a, b) -> Double.compare(rarestSimilarities[b], rarestSimilarities[a]));
+
+        long total = 0;
+        int budget = properties.getFuzzyMaxDocs();
+        BitSet seen = new BitSet();
+        for (int index : order) {
+            IntList docs = current.termDocs.get(similarIds[rarest][index]);
+            for (int i = docs.size() - 1; i >= 0; i--) {
+                int doc = docs.get(i);
+                if (seen.get(doc)) {
+                    continue;
+                }
+                if (budget-- <= 0) {
+                    return total;
+                }
+                seen.set(doc);
+                if (matched.get(doc) || current.dead.get(doc) || (role >= 0 && current.roles[doc] != role)) {
+                    continue;
+                }
+                double score = 0;
+                for (int w = 0; w < words.length; w++) {
+                    double best = 0;
+                    for (int docTerm : current.docTerms[doc]) {
+                        int found = Arrays.binarySearch(similarIds[w], docTerm);
+                        if (found >= 0 && similarities[w][found] > best) {
+                            best = similarities[w][found];
+                        }
+                    }
+                    if (best == 0) {
+                        score = -1;
+                        break;
+                    }
+                    score += best;
+                }
+                if (score < 0) {
+                    continue;
+                }
+                total++;
+                offer(top, window, new Candidate(doc, FUZZY_TIER, -score / words.length, current.createdAt[doc]));
+            }
+        }
+        return total;
+    }
+
+    // termId -> độ tương đồng với word, tối đa fuzzy-max-terms từ
+    private Map<Integer, Double> similarTerms(String word, boolean last) {
+        int maxTerms = properties.getFuzzyMaxTerms();
+        Map<Integer, Double> result = new HashMap<>();
+        if (word.length() < 3 || last) {
+            // Từ điển sắp theo chữ nên các từ bắt đầu bằng word nằm liền nhau; tiền tố 1-2 chữ có thể khớp
+            // rất nhiều từ (phần trước @ của email) nên chỉ xét một đoạn đầu
+            int scanned = 0;
+            for (Map.Entry<String, Integer> entry
+                    : current.termIds.subMap(word, true, word + Character.MAX_VALUE, false).entrySet()) {
+                if (scanned++ >= maxTerms * PREFIX_SCAN_FACTOR) {
+                    break;
+                }
+                result.put(entry.getValue(), entry.getKey().length() == word.length() ? 1.0 : 0.9);
+            }
+            if (word.length() < 3) {
+                return mostSimilar(result, maxTerms);
+            }
+        }
+        // Từ đạt ngưỡng phải chung ít nhất need trigram (gõ sai maxEdits lần mất tối đa 4 trigram mỗi lần),
+        // nên nó có mặt trong một trong grams - need + 1 list hiếm nhất: chỉ lấy ứng viên từ các list đó
+        // rồi đếm tiếp trên các list lớn bằng binary search, không đi qua list của trigram phổ biến ("  t")
+        Set<Long> grams = paddedGrams(word);
+        List<IntList> lists = new ArrayList<>(grams.size());
+        for (long gram : grams) {
+            lists.add(current.termGrams.getOrDefault(gram, EMPTY));
+        }
+        lists.sort(Comparator.comparingInt(IntList::size));
+        int maxEdits = word.length() >= 8 ? 2 : word.length() >= 4 ? 1 : 0;
+        int need = Math.max(1, Math.min((int) Math.ceil(properties.getFuzzyThreshold() * grams.size()),
+                grams.size() - 4 * maxEdits));
+        int probe = grams.size() - need + 1;
+        Map<Integer, Integer> shared = new HashMap<>();
+        for (int l = 0; l < probe; l++) {
+            IntList list = lists.get(l);
+            for (int i = 0; i < list.size(); i++) {
+                shared.merge(list.get(i), 1, Integer::sum);
+            }
+        }
+        for (int l = probe; l < lists.size(); l++) {
+            IntList list = lists.get(l);
+            for (Map.Entry<Integer, Integer> entry : shared.entrySet()) {
+                int at = list.lowerBound(entry.getKey(), 0);
+                if (at < list.size() && list.get(at) == entry.getKey()) {
+                    entry.setValue(entry.getValue() + 1);
+                }
+            }
+        }
+        // Từ ngắn gõ sai (ngyuen) còn ít trigram chung nên tính thêm khoảng cách sửa (có đổi chỗ 2 ký tự liền nhau)
+        for (Map.Entry<Integer, Integer> entry : shared.entrySet()) {
+            String term = current.terms.get(entry.getKey());
+            int termGramCount = paddedGrams(term).size();
+            double similarity = (double) entry.getValue() / (grams.size() + termGramCount - entry.getValue());
+            if (similarity < properties.getFuzzyThreshold() && Math.abs(term.length() - word.length()) <= maxEdits) {
+                int edits = editDistance(word, term);
+                if (edits <= maxEdits) {
+                    similarity = 1.0 - (double) edits / Math.max(word.length(), term.length());
+                }
+            }
+            if (similarity >= properties.getFuzzyThreshold()) {
+                result.merge(entry.getKey(), similarity, Math::max);
+            }
+        }
+        return mostSimilar(result, maxTerms);
+    }
+
+    // Giữ limit từ giống nhất; bằng nhau thì từ có nhiều doc hơn
+    private Map<Integer, Double> mostSimilar(Map<Integer, Double> terms, int limit) {
+        if (terms.size() <= limit) {
+            return terms;
+        }
+        Map<Integer, Double> kept = new HashMap<>();
+        terms.entrySet().stream()
+                .sorted(Map.Entry.<Integer, Double>comparingByValue().reversed()
+                        .thenComparingInt(entry -> -current.termDocs.get(entry.getKey()).size()))
+                .limit(limit)
+                .forEach(entry -> kept.put(entry.getKey(), entry.getValue()));
+        return kept;
+    }
+
+    // Optimal string alignment distance (Levenshtein + đổi chỗ hai ký tự liền nhau)
+    private static int editDistance(String a, String b) {
+        int[][] d = new int[a.length() + 1][b.length() + 1];
+        for (int i = 0; i <= a.length(); i++) {
+            d[i][0] = i;
+        }
+        for (int j = 0; j <= b.length(); j++) {
+            d[0][j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                d[i][j] = Math.min(Math.min(d[i - 1][j] + 1, d[i][j - 1] + 1), d[i - 1][j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    d[i][j] = Math.min(d[i][j], d[i - 2][j - 2] + 1);
+                }
+            }
+        }
+        return d[a.length()][b.length()];
+    }
+
+    private static void offer(PriorityQueue<Candidate> top, int window, Candidate candidate) {
+        if (top.size() < window) {
+            top.add(candidate);
+        } else if (BEST_FIRST.compare(candidate, top.peek()) < 0) {
+            top.poll();
+            top.add(candidate);
+        }
+    }
+
+    private static int matchTier(String q, String qEmail, String name, String email) {
+        if (name.equals(q)) {
+            return 0;
+        }
+        if (name.startsWith(q)) {
+            return 1;
+        }
+        int index = name.indexOf(q);
+        if (index > 0 && name.charAt(index - 1) == ' ') {
+            return 2;
+        }
+        if (index > 0) {
+            return 3;
+        }
+        if (email.startsWith(qEmail)) {
+            return 4;
+        }
+        if (email.contains(qEmail) || containsFolded(email, q)) {
+            return 5;
+        }
+        return -1;
+    }
+
+    // fold(text).contains(q) mà không tạo chuỗi mới: dấu cách trong q khớp một dãy ký tự không phải chữ/số
+    private static boolean containsFolded(String text, String q) {
+        for (int start = text.indexOf(q.charAt(0)); start >= 0; start = text.indexOf(q.charAt(0), start + 1)) {
+            int i = start;
+            int j = 0;
+            while (j < q.length() && i < text.length()) {
+                char c = q.charAt(j);
+                if (c == ' ') {
+                    if (Character.isLetterOrDigit(text.charAt(i))) {
+                        break;
+                    }
+                    while (i < text.length() && !Character.isLetterOrDigit(text.charAt(i))) {
+                        i++;
+                    }
+                } else if (text.charAt(i) == c) {
+                    i++;
+                } else {
+                    break;
+                }
+                j++;
+            }
+            if (j == q.length()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Dựng segment chỉ gồm doc còn sống từ ảnh chụp của segment hiện tại, không giữ lock trong lúc dựng (doc
+     * đã append thì không đổi nữa). Dưới write lock chỉ áp lại phần thay đổi sau ảnh chụp: doc bị thay/xoá và
+     * doc mới append, rồi đổi segment. Gọi trực tiếp được trong test.
+     */
+    void compact() {
+        Segment source;
+        int snapshotCount;
+        BitSet snapshotDead;
+        long[] userIds;
+        String[] names;
+        String[] emails;
+        byte[] roles;
+        long[] createdAt;
+        lock.readLock().lock();
+        try {
+            source = current;
+            snapshotCount = source.docCount;
+            snapshotDead = (BitSet) source.dead.clone();
+            userIds = source.userIds;
+            names = source.names;
+            emails = source.emails;
+            roles = source.roles;
+            createdAt = source.createdAt;
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        int live = snapshotCount - snapshotDead.cardinality();
+        Segment compacted = new Segment(Math.max(1024, Integer.highestOneBit(Math.max(1, live)) * 2));
+        for (int doc = 0; doc < snapshotCount; doc++) {
+            if (!snapshotDead.get(doc)) {
+                compacted.append(userIds[doc], names[doc], emails[doc], roles[doc], createdAt[doc]);
+            }
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (current != source) {
+                return;
+            }
+            for (int doc = snapshotDead.nextClearBit(0); doc < snapshotCount; doc = snapshotDead.nextClearBit(doc + 1)) {
+                if (source.dead.get(doc)) {
+                    compacted.kill(compacted.docByUser.get(source.userIds[doc]));
+                }
+            }
+            for (int doc = snapshotCount; doc < source.docCount; doc++) {
+                if (!source.dead.get(doc)) {
+                    compacted.append(source.userIds[doc], source.names[doc], source.emails[doc], source.roles[doc],
+                            source.createdAt[doc]);
+                }
+            }
+            current = compacted;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Compacted user search index: {} -> {} docs", source.docCount, compacted.docCount - compacted.deadCount);
+    }
+
+    // Trigram để tìm chuỗi con: từ >= 3 ký tự dùng trigram bên trong (từ khoá có thể nằm giữa từ),
+    // từ ngắn hơn thì chỉ khớp được đầu từ
+    private static Set<Long> substringGrams(String q) {
+        Set<Long> grams = new LinkedHashSet<>();
+        for (String word : q.split(" ")) {
+            if (word.length() >= 3) {
+                for (int i = 0; i + 3 <= word.length(); i++) {
+                    grams.add(key(word.charAt(i), word.charAt(i + 1), word.charAt(i + 2)));
+                }
+            } else if (word.length() == 2) {
+                grams.add(key(' ', word.charAt(0), word.charAt(1)));
+            } else if (word.length() == 1) {
+                grams.add(key(' ', ' ', word.charAt(0)));
+            }
+        }
+        grams.addAll(boundaryGrams(q));
+        return grams;
+    }
+
+    // Trigram nối hai từ liền nhau ("phuong thi" -> "g t"): từ khoá nhiều từ lọc được ngay ở bước giao posting list
+    private static Set<Long> boundaryGrams(String text) {
+        Set<Long> grams = new HashSet<>();
+        String[] words = text.split(" +");
+        for (int i = 0; i + 1 < words.length; i++) {
+            if (!words[i].isEmpty() && !words[i + 1].isEmpty()) {
+                grams.add(key(words[i].charAt(words[i].length() - 1), ' ', words[i + 1].charAt(0)));
+            }
+        }
+        return grams;
+    }
+
+    private static Set<Long> paddedGrams(String text) {
+        Set<Long> grams = new HashSet<>();
+        for (String word : text.split(" ")) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            String padded = "  " + word + " ";
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                grams.add(key(padded.charAt(i), padded.charAt(i + 1), padded.charAt(i + 2)));
+            }
+        }
+        return grams;
+    }
+
+    private static long key(char a, char b, char c) {
+        return ((long) a << 32) | ((long) b << 16) | c;
+    }
+
+    // "Nguyễn Văn Tuấn" -> "nguyen van tuan": bỏ dấu, chữ thường, ký tự khác chữ/số thành một khoảng trắng
+    static String fold(String value) {
+        if (value == null) {
+            return "";
+        }
+        return stripAccents(value.toLowerCase()).replaceAll("[^a-z0-9]+", " ").trim();
+    }
+
+    private static String stripAccents(String value) {
+        return Normalizer.normalize(value.replace('đ', 'd'), Normalizer.Form.NFD).replaceAll("\\p{M}+", "");
+    }
+
+    private static long epochMillis(LocalDateTime time) {
+        return time != null ? time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : 0L;
+    }
+
+    /** Doc (user) theo docId, posting list trigram và từ điển từ cho tìm gần đúng. */
+    private static final class Segment {
+        long[] userIds;
+        String[] names;
+        String[] emails;
+        byte[] roles;
+        long[] createdAt;
+        int[][] docTerms;
+        final BitSet dead = new BitSet();
+        int docCount;
+        int deadCount;
+        final Map<Long, Integer> docByUser = new HashMap<>();
+        final Map<Long, IntList> postings = new HashMap<>();
+        // Từ điển các từ (trong tên và email) cho tìm gần đúng: từ -> termId -> doc chứa từ đó,
+        // và trigram -> termId để tìm từ gần giống trong từ điển (nhỏ hơn nhiều so với số user)
+        final NavigableMap<String, Integer> termIds = new TreeMap<>();
+        final List<String> terms = new ArrayList<>();
+        final List<IntList> termDocs = new ArrayList<>();
+        final Map<Long, IntList> termGrams = new HashMap<>();
+
+        Segment(int capacity) {
+            userIds = new long[capacity];
+            names = new String[capacity];
+            emails = new String[capacity];
+            roles = new byte[capacity];
+            createdAt = new long[capacity];
+            docTerms = new int[capacity][];
+        }
+
+        void kill(int doc) {
+            if (!dead.get(doc)) {
+                dead.set(doc);
+                deadCount++;
+            }
+        }
+
+        void append(long userId, String name, String email, byte role, long created) {
+            if (docCount == userIds.length) {
+                int capacity = userIds.length * 2;
+                userIds = Arrays.copyOf(userIds, capacity);
+                names = Arrays.copyOf(names, capacity);
+                emails = Arrays.copyOf(emails, capacity);
+                roles = Arrays.copyOf(roles, capacity);
+                createdAt = Arrays.copyOf(createdAt, capacity);
+                docTerms = Arrays.copyOf(docTerms, capacity);
+            }
+            int doc = docCount++;
+            userIds[doc] = userId;
+            names[doc] = name;
+            emails[doc] = email;
+            roles[doc] = role;
+            createdAt[doc] = created;
+            int at = email.indexOf('@');
+            String text = name + " " + fold(at >= 0 ? email.substring(0, at) : email);
+            Set<Long> grams = paddedGrams(text);
+            grams.addAll(boundaryGrams(text));
+            for (long gram : grams) {
+                postings.computeIfAbsent(gram, key -> new IntList()).add(doc);
+            }
+            Set<Integer> ids = new LinkedHashSet<>();
+            for (String word : text.split(" +")) {
+                // Số trong email (tuan.123456) không đưa vào từ điển: gõ sai số không cần tìm gần đúng
+                if (word.isEmpty() || word.chars().allMatch(Character::isDigit)) {
+                    continue;
+                }
+                int termId = termId(word);
+                if (ids.add(termId)) {
+                    termDocs.get(termId).add(doc);
+                }
+            }
+            docTerms[doc] = ids.stream().mapToInt(Integer::intValue).toArray();
+            docByUser.put(userId, doc);
+        }
+
+        private int termId(String word) {
+            Integer id = termIds.get(word);
+            if (id != null) {
+                return id;
+            }
+            int newId = terms.size();
+            termIds.put(word, newId);
+            terms.add(word);
+            termDocs.add(new IntList());
+            for (long gram : paddedGrams(word)) {
+                termGrams.computeIfAbsent(gram, key -> new IntList()).add(newId);
+            }
+            return newId;
+        }
+    }
+
+    /** Danh sách int tăng dần, dùng cho posting list. */
+    static final class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size + (size >> 1) + 1);
+            }
+            values[size++] = value;
+        }
+
+        int get(int index) {
+            return values[index];
+        }
+
+        int size() {
+            return size;
+        }
+
+        // Vị trí đầu tiên >= target tính từ from: nhảy mũ rồi tìm nhị phân
+        int lowerBound(int target, int from) {
+            int step = 1;
+            int hi = from;
+            while (hi < size && values[hi] < target) {
+                from = hi + 1;
+                hi += step;
+                step <<= 1;
+            }
+            int index = Arrays.binarySearch(values, from, Math.min(hi + 1, size), target);
+            return index >= 0 ? index : -index - 1;
+        }
+    }
+}
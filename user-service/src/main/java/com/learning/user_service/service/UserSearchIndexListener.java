@@ -0,0 +1,43 @@
+package com.learning.user_service.service;
+
+import com.learning.user_service.entity.User;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Cập nhật UserSearchIndex khi user được lưu qua JPA, sau khi transaction commit (rollback thì không đổi index).
+ * Index lấy qua ObjectProvider vì listener được tạo cùng EntityManagerFactory, trước repository.
+ */
+@Component
+public class UserSearchIndexListener {
+
+    private final ObjectProvider<UserSearchIndex> userSearchIndex;
+
+    public UserSearchIndexListener(ObjectProvider<UserSearchIndex> userSearchIndex) {
+        this.userSearchIndex = userSearchIndex;
+    }
+
+    @PostPersist
+    @PostUpdate
+    void onSaved(User user) {
+        UserSearchIndex index = userSearchIndex.getIfAvailable();
+        if (index == null || user.getId() == null) {
+            return;
+        }
+        UserSearchIndex.Entry entry = UserSearchIndex.Entry.of(user);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    index.put(entry);
+                }
+            });
+        } else {
+            index.put(entry);
+        }
+    }
+}
@@ -1,34 +1,31 @@
 package com.learning.user_service.service;
 
 import com.learning.user_service.dto.*;
-import com.learning.user_service.entity.InvalidatedToken;
 import com.learning.user_service.entity.User;
 import com.learning.user_service.exception.AppException;
 import com.learning.user_service.exception.ErrorCode;
 import com.learning.user_service.mapper.UserMapper;
-import com.learning.user_service.repository.InvalidatedTokenRepository;
 import com.learning.user_service.repository.UserRepository;
 import com.nimbusds.jose.*;
-import com.nimbusds.jose.crypto.MACSigner;
 import com.nimbusds.jose.crypto.MACVerifier;
 import com.nimbusds.jwt.JWTClaimsSet;
 import com.nimbusds.jwt.SignedJWT;
 import com.nimbusds.openid.connect.sdk.AuthenticationResponse;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.NonFinal;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.dao.DataIntegrityViolationException;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.*;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.CollectionUtils;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
@@ -36,15 +33,15 @@ import org.springframework.web.client.RestTemplate;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.util.UriComponentsBuilder;
 
-import javax.crypto.spec.SecretKeySpec;
 import java.io.UnsupportedEncodingException;
 import java.nio.charset.StandardCharsets;
-import java.security.Key;
 import java.text.ParseException;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -53,11 +50,21 @@ public class UserService {
 
     @Autowired
     private EmailService emailService;
-    private final InvalidatedTokenRepository invalidatedTokenRepository;
+    private final TokenRevocationStore tokenRevocationStore;
+    private final SigningKeyManager signingKeyManager;
+    private final UserEventPublisher userEventPublisher;
+    private final PasswordHasher passwordHasher;
+    private final TransactionTemplate transactionTemplate;
+    private final UsernameAllocator usernameAllocator;
+    private final UserSearchIndex userSearchIndex;
+    private final PageCountCache pageCountCache;
     @NonFinal
-    @Value("${jwt.signerKey}")
+    @Value("${jwt.signerKey:}")
     protected String SIGNER_KEY;
     @NonFinal
+    @Value("${jwt.legacy-rotated-at:}")
+    protected String LEGACY_ROTATED_AT;
+    @NonFinal
     @Value("${jwt.valid-duration}")
     protected long VALID_DURATION;
     @NonFinal
@@ -83,14 +90,61 @@ public class UserService {
     private CloudinaryService cloudinaryService;
 
     public UserService(UserRepository userRepository, UserMapper userMapper, CloudinaryService cloudinaryService,
-                       PasswordEncoder passwordEncoder, InvalidatedTokenRepository invalidatedTokenRepository) {
+                       PasswordEncoder passwordEncoder, TokenRevocationStore tokenRevocationStore,
+                       SigningKeyManager signingKeyManager, UserEventPublisher userEventPublisher,
+                       PasswordHasher passwordHasher, UsernameAllocator usernameAllocator,
+                       UserSearchIndex userSearchIndex, PageCountCache pageCountCache,
+                       PlatformTransactionManager transactionManager) {
         this.userRepository = userRepository;
         this.userMapper = userMapper;
         this.cloudinaryService = cloudinaryService;
         this.passwordEncoder = passwordEncoder;
-        this.invalidatedTokenRepository = invalidatedTokenRepository;
+        this.tokenRevocationStore = tokenRevocationStore;
+        this.signingKeyManager = signingKeyManager;
+        this.userEventPublisher = userEventPublisher;
+        this.passwordHasher = passwordHasher;
+        this.usernameAllocator = usernameAllocator;
+        this.userSearchIndex = userSearchIndex;
+        this.pageCountCache = pageCountCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
+    // Token HS512 phát hành trước jwt.legacy-rotated-at (lúc chuyển sang khoá RSA/EC), chỉ còn verify tới
+    // rotated-at + refreshable-duration rồi bỏ hẳn. Null khi không cấu hình jwt.signerKey/jwt.legacy-rotated-at
+    private volatile JWSVerifier legacyVerifier;
+    private Instant legacyRotatedAt;
+    private Instant legacyAcceptedUntil;
+
+    @PostConstruct
+    void initJwtKeys() throws JOSEException {
+        if (SIGNER_KEY == null || SIGNER_KEY.isBlank()) {
+            return;
+        }
+        if (LEGACY_ROTATED_AT == null || LEGACY_ROTATED_AT.isBlank()) {
+            log.warn("jwt.signerKey is set without jwt.legacy-rotated-at, legacy HS512 tokens are rejected");
+            return;
+        }
+        this.legacyRotatedAt = Instant.parse(LEGACY_ROTATED_AT.trim());
+        this.legacyAcceptedUntil = legacyRotatedAt.plusSeconds(REFRESHABLE_DURATION);
+        this.legacyVerifier = new MACVerifier(SIGNER_KEY.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private JWSVerifier legacyVerifierFor(Date issuedAt) {
+        JWSVerifier verifier = legacyVerifier;
+        if (verifier == null) {
+            return null;
+        }
+        if (!Instant.now().isBefore(legacyAcceptedUntil)) {
+            // Không còn token HS512 nào refresh được nữa, bỏ hẳn secret
+            log.info("Legacy HS512 tokens expired at {}, dropping jwt.signerKey", legacyAcceptedUntil);
+            legacyVerifier = null;
+            return null;
+        }
+        return issuedAt != null && !issuedAt.toInstant().isAfter(legacyRotatedAt) ? verifier : null;
+    }
+
+    private static final int MAX_BATCH_IDS = 500;
+
     public record TokenInfo(String token, Date expiryDate) {
     }
 
@@ -111,24 +165,36 @@ public class UserService {
         return IntrospectResponse.builder().valid(isValid).build();
     }
 
-    public UserPage findAllUsers(int page, int size) {
-        Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
-        Page<User> userPage = userRepository.findAll(pageable);
+    public IntrospectBatchResponse introspectBatch(IntrospectBatchRequest request) throws JOSEException {
+        List<String> tokens = request.getTokens() != null ? request.getTokens() : List.of();
+        List<IntrospectResponse> results = new ArrayList<>(tokens.size());
 
-        List<UserResponse> userResponses = userPage.getContent().stream()
-                .map(userMapper::toUserResponse)
-                .toList();
+        for (String token : tokens) {
+            IntrospectResponse result;
+            try {
+                result = introspect(IntrospectRequest.builder().token(token).build());
+            } catch (ParseException e) {
+                // Một token sai định dạng không làm hỏng cả batch
+                result = IntrospectResponse.builder().valid(false).build();
+            }
+            results.add(result);
+        }
 
-        UserPage dto = new UserPage();
-        dto.setUser(userResponses);
-        dto.setTotalElements(userPage.getTotalElements());
-        dto.setTotalPages(userPage.getTotalPages());
-        dto.setCurrentPage(userPage.getNumber());
+        return IntrospectBatchResponse.builder().results(results).build();
+    }
 
-        return dto;
+    public UserPage findAllUsers(int page, int size, String after, boolean withTotal) {
+        return listUsers(null, null, page, size, after, withTotal);
     }
 
+    // User và email OTP (outbox) được ghi trong cùng transaction, request không chờ SMTP.
+    // Hash BCrypt trước khi mở transaction để không giữ connection Hikari trong lúc chờ pool hash
     public User createUserWithOtp(AddUserRequest request) {  // Đổi tên method để rõ ràng
+        String passwordHash = passwordHasher.encode(request.getPassword());
+        return transactionTemplate.execute(status -> insertUserWithOtp(request, passwordHash));
+    }
+
+    private User insertUserWithOtp(AddUserRequest request, String passwordHash) {
         if (userRepository.findByEmail(request.getEmail()).isPresent()) {
             throw new IllegalArgumentException("Email đã tồn tại: " + request.getEmail());
         }
@@ -142,7 +208,7 @@ public class UserService {
         user.setUsername(username);
         user.setName(request.getName());
         user.setEmail(request.getEmail());
-        user.setPassword(passwordEncoder.encode(request.getPassword()));
+        user.setPassword(passwordHash);
         user.setRole(request.getRole() != null ? User.Role.valueOf(request.getRole()) : User.Role.STUDENT);
         user.setActive(false);  // Chưa active
 
@@ -157,7 +223,7 @@ public class UserService {
             throw new IllegalArgumentException("Dữ liệu không hợp lệ: " + e.getMessage());
         }
 
-        emailService.sendOtpEmail(user.getEmail(), otp);
+        emailService.sendOtpEmail(user.getEmail(), otp, user.getOtpExpiry());
 
         return user;
     }
@@ -248,7 +314,7 @@ public class UserService {
         // Tạo user mới
         User newUser = new User();
         newUser.setName(name);
-        newUser.setUsername(generateUniqueUsername(name, email)); // Tạo username unique
+        newUser.setUsername(usernameAllocator.allocate(name, email)); // Tạo username unique
         newUser.setPassword("oauth2_default_" + System.currentTimeMillis()); // Random, không dùng
         newUser.setEmail(email);
         newUser.setProvider(provider);
@@ -271,18 +337,6 @@ public class UserService {
         ));
     }
 
-    // Helper để tạo username unique (ví dụ: name + random hoặc email prefix)
-    private String generateUniqueUsername(String name, String email) {
-        String base = name.toLowerCase().replaceAll("[^a-z0-9]", "");
-        String username = base;
-        int counter = 1;
-        while (userRepository.existsByUsername(username)) {
-            username = base + counter;
-            counter++;
-        }
-        return username;
-    }
-
     private Map<String, Object> exchangeCodeForGoogleTokens(String code) throws Exception {
         RestTemplate restTemplate = new RestTemplate();
         String tokenUrl = "https://oauth2.googleapis.com/token";
@@ -392,6 +446,12 @@ public class UserService {
 
 
     public UserResponse updateUser(Long id, UpdateUserRequest request) {
+        // Hash trước truy vấn đầu tiên: với open-in-view, connection lấy ở findById được giữ tới hết request
+        String passwordHash = null;
+        if (request.getPassword() != null && !request.getPassword().trim().isEmpty()) {
+            passwordHash = passwordHasher.encode(request.getPassword());
+        }
+
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("User không tồn tại với ID: " + id));
 
@@ -418,8 +478,8 @@ public class UserService {
         }
 
         // Update password if provided
-        if (request.getPassword() != null && !request.getPassword().trim().isEmpty()) {
-            user.setPassword(passwordEncoder.encode(request.getPassword()));
+        if (passwordHash != null) {
+            user.setPassword(passwordHash);
         }
 
         // Update role if provided (assuming admin-only, but no check here for simplicity)
@@ -434,12 +494,14 @@ public class UserService {
         // Update updatedAt
         user.setUpdatedAt(LocalDateTime.now());
 
+        User updatedUser;
         try {
-            User updatedUser = userRepository.save(user);
-            return userMapper.toUserResponse(updatedUser);
+            updatedUser = userRepository.save(user);
         } catch (Exception e) {
             throw new RuntimeException("Lỗi cập nhật user: " + e.getMessage());
         }
+        userEventPublisher.publishUserUpdated(updatedUser);
+        return userMapper.toUserResponse(updatedUser);
     }
 
     public String uploadAvatar(Long userId, MultipartFile file) {
@@ -454,7 +516,7 @@ public class UserService {
             String avatarUrl = cloudinaryService.uploadAvatarUser(file);
             user.setAvatarUrl(avatarUrl);
             user.setUpdatedAt(LocalDateTime.now());
-            userRepository.save(user);
+            userEventPublisher.publishUserUpdated(userRepository.save(user));
             return avatarUrl;
         } catch (Exception e) {
             throw new RuntimeException("Lỗi khi upload avatar: " + e.getMessage());
@@ -473,16 +535,11 @@ public class UserService {
             throw new IllegalArgumentException("Thời hạn token không hợp lệ");
         }
 
-        byte[] keyBytes;
-        try {
-            keyBytes = SIGNER_KEY.getBytes(StandardCharsets.UTF_8); // Explicit UTF-8
-        } catch (Exception e) {
-            log.error("Lỗi encoding signer key", e);
-            throw new RuntimeException("Lỗi encoding secret key", e);
-        }
-        Key signingKey = new SecretKeySpec(keyBytes, "HmacSHA512");  // Match HS512
-
-        JWSHeader header = new JWSHeader(JWSAlgorithm.HS512);
+        SigningKeyManager.ActiveKey signingKey = signingKeyManager.signingKey();
+        JWSHeader header = new JWSHeader.Builder(signingKey.algorithm())
+                .keyID(signingKey.kid())
+                .type(JOSEObjectType.JWT)
+                .build();
 
         Date issueTime = new Date();
         Date expirationTime = new Date(Instant.now().plus(VALID_DURATION, ChronoUnit.SECONDS).toEpochMilli());
@@ -500,6 +557,8 @@ public class UserService {
                 .expirationTime(expirationTime)
                 .jwtID(UUID.randomUUID().toString())
                 .claim("scope", scope)
+                // Gateway dùng để chỉ cho socket realtime nhận topic notification của chính user này
+                .claim("userId", user.getId())
                 .build();
 
         Payload payload = new Payload(jwtClaimsSet.toJSONObject());
@@ -507,7 +566,7 @@ public class UserService {
         JWSObject jwsObject = new JWSObject(header, payload);
 
         try {
-            jwsObject.sign(new MACSigner(SIGNER_KEY.getBytes(StandardCharsets.UTF_8))); // Fix: Explicit UTF-8
+            jwsObject.sign(signingKey.signer());
             String serializedToken = jwsObject.serialize();
             log.info("Generated token for user {}: {} (length: {}, parts: {})",
                     user.getUsername(),
@@ -529,10 +588,11 @@ public class UserService {
         var signedJWT = verifyToken(request.getToken(), true);
         var jit = signedJWT.getJWTClaimsSet().getJWTID();
         var expireTime = signedJWT.getJWTClaimsSet().getExpirationTime();
+        // Token còn refresh được tới issueTime + REFRESHABLE_DURATION, phải bị chặn tới lúc đó chứ không chỉ tới exp
+        var refreshableUntil = Date.from(signedJWT.getJWTClaimsSet().getIssueTime().toInstant()
+                .plus(REFRESHABLE_DURATION, ChronoUnit.SECONDS));
 
-        InvalidatedToken invalidatedToken = InvalidatedToken
-                .builder().id(jit).expiryTime(expireTime).build();
-        invalidatedTokenRepository.save(invalidatedToken);
+        tokenRevocationStore.revoke(jit, refreshableUntil.after(expireTime) ? refreshableUntil : expireTime);
 
         var username = signedJWT.getJWTClaimsSet().getSubject();
         var user = userRepository.findByUsername(username)
@@ -545,6 +605,18 @@ public class UserService {
 
 
     public AuthResponse authenticate(LoginRequest request) {
+        try {
+            return authenticateAsync(request).join();
+        } catch (CompletionException e) {
+            throw PasswordHasher.unwrap(e);
+        }
+    }
+
+    /**
+     * So khớp mật khẩu trên pool của PasswordHasher nên thread gọi không bị giữ trong lúc hash.
+     * Future lỗi với AppException(PASSWORD_HASHING_BUSY) khi hàng đợi hash đã đầy.
+     */
+    public CompletableFuture<AuthResponse> authenticateAsync(LoginRequest request) {
         if (request == null || request.getUsername() == null || request.getPassword() == null) {
             log.warn("Login request null hoặc thiếu fields");
             throw new IllegalArgumentException("Username và password bắt buộc");
@@ -558,21 +630,45 @@ public class UserService {
 
         log.info("Found user: {} with role: {}", user.getUsername(), user.getRole());
 
-        boolean authenticated = passwordEncoder.matches(request.getPassword(), user.getPassword());
-        if (!authenticated) {
-            log.warn("Invalid password for user: {}", user.getUsername());
-            throw new AppException(ErrorCode.INVALID_PASSWORD);
-        }
+        return passwordHasher.matchesAsync(request.getPassword(), user.getPassword())
+                .thenApply(authenticated -> {
+                    if (!authenticated) {
+                        log.warn("Invalid password for user: {}", user.getUsername());
+                        throw new AppException(ErrorCode.INVALID_PASSWORD);
+                    }
 
-        log.info("User {} authenticated successfully", user.getUsername());
+                    log.info("User {} authenticated successfully", user.getUsername());
+                    rehashIfNeeded(user, request.getPassword());
 
-        TokenInfo token = generateToken(user);
+                    TokenInfo token = generateToken(user);
 
-        return AuthResponse.builder()
-                .accessToken(token.token)
-                .user(user)
-                .authenticated(true)
-                .build();
+                    return AuthResponse.builder()
+                            .accessToken(token.token)
+                            .user(user)
+                            .authenticated(true)
+                            .build();
+                });
+    }
+
+    // Cost cấu hình đã đổi: hash lại ở nền, không làm chậm lần login này; pool đầy thì để lần login sau
+    private void rehashIfNeeded(User user, String rawPassword) {
+        String oldHash = user.getPassword();
+        if (!passwordHasher.needsRehash(oldHash)) {
+            return;
+        }
+        passwordHasher.encodeAsync(rawPassword).whenComplete((newHash, ex) -> {
+            if (ex != null) {
+                log.debug("Skip rehash for user {}: {}", user.getId(), ex.getMessage());
+                return;
+            }
+            try {
+                if (userRepository.updatePasswordIfUnchanged(user.getId(), oldHash, newHash) > 0) {
+                    passwordHasher.recordRehash();
+                }
+            } catch (Exception e) {
+                log.warn("Rehash failed for user {}: {}", user.getId(), e.getMessage());
+            }
+        });
     }
 
     private String buildScope(User user) {
@@ -582,36 +678,49 @@ public class UserService {
         return "ROLE_USER";
     }
 
+    /**
+     * Parses and verifies an access token once (signature, exp, revocation), for the
+     * resource server decoder. Throws AppException(UNAUTHENTICATED) if it is not valid.
+     */
+    public SignedJWT verifyAccessToken(String token) throws JOSEException, ParseException {
+        return verifyToken(token, false);
+    }
+
     private SignedJWT verifyToken(String token, boolean isRefresh) throws JOSEException, ParseException {
         if (token == null || token.trim().isEmpty()) {
             log.error("Token null or empty in verifyToken");
             throw new AppException(ErrorCode.UNAUTHENTICATED);
         }
 
-        // Validate JWT format: header.payload.signature (3 parts separated by 2 dots)
-        String[] parts = token.split("\\.");
-        if (parts.length != 3) {
-            log.error("Invalid JWT format - missing delimiters. Parts count: {}, token preview: {}", parts.length, token.substring(0, Math.min(50, token.length())) + "...");
+        SignedJWT signedJWT;
+        try {
+            signedJWT = SignedJWT.parse(token);
+        } catch (ParseException e) {
+            log.error("Invalid JWT format: {}", e.getMessage());
             throw new AppException(ErrorCode.UNAUTHENTICATED);
         }
 
-        log.debug("Verifying token preview: {} (length: {}, parts: {})", token.substring(0, Math.min(50, token.length())) + "...", token.length(), parts.length);
-
-        JWSVerifier verifier = new MACVerifier(SIGNER_KEY.getBytes(StandardCharsets.UTF_8)); // Fix: Explicit UTF-8
-
-        SignedJWT signedJWT = SignedJWT.parse(token);
-
         Date expiryTime = (isRefresh)
                 ? new Date(signedJWT.getJWTClaimsSet().getIssueTime().toInstant().plus(REFRESHABLE_DURATION, ChronoUnit.SECONDS).toEpochMilli())
                 : signedJWT.getJWTClaimsSet().getExpirationTime();
 
-        var verified = signedJWT.verify(verifier);
+        JWSHeader header = signedJWT.getHeader();
+        JWSVerifier verifier = header.getKeyID() != null
+                ? signingKeyManager.verifier(header.getKeyID(), header.getAlgorithm())
+                : JWSAlgorithm.HS512.equals(header.getAlgorithm())
+                ? legacyVerifierFor(signedJWT.getJWTClaimsSet().getIssueTime()) : null;
+        var verified = verifier != null && signedJWT.verify(verifier);
 
         if (!(verified && expiryTime.after(new Date()))) {
             log.warn("Token verification failed for sub: {}", signedJWT.getJWTClaimsSet().getSubject());
             throw new AppException(ErrorCode.UNAUTHENTICATED);
         }
 
+        if (tokenRevocationStore.isRevoked(signedJWT.getJWTClaimsSet().getJWTID())) {
+            log.warn("Revoked token used by sub: {}", signedJWT.getJWTClaimsSet().getSubject());
+            throw new AppException(ErrorCode.UNAUTHENTICATED);
+        }
+
         return signedJWT;
     }
     public User getUserById(Long id) {
@@ -619,26 +728,82 @@ public class UserService {
                 .orElseThrow(() -> new IllegalArgumentException("User không tồn tại"));
     }
 
-    @Cacheable(value = "users", key = "#name != null ? #name : 'null' + '-' + #role != null ? #role.name() : 'null' + '-' + #page + '-' + #size")
-    public UserPage searchUsers(String name, User.Role role, int page, int size) {
-        Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
-        Page<User> userPage = userRepository.findByNameContainingOrRole(name, role, pageable);
+    public UserPage searchUsers(String name, User.Role role, int page, int size, String after, boolean withTotal) {
+        String keyword = name != null && !name.isBlank() ? name.trim() : null;
+        // Kết quả từ index xếp theo độ liên quan nên phân trang theo số trang; cursor chỉ dùng cho thứ tự created_at
+        UserSearchIndex.Result result = keyword != null && after == null
+                ? userSearchIndex.search(keyword, role, page, size) : null;
+        if (result != null) {
+            Map<Long, User> users = userRepository.findAllById(result.userIds()).stream()
+                    .collect(Collectors.toMap(User::getId, user -> user));
+            List<UserResponse> userResponses = result.userIds().stream()
+                    .map(users::get)
+                    .filter(Objects::nonNull)
+                    .map(userMapper::toUserResponse)
+                    .toList();
+
+            UserPage dto = new UserPage();
+            dto.setUser(userResponses);
+            dto.setCurrentPage(page);
+            dto.setHasNext((long) (page + 1) * size < result.total());
+            if (withTotal) {
+                dto.setTotalElements(result.total());
+                dto.setTotalPages((int) ((result.total() + size - 1) / size));
+            }
+            return dto;
+        }
+
+        // Index chưa dựng xong (hoặc bị tắt), chỉ lọc theo role hay đang đi theo cursor: truy vấn DB
+        return listUsers(keyword, role, page, size, after, withTotal);
+    }
 
-        List<UserResponse> userResponses = userPage.getContent().stream()
-                .map(userMapper::toUserResponse)
-                .toList();
+    // created_at DESC, id DESC. Có after thì seek theo (created_at, id) thay cho OFFSET, không có thì dùng page;
+    // tổng số chỉ tính khi được yêu cầu và lấy từ PageCountCache
+    private UserPage listUsers(String name, User.Role role, int page, int size, String after, boolean withTotal) {
+        PageCursor cursor = PageCursor.decode(after);
+        Slice<User> slice = cursor != null
+                ? userRepository.findUserPageBefore(name, role, cursor.createdAt(), cursor.id(), PageRequest.of(0, size))
+                : userRepository.findUserPage(name, role, PageRequest.of(page, size));
+        List<User> users = slice.getContent();
 
         UserPage dto = new UserPage();
-        dto.setUser(userResponses);
-        dto.setTotalElements(userPage.getTotalElements());
-        dto.setTotalPages(userPage.getTotalPages());
-        dto.setCurrentPage(userPage.getNumber());
-
-        System.out.println("Returning Use rPage: user=" + userResponses.size() + ", totalElements=" + userPage.getTotalElements() + ", totalPages=" + userPage.getTotalPages() + ", currentPage=" + userPage.getNumber());
+        dto.setUser(users.stream().map(userMapper::toUserResponse).toList());
+        dto.setCurrentPage(page);
+        dto.setHasNext(slice.hasNext());
+        if (slice.hasNext()) {
+            dto.setNextCursor(PageCursor.after(users.get(users.size() - 1)).encode());
+        }
+        if (withTotal) {
+            String key = (name != null ? name.toLowerCase() : "") + ":" + role;
+            long total = pageCountCache.count(key, () -> userRepository.countUsers(name, role));
+            dto.setTotalElements(total);
+            dto.setTotalPages((int) ((total + size - 1) / size));
+        }
         return dto;
     }
 
     //get info user
+    /**
+     * Thông tin hiển thị của nhiều user trong một query, theo thứ tự ids (bỏ id trùng và
+     * id không tồn tại).
+     */
+    public List<UserSummary> getUsersByIds(Collection<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return List.of();
+        }
+        Set<Long> distinctIds = new LinkedHashSet<>(ids);
+        distinctIds.remove(null);
+        if (distinctIds.size() > MAX_BATCH_IDS) {
+            throw new IllegalArgumentException("Tối đa " + MAX_BATCH_IDS + " ids mỗi lần");
+        }
+        Map<Long, UserSummary> byId = userRepository.findSummariesByIdIn(distinctIds).stream()
+                .collect(Collectors.toMap(UserSummary::getId, summary -> summary));
+        return distinctIds.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
     public UserResponse getInfoUserById(Long id) {
         User user = userRepository.findById(id).orElseThrow(() -> new IllegalArgumentException("User not found"));
         if(user != null){
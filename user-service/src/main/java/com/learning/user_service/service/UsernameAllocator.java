@@ -0,0 +1,116 @@
+package com.learning.user_service.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.learning.user_service.config.UsernameProperties;
+import com.learning.user_service.repository.UserRepository;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Cấp username chưa dùng cho user mới (OAuth signup).
+ *
+ * <p>Luôn chạy đúng một query {@code LIKE base%} rồi chọn trong bộ nhớ: base nếu còn trống, không thì hậu tố
+ * số nhỏ nhất còn trống, thay cho vòng existsByUsername mỗi lần một query. Không bỏ qua query dựa trên dữ liệu
+ * cache: users.username không có unique constraint nên tên do instance khác vừa tạo phải thấy được ngay.
+ *
+ * <p>Việc cấp cho cùng một base được khoá (striped lock) và tên vừa cấp được giữ trong reservations tới
+ * reservation-ttl, nên các signup đồng thời trên instance này nhận tên khác nhau mà không phải thử lại.
+ */
+@Component
+public class UsernameAllocator {
+
+    static final int MAX_LENGTH = 50;                 // users.username length
+    private static final int MAX_BASE_LENGTH = MAX_LENGTH - 6;
+    private static final int LOCK_STRIPES = 64;
+
+    private final UserRepository userRepository;
+    private final Cache<String, Boolean> reservations;
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    public UsernameAllocator(UserRepository userRepository, UsernameProperties properties) {
+        this.userRepository = userRepository;
+        this.reservations = Caffeine.newBuilder()
+                .expireAfterWrite(properties.getReservationTtl())
+                .build();
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    public String allocate(String name, String email) {
+        String base = normalize(name);
+        if (base.isEmpty() && email != null) {
+            base = normalize(email.split("@")[0]);
+        }
+        if (base.isEmpty()) {
+            base = "user";
+        }
+
+        synchronized (locks[Math.floorMod(base.hashCode(), LOCK_STRIPES)]) {
+            int suffix = nextFreeSuffix(base);
+            String username = suffix == 0 ? base : base + suffix;
+            reservations.put(username, Boolean.TRUE);
+            return username;
+        }
+    }
+
+    // Hậu tố nhỏ nhất >= 0 (0 = chính base) sao cho tên chưa có trong DB và chưa được cấp ở instance này
+    private int nextFreeSuffix(String base) {
+        List<String> usernames = userRepository.findUsernamesStartingWith(escapeLike(base));
+        Set<String> reserved = reservations.asMap().keySet();
+        // Có tối đa limit tên trùng base nên luôn còn hậu tố trống <= limit; hậu tố lớn hơn (user tự đặt
+        // "tuan999999999") bỏ qua, không để BitSet phình theo giá trị hậu tố
+        long limit = (long) usernames.size() + reserved.size() + 1;
+        BitSet taken = new BitSet();
+        for (String username : usernames) {
+            markSuffix(taken, base, username, limit);
+        }
+        for (String username : reserved) {
+            markSuffix(taken, base, username, limit);
+        }
+        int suffix = taken.nextClearBit(0);
+        while (reservations.getIfPresent(suffix == 0 ? base : base + suffix) != null) {
+            suffix = taken.nextClearBit(suffix + 1);
+        }
+        return suffix;
+    }
+
+    private static void markSuffix(BitSet taken, String base, String username, long limit) {
+        // So sánh trong bộ nhớ phân biệt hoa thường: collation của MySQL có thể trả về cả "Base1"
+        if (username.length() < base.length() || username.length() > base.length() + 9
+                || !username.regionMatches(true, 0, base, 0, base.length())) {
+            return;
+        }
+        if (username.length() == base.length()) {
+            taken.set(0);
+            return;
+        }
+        String digits = username.substring(base.length());
+        if (digits.charAt(0) == '0' || !digits.chars().allMatch(Character::isDigit)) {
+            return;
+        }
+        long suffix = Long.parseLong(digits);
+        if (suffix <= limit) {
+            taken.set((int) suffix);
+        }
+    }
+
+    static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        // Bỏ dấu tiếng Việt trước ("Trần Đức" -> "tranduc") thay vì xoá luôn các ký tự có dấu
+        String base = Normalizer.normalize(value.toLowerCase().replace('đ', 'd'), Normalizer.Form.NFD)
+                .replaceAll("[^a-z0-9]", "");
+        return base.length() > MAX_BASE_LENGTH ? base.substring(0, MAX_BASE_LENGTH) : base;
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+    }
+}
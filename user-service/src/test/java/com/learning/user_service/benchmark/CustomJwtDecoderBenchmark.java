@@ -0,0 +1,128 @@
+package com.learning.user_service.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.learning.user_service.config.SigningKeyProperties;
+import com.learning.user_service.config.TokenRevocationProperties;
+import com.learning.user_service.entity.SigningKey;
+import com.learning.user_service.entity.User;
+import com.learning.user_service.repository.SigningKeyRepository;
+import com.learning.user_service.security.CustomJwtDecoder;
+import com.learning.user_service.service.SigningKeyManager;
+import com.learning.user_service.service.TokenRevocationStore;
+import com.learning.user_service.service.UserService;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.MACSigner;
+import com.nimbusds.jose.crypto.MACVerifier;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link CustomJwtDecoder#decode} for an RS256 token that is reused across
+ * requests. "legacy" reproduces the original decoder on an HS512 token: a new MACVerifier
+ * per call plus a second parse/verify in NimbusJwtDecoder.
+ *
+ * <pre>mvn -Pbenchmark test-compile exec:exec -Djmh.args="CustomJwtDecoderBenchmark -t 4"</pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CustomJwtDecoderBenchmark {
+
+    static final String SIGNER_KEY = "1TjXchw5FloESb63Kc+DFhTARvpWL4jUGCwfGWxuG5SIf/1y/LgJxHnMqaF6A/ij";
+
+    @Param({"cached", "uncached", "legacy"})
+    String scenario;
+
+    CustomJwtDecoder decoder;
+    NimbusJwtDecoder nimbusJwtDecoder;
+    String token;
+
+    @Setup
+    public void setUp() throws Exception {
+        ((Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+
+        // Không có bảng invalidated_token: deny list rỗng, không gọi repository
+        TokenRevocationStore revocationStore = new TokenRevocationStore(null, new TokenRevocationProperties());
+        SigningKeyManager signingKeyManager = new SigningKeyManager(inMemorySigningKeys(), new SigningKeyProperties(), 36000);
+        signingKeyManager.reload();
+        UserService userService = new UserService(null, null, null, new BCryptPasswordEncoder(), revocationStore,
+                signingKeyManager, null, null, null, null, null, null);
+        ReflectionTestUtils.setField(userService, "SIGNER_KEY", SIGNER_KEY);
+        ReflectionTestUtils.setField(userService, "VALID_DURATION", 3600L);
+        ReflectionTestUtils.invokeMethod(userService, "initJwtKeys");
+
+        decoder = new CustomJwtDecoder(userService, revocationStore, "cached".equals(scenario) ? 10_000 : 0);
+        nimbusJwtDecoder = NimbusJwtDecoder
+                .withSecretKey(new SecretKeySpec(SIGNER_KEY.getBytes(), "HS512"))
+                .macAlgorithm(MacAlgorithm.HS512)
+                .build();
+        User user = new User();
+        user.setUsername("student01");
+        user.setRole(User.Role.STUDENT);
+        token = "legacy".equals(scenario) ? signLegacyToken() : userService.generateToken(user).token();
+    }
+
+    @Benchmark
+    public Jwt decode() throws Exception {
+        if ("legacy".equals(scenario)) {
+            SignedJWT signedJWT = SignedJWT.parse(token);
+            signedJWT.verify(new MACVerifier(SIGNER_KEY.getBytes(StandardCharsets.UTF_8)));
+            return nimbusJwtDecoder.decode(token);
+        }
+        return decoder.decode(token);
+    }
+
+    static SigningKeyRepository inMemorySigningKeys() {
+        Map<String, SigningKey> rows = new ConcurrentHashMap<>();
+        SigningKeyRepository repository = Mockito.mock(SigningKeyRepository.class);
+        Mockito.when(repository.findByExpiresAtAfter(Mockito.any())).thenAnswer(call -> List.copyOf(rows.values()));
+        Mockito.when(repository.insertIfAbsent(Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any()))
+                .thenAnswer(call -> rows.putIfAbsent(call.getArgument(0), SigningKey.builder()
+                        .id(call.getArgument(0))
+                        .jwk(call.getArgument(1))
+                        .activatesAt(call.getArgument(2))
+                        .expiresAt(call.getArgument(3))
+                        .build()) == null ? 1 : 0);
+        Mockito.when(repository.findById(Mockito.any())).thenAnswer(call -> Optional.ofNullable(rows.get(call.getArgument(0))));
+        return repository;
+    }
+
+    static String signLegacyToken() throws Exception {
+        JWTClaimsSet claims = new JWTClaimsSet.Builder()
+                .subject("student01")
+                .issuer("devteria.com")
+                .issueTime(new Date())
+                .expirationTime(Date.from(Instant.now().plus(1, ChronoUnit.HOURS)))
+                .jwtID(UUID.randomUUID().toString())
+                .claim("scope", "ROLE_STUDENT")
+                .build();
+        SignedJWT signedJWT = new SignedJWT(new JWSHeader(JWSAlgorithm.HS512), claims);
+        signedJWT.sign(new MACSigner(SIGNER_KEY.getBytes(StandardCharsets.UTF_8)));
+        return signedJWT.serialize();
+    }
+}
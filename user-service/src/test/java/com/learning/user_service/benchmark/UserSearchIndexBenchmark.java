@@ -0,0 +1,126 @@
+package com.learning.user_service.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.learning.user_service.config.UserSearchProperties;
+import com.learning.user_service.entity.User;
+import com.learning.user_service.repository.UserRepository;
+import com.learning.user_service.service.UserSearchIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Pageable;
+
+import java.text.Normalizer;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admin user search over 1M synthetic Vietnamese names: {@link UserSearchIndex} against a linear
+ * scan with contains(), which is what {@code LOWER(name) LIKE '%q%' ORDER BY created_at} costs at best
+ * (the database additionally reads every row from disk/buffer pool).
+ *
+ * <pre>mvn -Pbenchmark test-compile exec:exec -Djmh.args="UserSearchIndexBenchmark"</pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class UserSearchIndexBenchmark {
+
+    static final String[] LAST = {"Nguyễn", "Nguyễn", "Nguyễn", "Trần", "Lê", "Phạm", "Hoàng", "Huỳnh", "Phan", "Vũ",
+            "Võ", "Đặng", "Bùi", "Đỗ", "Hồ", "Ngô", "Dương", "Lý"};
+    static final String[] MIDDLE = {"Văn", "Thị", "Đức", "Minh", "Thanh", "Ngọc", "Quốc", "Hoàng", "Hữu", "Thu",
+            "Xuân", "Gia", "Bảo", "Kim", "Anh"};
+    static final String[] GIVEN = {"Anh", "Tuấn", "Hoa", "Linh", "Nam", "Hùng", "Trang", "Hương", "Dũng", "Long",
+            "Khánh", "Phương", "Thảo", "Quang", "Hiếu", "Sơn", "Yến", "Hà", "Trung", "Vy", "Đạt", "Phúc", "Nhung",
+            "Tâm", "Huy", "Lan", "Mai", "Bình", "Châu", "Duy"};
+
+    @Param({"1000000"})
+    int users;
+
+    @Param({"tuan", "nguyen van tuan", "phuong th", "ngyuen thi hoa"})
+    String query;
+
+    UserSearchIndex index;
+    String[] foldedNames;
+    long[] createdAt;
+
+    @Setup(org.openjdk.jmh.annotations.Level.Trial)
+    public void setUp() {
+        ((Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+        Random random = new Random(42);
+        List<UserRepository.SearchRow> rows = new ArrayList<>(users);
+        foldedNames = new String[users];
+        createdAt = new long[users];
+        LocalDateTime start = LocalDateTime.now().minusYears(3);
+        for (int i = 0; i < users; i++) {
+            long id = i + 1L;
+            String given = GIVEN[random.nextInt(GIVEN.length)];
+            String name = LAST[random.nextInt(LAST.length)] + " " + MIDDLE[random.nextInt(MIDDLE.length)] + " " + given;
+            String email = fold(given) + "." + id + "@gmail.com";
+            User.Role role = random.nextInt(20) == 0 ? User.Role.INSTRUCTOR : User.Role.STUDENT;
+            LocalDateTime created = start.plusMinutes(i);
+            rows.add(row(id, name, email, role, created));
+            foldedNames[i] = fold(name);
+            createdAt[i] = i;
+        }
+
+        UserRepository repository = Mockito.mock(UserRepository.class);
+        Mockito.when(repository.findByIdGreaterThanOrderByIdAsc(Mockito.anyLong(), Mockito.any(Pageable.class),
+                Mockito.eq(UserRepository.SearchRow.class))).thenAnswer(invocation -> {
+            long after = invocation.getArgument(0);
+            Pageable pageable = invocation.getArgument(1);
+            int from = (int) Math.min(after, rows.size());
+            return rows.subList(from, Math.min(rows.size(), from + pageable.getPageSize()));
+        });
+        index = new UserSearchIndex(repository, new UserSearchProperties(), new SimpleMeterRegistry());
+        long started = System.nanoTime();
+        index.load();
+        System.out.printf("%nIndexed %d users in %d ms, heap used %d MB%n", users,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started),
+                (Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory()) >> 20);
+    }
+
+    @Benchmark
+    public UserSearchIndex.Result trigramIndex() {
+        return index.search(query, null, 0, 10);
+    }
+
+    // LIKE '%q%' ORDER BY created_at DESC LIMIT 10 + COUNT(*): phải xét mọi dòng
+    @Benchmark
+    public long linearScan() {
+        String q = fold(query);
+        long matches = 0;
+        long newest = -1;
+        for (int i = 0; i < foldedNames.length; i++) {
+            if (foldedNames[i].contains(q)) {
+                matches++;
+                newest = Math.max(newest, createdAt[i]);
+            }
+        }
+        return matches * 31 + newest;
+    }
+
+    static String fold(String value) {
+        return Normalizer.normalize(value.toLowerCase().replace('đ', 'd'), Normalizer.Form.NFD)
+                .replaceAll("\\p{M}+", "").replaceAll("[^a-z0-9]+", " ").trim();
+    }
+
+    static UserRepository.SearchRow row(long id, String name, String email, User.Role role, LocalDateTime created) {
+        return new UserRepository.SearchRow() {
+            public Long getId() { return id; }
+            public String getName() { return name; }
+            public String getEmail() { return email; }
+            public User.Role getRole() { return role; }
+            public LocalDateTime getCreatedAt() { return created; }
+            public LocalDateTime getUpdatedAt() { return created; }
+        };
+    }
+}
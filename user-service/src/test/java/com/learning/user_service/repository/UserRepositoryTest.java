@@ -0,0 +1,75 @@
+package com.learning.user_service.repository;
+
+import com.learning.user_service.entity.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect")
+class UserRepositoryTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2025, 1, 1, 8, 0);
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @BeforeEach
+    void setUp() {
+        save("an", "Nguyễn Văn An", User.Role.STUDENT, BASE);
+        save("binh", "Trần Thị Bình", User.Role.INSTRUCTOR, BASE.plusMinutes(1));
+        save("chi", "Lê Văn Chi", User.Role.STUDENT, BASE.plusMinutes(2));
+        // Cùng created_at với chi: thứ tự phải phân định bằng id
+        save("dung", "Phạm Văn Dũng", User.Role.STUDENT, BASE.plusMinutes(2));
+    }
+
+    @Test
+    void listsAllUsersNewestFirstWithoutFilters() {
+        Slice<User> first = userRepository.findUserPage(null, null, PageRequest.of(0, 3));
+
+        assertThat(first.getContent()).extracting(User::getUsername).containsExactly("dung", "chi", "binh");
+        assertThat(first.hasNext()).isTrue();
+        assertThat(userRepository.countUsers(null, null)).isEqualTo(4);
+    }
+
+    @Test
+    void cursorPageContinuesAfterLastRow() {
+        Slice<User> first = userRepository.findUserPage(null, null, PageRequest.of(0, 2));
+        User last = first.getContent().get(1);
+
+        Slice<User> second = userRepository.findUserPageBefore(null, null, last.getCreatedAt(), last.getId(),
+                PageRequest.of(0, 2));
+
+        assertThat(first.getContent()).extracting(User::getUsername).containsExactly("dung", "chi");
+        assertThat(second.getContent()).extracting(User::getUsername).containsExactly("binh", "an");
+        assertThat(second.hasNext()).isFalse();
+    }
+
+    @Test
+    void namesAndRoleFilterTogether() {
+        Slice<User> page = userRepository.findUserPage("văn", User.Role.STUDENT, PageRequest.of(0, 10));
+
+        assertThat(page.getContent()).extracting(User::getUsername).containsExactly("dung", "chi", "an");
+        assertThat(userRepository.countUsers("văn", User.Role.STUDENT)).isEqualTo(3);
+        assertThat(userRepository.findUserPage(null, User.Role.INSTRUCTOR, PageRequest.of(0, 10)).getContent())
+                .extracting(User::getUsername).containsExactly("binh");
+        assertThat(userRepository.countUsers("văn", User.Role.INSTRUCTOR)).isZero();
+    }
+
+    private void save(String username, String name, User.Role role, LocalDateTime createdAt) {
+        User user = new User();
+        user.setUsername(username);
+        user.setName(name);
+        user.setEmail(username + "@example.com");
+        user.setPassword("x");
+        user.setRole(role);
+        user.setCreatedAt(createdAt);
+        userRepository.saveAndFlush(user);
+    }
+}
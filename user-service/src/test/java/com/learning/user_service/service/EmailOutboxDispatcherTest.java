@@ -0,0 +1,118 @@
+package com.learning.user_service.service;
+
+import com.learning.user_service.config.EmailOutboxProperties;
+import com.learning.user_service.config.SmtpStubServer;
+import com.learning.user_service.entity.EmailOutbox;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class EmailOutboxDispatcherTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private EmailOutboxProperties properties;
+    private SmtpStubServer smtp;
+    private EmailOutboxService outbox;
+    private EmailOutboxDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        properties = new EmailOutboxProperties();
+        properties.getSmtpStub().setPort(0);
+        smtp = new SmtpStubServer(properties);
+        smtp.start();
+        // Lần khởi động lại (sau khi "sập") dùng đúng cổng này
+        properties.getSmtpStub().setPort(smtp.port());
+
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(smtp.port());
+        Properties mail = new Properties();
+        mail.put("mail.smtp.connectiontimeout", "2000");
+        mail.put("mail.smtp.timeout", "2000");
+        mailSender.setJavaMailProperties(mail);
+
+        outbox = mock(EmailOutboxService.class);
+        when(outbox.markFailed(any(), any(), anyBoolean())).thenReturn(true);
+        dispatcher = new EmailOutboxDispatcher(outbox, mailSender, properties, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        smtp.stop();
+    }
+
+    @Test
+    void batchIsSentOverOneConnection() {
+        List<EmailOutbox> batch = List.of(email(1, null), email(2, null), email(3, null));
+        when(outbox.claimBatch(anyInt())).thenReturn(batch);
+
+        assertThat(dispatcher.drainOnce()).isEqualTo(3);
+
+        assertThat(smtp.receivedMessages()).extracting(message -> message.recipients().get(0))
+                .containsExactlyInAnyOrder("<user1@example.com>", "<user2@example.com>", "<user3@example.com>");
+        assertThat(smtp.connectionCount()).isEqualTo(1);
+        verify(outbox).markSent(argThat(ids -> ids.containsAll(List.of(1L, 2L, 3L)) && ids.size() == 3));
+        assertThat(meterRegistry.counter("email.outbox.sent").count()).isEqualTo(3);
+    }
+
+    @Test
+    void expiredRowIsDroppedWithoutSending() {
+        EmailOutbox expired = email(1, new Date(System.currentTimeMillis() - 1000));
+        EmailOutbox fresh = email(2, new Date(System.currentTimeMillis() + 60_000));
+        when(outbox.claimBatch(anyInt())).thenReturn(List.of(expired, fresh));
+
+        dispatcher.drainOnce();
+
+        verify(outbox).markFailed(eq(expired), anyString(), eq(true));
+        assertThat(smtp.receivedMessages()).extracting(message -> message.recipients().get(0))
+                .containsExactly("<user2@example.com>");
+        verify(outbox).markSent(List.of(2L));
+        assertThat(meterRegistry.counter("email.outbox.failed", "outcome", "dropped").count()).isEqualTo(1);
+    }
+
+    @Test
+    void batchIsRetriedWhenSmtpIsDown() {
+        EmailOutbox email = email(1, null);
+        when(outbox.claimBatch(anyInt())).thenReturn(List.of(email));
+        smtp.stop();
+
+        dispatcher.drainOnce();
+
+        verify(outbox).markFailed(eq(email), any(), eq(false));
+        verify(outbox, never()).markSent(argThat(ids -> !ids.isEmpty()));
+        assertThat(meterRegistry.counter("email.outbox.failed", "outcome", "retry").count()).isEqualTo(1);
+
+        // Lần nhận lại sau backoff: SMTP đã lên lại
+        smtp.start();
+        dispatcher.drainOnce();
+
+        assertThat(smtp.receivedMessages()).hasSize(1);
+        verify(outbox).markSent(List.of(1L));
+    }
+
+    private static EmailOutbox email(long id, Date expiresAt) {
+        return EmailOutbox.builder()
+                .id(id)
+                .dedupeKey("otp:" + id)
+                .recipient("user" + id + "@example.com")
+                .subject("Mã OTP")
+                .body("123456")
+                .status(EmailOutbox.Status.SENDING)
+                .attempts(1)
+                .nextAttemptAt(new Date())
+                .expiresAt(expiresAt)
+                .createdAt(new Date())
+                .build();
+    }
+}
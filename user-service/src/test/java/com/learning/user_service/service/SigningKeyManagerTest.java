@@ -0,0 +1,103 @@
+package com.learning.user_service.service;
+
+import com.learning.user_service.config.SigningKeyProperties;
+import com.learning.user_service.entity.SigningKey;
+import com.learning.user_service.repository.SigningKeyRepository;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSObject;
+import com.nimbusds.jose.Payload;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SigningKeyManagerTest {
+
+    private static final String KEY = Base64.getEncoder().encodeToString(new byte[32]);
+    private static final String OTHER_KEY = Base64.getEncoder().encodeToString("0123456789abcdef0123456789abcdef".getBytes());
+
+    private final Map<String, SigningKey> rows = new ConcurrentHashMap<>();
+    private SigningKeyRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = Mockito.mock(SigningKeyRepository.class);
+        Mockito.when(repository.findByExpiresAtAfter(Mockito.any())).thenAnswer(call -> List.copyOf(rows.values()));
+        Mockito.when(repository.insertIfAbsent(Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any()))
+                .thenAnswer(call -> rows.putIfAbsent(call.getArgument(0), SigningKey.builder()
+                        .id(call.getArgument(0))
+                        .jwk(call.getArgument(1))
+                        .activatesAt(call.getArgument(2))
+                        .expiresAt(call.getArgument(3))
+                        .build()) == null ? 1 : 0);
+        Mockito.when(repository.findById(Mockito.any())).thenAnswer(call -> Optional.ofNullable(rows.get(call.getArgument(0))));
+    }
+
+    private SigningKeyManager manager(String encryptionKey) {
+        SigningKeyProperties properties = new SigningKeyProperties();
+        properties.setEncryptionKey(encryptionKey);
+        SigningKeyManager manager = new SigningKeyManager(repository, properties, 36000);
+        manager.reload();
+        return manager;
+    }
+
+    private static boolean signsAndVerifies(SigningKeyManager signer, SigningKeyManager verifier) throws Exception {
+        SigningKeyManager.ActiveKey key = signer.signingKey();
+        JWSObject jws = new JWSObject(new JWSHeader.Builder(key.algorithm()).keyID(key.kid()).build(), new Payload("x"));
+        jws.sign(key.signer());
+        return jws.verify(verifier.verifier(key.kid(), key.algorithm()));
+    }
+
+    @Test
+    void privateJwkIsStoredEncrypted() throws Exception {
+        SigningKeyManager manager = manager(KEY);
+
+        SigningKey row = rows.values().iterator().next();
+        assertThat(row.getJwk()).startsWith("enc:v1:").doesNotContain("\"d\"");
+        assertThat(manager.jwksJson()).contains(row.getId()).doesNotContain("\"d\"");
+        assertThat(signsAndVerifies(manager, manager)).isTrue();
+    }
+
+    @Test
+    void otherInstanceWithSameKeyLoadsTheStoredKey() throws Exception {
+        SigningKeyManager first = manager(KEY);
+        SigningKeyManager second = manager(KEY);
+
+        assertThat(rows).hasSize(1);
+        assertThat(signsAndVerifies(first, second)).isTrue();
+        assertThat(signsAndVerifies(second, first)).isTrue();
+    }
+
+    @Test
+    void wrongOrMissingKeyCannotUseEncryptedRows() {
+        manager(KEY);
+
+        assertThatThrownBy(() -> manager(OTHER_KEY).signingKey()).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> manager("").signingKey()).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void plaintextRowsFromBeforeEncryptionStayReadable() throws Exception {
+        SigningKeyManager legacy = manager("");
+        assertThat(rows.values().iterator().next().getJwk()).startsWith("{");
+
+        assertThat(signsAndVerifies(manager(KEY), legacy)).isTrue();
+    }
+
+    @Test
+    void rejectsKeyOfWrongLength() {
+        SigningKeyProperties properties = new SigningKeyProperties();
+        properties.setEncryptionKey(Base64.getEncoder().encodeToString(new byte[10]));
+
+        assertThatThrownBy(() -> new SigningKeyManager(repository, properties, 36000))
+                .isInstanceOf(IllegalStateException.class);
+    }
+}
@@ -0,0 +1,96 @@
+package com.learning.user_service.service;
+
+import com.learning.user_service.config.TokenRevocationProperties;
+import com.learning.user_service.entity.InvalidatedToken;
+import com.learning.user_service.repository.InvalidatedTokenRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect")
+class TokenRevocationStoreTest {
+
+    private static final long HOUR = 3_600_000L;
+
+    @Autowired
+    private InvalidatedTokenRepository invalidatedTokenRepository;
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private TokenRevocationStore store;
+
+    @BeforeEach
+    void setUp() {
+        TokenRevocationProperties properties = new TokenRevocationProperties();
+        properties.setBatchSize(2);
+        store = new TokenRevocationStore(invalidatedTokenRepository, properties);
+    }
+
+    // Ghi trực tiếp vào bảng như một instance khác
+    private void revokedElsewhere(String jti, long expiresIn) {
+        invalidatedTokenRepository.saveAndFlush(InvalidatedToken.builder()
+                .id(jti).expiryTime(new Date(System.currentTimeMillis() + expiresIn)).build());
+    }
+
+    @Test
+    void syncReadsOnlyRowsWrittenSinceTheLastOne() {
+        revokedElsewhere("a", HOUR);
+        revokedElsewhere("b", HOUR);
+        revokedElsewhere("c", HOUR);
+        revokedElsewhere("expired", -HOUR);
+        entityManager.clear();
+
+        assertThat(store.sync()).isEqualTo(3);
+        assertThat(store.isRevoked("a")).isTrue();
+        assertThat(store.isRevoked("c")).isTrue();
+        assertThat(store.isRevoked("expired")).isFalse();
+
+        assertThat(store.sync()).isZero();
+
+        revokedElsewhere("d", HOUR);
+        entityManager.clear();
+        assertThat(store.sync()).isEqualTo(1);
+        assertThat(store.isRevoked("d")).isTrue();
+        assertThat(store.isRevoked("unknown")).isFalse();
+    }
+
+    @Test
+    void rowCommittedAfterAHigherSeqWasReadIsStillLoaded() {
+        revokedElsewhere("a", HOUR);
+        revokedElsewhere("b", HOUR);
+        revokedElsewhere("c", HOUR);
+        long gap = invalidatedTokenRepository.findById("b").orElseThrow().getSeq();
+        invalidatedTokenRepository.deleteById("b");
+        invalidatedTokenRepository.flush();
+        entityManager.clear();
+        assertThat(store.sync()).isEqualTo(2);
+
+        // seq cấp trước "c" nhưng commit sau khi sync đã đọc "c"
+        entityManager.getEntityManager()
+                .createNativeQuery("INSERT INTO invalidated_token (id, expiry_time, seq) VALUES (?, ?, ?)")
+                .setParameter(1, "late")
+                .setParameter(2, new Date(System.currentTimeMillis() + HOUR))
+                .setParameter(3, gap)
+                .executeUpdate();
+        entityManager.clear();
+
+        assertThat(store.sync()).isEqualTo(1);
+        assertThat(store.isRevoked("late")).isTrue();
+    }
+
+    @Test
+    void revokeIsVisibleImmediately() {
+        store.revoke("local", new Date(System.currentTimeMillis() + HOUR));
+
+        assertThat(store.isRevoked("local")).isTrue();
+        entityManager.flush();
+        entityManager.clear();
+        assertThat(invalidatedTokenRepository.findById("local").orElseThrow().getSeq()).isNotNull();
+    }
+}
@@ -0,0 +1,155 @@
+package com.learning.user_service.service;
+
+import com.learning.user_service.config.UserSearchProperties;
+import com.learning.user_service.entity.User;
+import com.learning.user_service.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class UserSearchIndexTest {
+
+    private UserSearchIndex index;
+    private long createdAt;
+
+    @BeforeEach
+    void setUp() {
+        index = new UserSearchIndex(mock(UserRepository.class), new UserSearchProperties(), new SimpleMeterRegistry());
+        // Repository mock trả về list rỗng: index sẵn sàng ngay, dữ liệu nạp bằng put
+        index.load();
+    }
+
+    private void put(long id, String name, String email, User.Role role) {
+        index.put(new UserSearchIndex.Entry(id, name, email, role, createdAt++));
+    }
+
+    private List<Long> search(String query, User.Role role) {
+        return index.search(query, role, 0, 20).userIds();
+    }
+
+    @Test
+    void substringMatchesInsideWordsAndAcrossWords() {
+        put(1, "Nguyễn Văn Tuấn", "tuan.nv@gmail.com", User.Role.STUDENT);
+        put(2, "Trần Thị Phương", "phuong.tt@gmail.com", User.Role.STUDENT);
+        put(3, "Lê Hoàng Anh", "anh.lh@gmail.com", User.Role.INSTRUCTOR);
+
+        assertThat(search("uye", null)).containsExactly(1L);
+        assertThat(search("Văn Tu", null)).containsExactly(1L);
+        assertThat(search("thi phuong", null)).containsExactly(2L);
+        assertThat(search("anh.lh", null)).containsExactly(3L);
+        assertThat(search("gmail", null)).isEmpty();
+        assertThat(index.search("!!", null, 0, 20)).isNull();
+    }
+
+    @Test
+    void fuzzyMatchesTypos() {
+        put(1, "Nguyễn Thị Hoa", "hoa.nt@gmail.com", User.Role.STUDENT);
+        put(2, "Phạm Minh Đức", "duc.pm@gmail.com", User.Role.STUDENT);
+
+        assertThat(search("ngyuen thi hoa", null)).containsExactly(1L);
+        assertThat(search("nguyn thi", null)).containsExactly(1L);
+        assertThat(search("pham mihn duc", null)).containsExactly(2L);
+        // Từ cuối được coi là đang gõ dở: khớp đầu từ, không phụ thuộc thứ tự từ
+        assertThat(search("hoa th", null)).containsExactly(1L);
+        assertThat(search("xyzw", null)).isEmpty();
+    }
+
+    @Test
+    void roleFilterAppliesToSubstringAndFuzzyMatches() {
+        put(1, "Nguyễn Văn Tuấn", "tuan1@gmail.com", User.Role.STUDENT);
+        put(2, "Nguyễn Văn Tuấn", "tuan2@gmail.com", User.Role.INSTRUCTOR);
+        put(3, "Nguyễn Văn Tuấn", "tuan3@gmail.com", User.Role.ADMIN);
+
+        assertThat(search("van tuan", User.Role.INSTRUCTOR)).containsExactly(2L);
+        assertThat(search("ngyuen van", User.Role.ADMIN)).containsExactly(3L);
+        assertThat(index.search("van tuan", User.Role.STUDENT, 0, 20).total()).isEqualTo(1);
+    }
+
+    @Test
+    void ranksExactThenPrefixThenWordThenInsideThenEmailThenFuzzy() {
+        put(1, "Tuan", "a1@gmail.com", User.Role.STUDENT);
+        put(2, "Tuan Anh", "a2@gmail.com", User.Role.STUDENT);
+        put(3, "Le Tuan", "a3@gmail.com", User.Role.STUDENT);
+        put(4, "Letuan", "a4@gmail.com", User.Role.STUDENT);
+        put(5, "Minh", "tuan.minh@gmail.com", User.Role.STUDENT);
+        put(6, "Tuna", "a6@gmail.com", User.Role.STUDENT);
+        // Cùng hạng: tên ngắn hơn rồi user mới hơn
+        put(7, "Tuan Bao", "a7@gmail.com", User.Role.STUDENT);
+        put(8, "Tuan Anh", "a8@gmail.com", User.Role.STUDENT);
+
+        assertThat(search("tuan", null)).containsExactly(1L, 8L, 7L, 2L, 3L, 4L, 5L, 6L);
+    }
+
+    @Test
+    void pagesAreSlicesOfTheRanking() {
+        for (long id = 1; id <= 25; id++) {
+            put(id, "Tuan " + id, "u" + id + "@gmail.com", User.Role.STUDENT);
+        }
+
+        UserSearchIndex.Result second = index.search("tuan", null, 1, 10);
+        assertThat(second.total()).isEqualTo(25);
+        assertThat(second.userIds()).hasSize(10)
+                .doesNotContainAnyElementsOf(index.search("tuan", null, 0, 10).userIds());
+    }
+
+    @Test
+    void updateReplacesPreviousDocument() {
+        put(1, "Nguyễn Văn Tuấn", "u1@gmail.com", User.Role.STUDENT);
+        put(1, "Nguyễn Văn Hùng", "u1@gmail.com", User.Role.STUDENT);
+
+        assertThat(search("hung", null)).containsExactly(1L);
+        assertThat(search("van tuan", null)).isEmpty();
+        assertThat(index.size()).isEqualTo(1);
+    }
+
+    @Test
+    void fuzzyPassIsBoundedWhenManyUsersMatchApproximately() {
+        UserSearchProperties properties = new UserSearchProperties();
+        properties.setFuzzyMaxDocs(100);
+        index = new UserSearchIndex(mock(UserRepository.class), properties, new SimpleMeterRegistry());
+        index.load();
+        // "phuong th" không khớp chuỗi con nào (Phương luôn là tên) nhưng khớp gần đúng mọi user
+        for (long id = 1; id <= 5_000; id++) {
+            put(id, (id % 2 == 0 ? "Trần Thị " : "Lê Thanh ") + "Phương", "user" + id + "@gmail.com", User.Role.STUDENT);
+        }
+
+        UserSearchIndex.Result result = index.search("phuong th", null, 0, 10);
+        assertThat(result.userIds()).hasSize(10).allMatch(id -> id > 4_000);
+        assertThat(result.total()).isBetween(10L, 100L);
+        // Trang đã đầy khớp chuỗi con thì không chạy bước gần đúng
+        assertThat(index.search("tran thi", null, 0, 10).total()).isEqualTo(2_500);
+    }
+
+    @Test
+    void compactKeepsLiveDocumentsAndUpdatesMadeWhileBuilding() {
+        int users = 2_000;
+        for (long id = 1; id <= users; id++) {
+            put(id, "Old Name " + id, "user" + id + "@gmail.com", User.Role.STUDENT);
+        }
+        for (long id = 1; id <= users; id += 2) {
+            put(id, "Mid Name " + id, "user" + id + "@gmail.com", User.Role.STUDENT);
+        }
+
+        CompletableFuture<Void> compaction = CompletableFuture.runAsync(index::compact);
+        for (long id = 1; id <= users; id += 4) {
+            put(id, "New Name " + id, "user" + id + "@gmail.com", User.Role.INSTRUCTOR);
+        }
+        put(users + 1, "Added Later", "later@gmail.com", User.Role.STUDENT);
+        compaction.join();
+        index.compact();
+
+        assertThat(index.size()).isEqualTo(users + 1);
+        assertThat(index.search("new name", null, 0, 1).total()).isEqualTo(users / 4);
+        assertThat(index.search("mid name", null, 0, 1).total()).isEqualTo(users / 4);
+        assertThat(index.search("old name", null, 0, 1).total()).isEqualTo(users / 2);
+        assertThat(search("new name 5", User.Role.INSTRUCTOR)).startsWith(5L);
+        assertThat(search("new name 3", null)).doesNotContain(3L);
+        assertThat(search("added later", null)).containsExactly(users + 1L);
+    }
+}
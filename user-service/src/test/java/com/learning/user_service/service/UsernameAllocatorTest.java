@@ -0,0 +1,84 @@
+package com.learning.user_service.service;
+
+import com.learning.user_service.config.UsernameProperties;
+import com.learning.user_service.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UsernameAllocatorTest {
+
+    private UserRepository userRepository;
+    private UsernameAllocator allocator;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        allocator = new UsernameAllocator(userRepository, new UsernameProperties());
+    }
+
+    @Test
+    void freeBaseIsUsedAfterOneQuery() {
+        assertThat(allocator.allocate("Trần Đức Tuấn", "x@example.com")).isEqualTo("tranductuan");
+        verify(userRepository, times(1)).findUsernamesStartingWith(anyString());
+    }
+
+    @Test
+    void baseCreatedByAnotherInstanceIsSeenImmediately() {
+        when(userRepository.findUsernamesStartingWith("tuan")).thenReturn(List.of("Tuan"));
+
+        assertThat(allocator.allocate("tuan", null)).isEqualTo("tuan1");
+    }
+
+    @Test
+    void takenBaseGetsSmallestFreeSuffix() {
+        when(userRepository.findUsernamesStartingWith("tuan"))
+                .thenReturn(List.of("tuan", "Tuan1", "tuan2", "tuan4", "tuan07", "tuanh3"));
+
+        assertThat(allocator.allocate("Tuan", null)).isEqualTo("tuan3");
+    }
+
+    @Test
+    void hugeSuffixesAreIgnored() {
+        when(userRepository.findUsernamesStartingWith("tuan"))
+                .thenReturn(List.of("tuan", "tuan1", "tuan999999999", "tuan2147483647"));
+
+        assertThat(allocator.allocate("tuan", null)).isEqualTo("tuan2");
+    }
+
+    @Test
+    void everyLowSuffixTakenStillFindsOneWithinLimit() {
+        List<String> usernames = new ArrayList<>(List.of("tuan"));
+        for (int i = 1; i <= 100; i++) {
+            usernames.add("tuan" + i);
+        }
+        usernames.add("tuan999999999");
+        when(userRepository.findUsernamesStartingWith("tuan")).thenReturn(usernames);
+
+        assertThat(allocator.allocate("tuan", null)).isEqualTo("tuan101");
+    }
+
+    @Test
+    void reservedNamesAreNotHandedOutTwice() {
+        when(userRepository.findUsernamesStartingWith("tuan")).thenReturn(List.of("tuan"));
+
+        assertThat(allocator.allocate("tuan", null)).isEqualTo("tuan1");
+        assertThat(allocator.allocate("tuan", null)).isEqualTo("tuan2");
+        assertThat(allocator.allocate("tuan", null)).isEqualTo("tuan3");
+    }
+
+    @Test
+    void baseFallsBackToEmailThenUser() {
+        assertThat(allocator.allocate("", "nguyen_van@example.com")).isEqualTo("nguyenvan");
+        assertThat(allocator.allocate(null, null)).isEqualTo("user");
+    }
+}